@@ -1,8 +1,12 @@
 package com.hyrinth.backend;
 
+import com.alibaba.fastjson2.JSONArray;
 import org.zyneonstudios.apex.utilities.json.JsonFile;
 import org.zyneonstudios.apex.utilities.storage.EditableStorage;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class HyrinthBackendSettings {
 
     private final EditableStorage storage;
@@ -10,6 +14,24 @@ public class HyrinthBackendSettings {
     private STORAGE_TYPE storageType = STORAGE_TYPE.LOCAL;
     private String dataPath = "data/";
     private boolean h2Memory = false;
+    private boolean h2AutoServer = false;
+    private int h2CacheSize = 65536;
+    private boolean jsonJournal = false;
+    private long jsonJournalSyncInterval = 50L;
+    private int jsonJournalCompactAfter = 10000;
+    private long jsonCommitWindow = 5L;
+    private boolean jsonBinarySnapshots = true;
+    private String jsonLayout = "file";
+    private int jsonShards = 16;
+    private boolean localSnapshots = false;
+    private long localSnapshotInterval = 60L;
+    private boolean storageCache = false;
+    private long storageCacheMaxSize = 10000L;
+    private long storageCacheTtl = 60000L;
+    private boolean storageKeyFilter = true;
+    private long storageCacheNegativeTtl = 5000L;
+    private boolean storageCacheBloomFilter = false;
+    private long storageCacheBloomExpectedKeys = 1000000L;
 
     private String mysqlHost = "127.0.0.1";
     private int mysqlPort = 3306;
@@ -17,6 +39,20 @@ public class HyrinthBackendSettings {
     private String mysqlPassword = "";
     private String mysqlDatabase = "hyrinth";
     private boolean mysqlSsl = false;
+    private List<String> mysqlReplicas = new ArrayList<>();
+
+    private int sqliteReaders = 4;
+    private String sqliteSynchronous = "NORMAL";
+    private int sqliteCacheSize = 16384;
+    private long sqliteMmapSize = 268435456L;
+
+    private int sqlPoolMinIdle = 2;
+    private int sqlPoolMaxSize = 10;
+    private long sqlPoolConnectionTimeout = 30000L;
+    private long sqlPoolIdleTimeout = 600000L;
+    private long sqlPoolLeakDetectionThreshold = 60000L;
+    private String sqlPoolValidationQuery = "SELECT 1";
+    private int sqlPoolStatementCacheSize = 64;
 
     private String name = "hyrinth-backend-api";
     private String docs = "https://docs.hyrinth.com";
@@ -68,6 +104,172 @@ public class HyrinthBackendSettings {
         return h2Memory;
     }
 
+    public void setH2AutoServer(boolean h2AutoServer) {
+        this.h2AutoServer = h2AutoServer;
+        storage.set("settings.storage.H2.autoServer", h2AutoServer);
+    }
+
+    public boolean isH2AutoServer() {
+        return h2AutoServer;
+    }
+
+    public void setH2CacheSize(int h2CacheSize) {
+        this.h2CacheSize = h2CacheSize;
+        storage.set("settings.storage.H2.cacheSize", h2CacheSize);
+    }
+
+    public int getH2CacheSize() {
+        return h2CacheSize;
+    }
+
+    public void setJsonJournal(boolean jsonJournal) {
+        this.jsonJournal = jsonJournal;
+        storage.set("settings.storage.JSON.journal", jsonJournal);
+    }
+
+    public boolean isJsonJournal() {
+        return jsonJournal;
+    }
+
+    public void setJsonJournalSyncInterval(long jsonJournalSyncInterval) {
+        this.jsonJournalSyncInterval = jsonJournalSyncInterval;
+        storage.set("settings.storage.JSON.syncInterval", jsonJournalSyncInterval);
+    }
+
+    public long getJsonJournalSyncInterval() {
+        return jsonJournalSyncInterval;
+    }
+
+    public void setJsonJournalCompactAfter(int jsonJournalCompactAfter) {
+        this.jsonJournalCompactAfter = jsonJournalCompactAfter;
+        storage.set("settings.storage.JSON.compactAfter", jsonJournalCompactAfter);
+    }
+
+    public int getJsonJournalCompactAfter() {
+        return jsonJournalCompactAfter;
+    }
+
+    public void setJsonCommitWindow(long jsonCommitWindow) {
+        this.jsonCommitWindow = jsonCommitWindow;
+        storage.set("settings.storage.JSON.commitWindow", jsonCommitWindow);
+    }
+
+    public long getJsonCommitWindow() {
+        return jsonCommitWindow;
+    }
+
+    public void setJsonBinarySnapshots(boolean jsonBinarySnapshots) {
+        this.jsonBinarySnapshots = jsonBinarySnapshots;
+        storage.set("settings.storage.JSON.binarySnapshots", jsonBinarySnapshots);
+    }
+
+    public boolean isJsonBinarySnapshots() {
+        return jsonBinarySnapshots;
+    }
+
+    public void setJsonLayout(String jsonLayout) {
+        this.jsonLayout = jsonLayout;
+        storage.set("settings.storage.JSON.layout", jsonLayout);
+    }
+
+    public String getJsonLayout() {
+        return jsonLayout;
+    }
+
+    public boolean isJsonSharded() {
+        return "sharded".equalsIgnoreCase(jsonLayout);
+    }
+
+    public void setJsonShards(int jsonShards) {
+        this.jsonShards = jsonShards;
+        storage.set("settings.storage.JSON.shards", jsonShards);
+    }
+
+    public int getJsonShards() {
+        return jsonShards;
+    }
+
+    public void setLocalSnapshots(boolean localSnapshots) {
+        this.localSnapshots = localSnapshots;
+        storage.set("settings.storage.LOCAL.snapshots", localSnapshots);
+    }
+
+    public boolean isLocalSnapshots() {
+        return localSnapshots;
+    }
+
+    public void setLocalSnapshotInterval(long localSnapshotInterval) {
+        this.localSnapshotInterval = localSnapshotInterval;
+        storage.set("settings.storage.LOCAL.snapshotInterval", localSnapshotInterval);
+    }
+
+    public long getLocalSnapshotInterval() {
+        return localSnapshotInterval;
+    }
+
+    public void setStorageCache(boolean storageCache) {
+        this.storageCache = storageCache;
+        storage.set("settings.storage.cache.enabled", storageCache);
+    }
+
+    public boolean isStorageCache() {
+        return storageCache;
+    }
+
+    public void setStorageCacheMaxSize(long storageCacheMaxSize) {
+        this.storageCacheMaxSize = storageCacheMaxSize;
+        storage.set("settings.storage.cache.maxSize", storageCacheMaxSize);
+    }
+
+    public long getStorageCacheMaxSize() {
+        return storageCacheMaxSize;
+    }
+
+    public void setStorageCacheTtl(long storageCacheTtl) {
+        this.storageCacheTtl = storageCacheTtl;
+        storage.set("settings.storage.cache.ttl", storageCacheTtl);
+    }
+
+    public long getStorageCacheTtl() {
+        return storageCacheTtl;
+    }
+
+    public void setStorageKeyFilter(boolean storageKeyFilter) {
+        this.storageKeyFilter = storageKeyFilter;
+        storage.set("settings.storage.keyFilter.enabled", storageKeyFilter);
+    }
+
+    public boolean isStorageKeyFilter() {
+        return storageKeyFilter;
+    }
+
+    public void setStorageCacheNegativeTtl(long storageCacheNegativeTtl) {
+        this.storageCacheNegativeTtl = storageCacheNegativeTtl;
+        storage.set("settings.storage.cache.negativeTtl", storageCacheNegativeTtl);
+    }
+
+    public long getStorageCacheNegativeTtl() {
+        return storageCacheNegativeTtl;
+    }
+
+    public void setStorageCacheBloomFilter(boolean storageCacheBloomFilter) {
+        this.storageCacheBloomFilter = storageCacheBloomFilter;
+        storage.set("settings.storage.cache.bloomFilter", storageCacheBloomFilter);
+    }
+
+    public boolean isStorageCacheBloomFilter() {
+        return storageCacheBloomFilter;
+    }
+
+    public void setStorageCacheBloomExpectedKeys(long storageCacheBloomExpectedKeys) {
+        this.storageCacheBloomExpectedKeys = storageCacheBloomExpectedKeys;
+        storage.set("settings.storage.cache.bloomExpectedKeys", storageCacheBloomExpectedKeys);
+    }
+
+    public long getStorageCacheBloomExpectedKeys() {
+        return storageCacheBloomExpectedKeys;
+    }
+
     public void setMysqlHost(String mysqlHost) {
         this.mysqlHost = mysqlHost;
     }
@@ -116,6 +318,102 @@ public class HyrinthBackendSettings {
         return mysqlSsl;
     }
 
+    public void setMysqlReplicas(List<String> mysqlReplicas) {
+        this.mysqlReplicas = mysqlReplicas;
+    }
+
+    public List<String> getMysqlReplicas() {
+        return mysqlReplicas;
+    }
+
+    public void setSqliteReaders(int sqliteReaders) {
+        this.sqliteReaders = sqliteReaders;
+    }
+
+    public int getSqliteReaders() {
+        return sqliteReaders;
+    }
+
+    public void setSqliteSynchronous(String sqliteSynchronous) {
+        this.sqliteSynchronous = sqliteSynchronous;
+    }
+
+    public String getSqliteSynchronous() {
+        return sqliteSynchronous;
+    }
+
+    public void setSqliteCacheSize(int sqliteCacheSize) {
+        this.sqliteCacheSize = sqliteCacheSize;
+    }
+
+    public int getSqliteCacheSize() {
+        return sqliteCacheSize;
+    }
+
+    public void setSqliteMmapSize(long sqliteMmapSize) {
+        this.sqliteMmapSize = sqliteMmapSize;
+    }
+
+    public long getSqliteMmapSize() {
+        return sqliteMmapSize;
+    }
+
+    public void setSqlPoolMinIdle(int sqlPoolMinIdle) {
+        this.sqlPoolMinIdle = sqlPoolMinIdle;
+    }
+
+    public int getSqlPoolMinIdle() {
+        return sqlPoolMinIdle;
+    }
+
+    public void setSqlPoolMaxSize(int sqlPoolMaxSize) {
+        this.sqlPoolMaxSize = sqlPoolMaxSize;
+    }
+
+    public int getSqlPoolMaxSize() {
+        return sqlPoolMaxSize;
+    }
+
+    public void setSqlPoolConnectionTimeout(long sqlPoolConnectionTimeout) {
+        this.sqlPoolConnectionTimeout = sqlPoolConnectionTimeout;
+    }
+
+    public long getSqlPoolConnectionTimeout() {
+        return sqlPoolConnectionTimeout;
+    }
+
+    public void setSqlPoolIdleTimeout(long sqlPoolIdleTimeout) {
+        this.sqlPoolIdleTimeout = sqlPoolIdleTimeout;
+    }
+
+    public long getSqlPoolIdleTimeout() {
+        return sqlPoolIdleTimeout;
+    }
+
+    public void setSqlPoolLeakDetectionThreshold(long sqlPoolLeakDetectionThreshold) {
+        this.sqlPoolLeakDetectionThreshold = sqlPoolLeakDetectionThreshold;
+    }
+
+    public long getSqlPoolLeakDetectionThreshold() {
+        return sqlPoolLeakDetectionThreshold;
+    }
+
+    public void setSqlPoolValidationQuery(String sqlPoolValidationQuery) {
+        this.sqlPoolValidationQuery = sqlPoolValidationQuery;
+    }
+
+    public String getSqlPoolValidationQuery() {
+        return sqlPoolValidationQuery;
+    }
+
+    public void setSqlPoolStatementCacheSize(int sqlPoolStatementCacheSize) {
+        this.sqlPoolStatementCacheSize = sqlPoolStatementCacheSize;
+    }
+
+    public int getSqlPoolStatementCacheSize() {
+        return sqlPoolStatementCacheSize;
+    }
+
     public void reload() {
         if(storage instanceof JsonFile) {
             ((JsonFile)storage).reload();
@@ -134,6 +432,42 @@ public class HyrinthBackendSettings {
         dataPath = normalizePath(storage.getString("settings.storage.dataPath"));
         storage.ensure("settings.storage.H2.memory", false);
         h2Memory = Boolean.parseBoolean(storage.getString("settings.storage.H2.memory"));
+        storage.ensure("settings.storage.H2.autoServer", false);
+        h2AutoServer = Boolean.parseBoolean(storage.getString("settings.storage.H2.autoServer"));
+        storage.ensure("settings.storage.H2.cacheSize", 65536);
+        h2CacheSize = Math.max(0, parseInt(storage.getString("settings.storage.H2.cacheSize"), 65536));
+        storage.ensure("settings.storage.JSON.journal", false);
+        jsonJournal = Boolean.parseBoolean(storage.getString("settings.storage.JSON.journal"));
+        storage.ensure("settings.storage.JSON.syncInterval", 50);
+        jsonJournalSyncInterval = Math.max(0L, parseLong(storage.getString("settings.storage.JSON.syncInterval"), 50L));
+        storage.ensure("settings.storage.JSON.compactAfter", 10000);
+        jsonJournalCompactAfter = Math.max(0, parseInt(storage.getString("settings.storage.JSON.compactAfter"), 10000));
+        storage.ensure("settings.storage.JSON.commitWindow", 5);
+        jsonCommitWindow = Math.max(0L, parseLong(storage.getString("settings.storage.JSON.commitWindow"), 5L));
+        storage.ensure("settings.storage.JSON.binarySnapshots", true);
+        jsonBinarySnapshots = Boolean.parseBoolean(storage.getString("settings.storage.JSON.binarySnapshots"));
+        storage.ensure("settings.storage.JSON.layout", "file");
+        jsonLayout = storage.getString("settings.storage.JSON.layout");
+        storage.ensure("settings.storage.JSON.shards", 16);
+        jsonShards = Math.max(1, parseInt(storage.getString("settings.storage.JSON.shards"), 16));
+        storage.ensure("settings.storage.LOCAL.snapshots", false);
+        localSnapshots = Boolean.parseBoolean(storage.getString("settings.storage.LOCAL.snapshots"));
+        storage.ensure("settings.storage.LOCAL.snapshotInterval", 60);
+        localSnapshotInterval = Math.max(0L, parseLong(storage.getString("settings.storage.LOCAL.snapshotInterval"), 60L));
+        storage.ensure("settings.storage.cache.enabled", false);
+        storageCache = Boolean.parseBoolean(storage.getString("settings.storage.cache.enabled"));
+        storage.ensure("settings.storage.cache.maxSize", 10000);
+        storageCacheMaxSize = Math.max(1L, parseLong(storage.getString("settings.storage.cache.maxSize"), 10000L));
+        storage.ensure("settings.storage.cache.ttl", 60000);
+        storageCacheTtl = Math.max(0L, parseLong(storage.getString("settings.storage.cache.ttl"), 60000L));
+        storage.ensure("settings.storage.keyFilter.enabled", true);
+        storageKeyFilter = Boolean.parseBoolean(storage.getString("settings.storage.keyFilter.enabled"));
+        storage.ensure("settings.storage.cache.negativeTtl", 5000);
+        storageCacheNegativeTtl = Math.max(0L, parseLong(storage.getString("settings.storage.cache.negativeTtl"), 5000L));
+        storage.ensure("settings.storage.cache.bloomFilter", false);
+        storageCacheBloomFilter = Boolean.parseBoolean(storage.getString("settings.storage.cache.bloomFilter"));
+        storage.ensure("settings.storage.cache.bloomExpectedKeys", 1000000);
+        storageCacheBloomExpectedKeys = Math.max(1L, parseLong(storage.getString("settings.storage.cache.bloomExpectedKeys"), 1000000L));
 
         storage.ensure("settings.name","hyrinth-backend-api");
         name = storage.getString("settings.name");
@@ -146,12 +480,38 @@ public class HyrinthBackendSettings {
         storage.ensure("settings.storage.MySQL.password","");
         storage.ensure("settings.storage.MySQL.database","hyrinth");
         storage.ensure("settings.storage.MySQL.ssl", false);
+        storage.ensure("settings.storage.MySQL.replicas", "");
         mysqlHost = getSetting("settings.storage.MySQL.host", "settings.storage.mysql.host");
         mysqlPort = Integer.parseInt(getSetting("settings.storage.MySQL.port", "settings.storage.mysql.port"));
         mysqlUser = getSetting("settings.storage.MySQL.user", "settings.storage.mysql.user");
         mysqlPassword = getSetting("settings.storage.MySQL.password", "settings.storage.mysql.password");
         mysqlDatabase = getSetting("settings.storage.MySQL.database", "settings.storage.mysql.database");
         mysqlSsl = Boolean.parseBoolean(getSetting("settings.storage.MySQL.ssl", "settings.storage.mysql.ssl"));
+        mysqlReplicas = parseList(getSetting("settings.storage.MySQL.replicas", "settings.storage.mysql.replicas"));
+
+        storage.ensure("settings.storage.SQLite.readers", 4);
+        storage.ensure("settings.storage.SQLite.synchronous", "NORMAL");
+        storage.ensure("settings.storage.SQLite.cacheSize", 16384);
+        storage.ensure("settings.storage.SQLite.mmapSize", 268435456L);
+        sqliteReaders = Math.max(0, parseInt(storage.getString("settings.storage.SQLite.readers"), 4));
+        sqliteSynchronous = storage.getString("settings.storage.SQLite.synchronous").trim().toUpperCase();
+        sqliteCacheSize = parseInt(storage.getString("settings.storage.SQLite.cacheSize"), 16384);
+        sqliteMmapSize = Math.max(0L, parseLong(storage.getString("settings.storage.SQLite.mmapSize"), 268435456L));
+
+        storage.ensure("settings.storage.pool.minIdle", 2);
+        storage.ensure("settings.storage.pool.maxSize", 10);
+        storage.ensure("settings.storage.pool.connectionTimeout", 30000);
+        storage.ensure("settings.storage.pool.idleTimeout", 600000);
+        storage.ensure("settings.storage.pool.leakDetectionThreshold", 60000);
+        storage.ensure("settings.storage.pool.validationQuery", "SELECT 1");
+        storage.ensure("settings.storage.pool.statementCacheSize", 64);
+        sqlPoolMinIdle = parseInt(storage.getString("settings.storage.pool.minIdle"), 2);
+        sqlPoolMaxSize = Math.max(1, parseInt(storage.getString("settings.storage.pool.maxSize"), 10));
+        sqlPoolConnectionTimeout = parseLong(storage.getString("settings.storage.pool.connectionTimeout"), 30000L);
+        sqlPoolIdleTimeout = parseLong(storage.getString("settings.storage.pool.idleTimeout"), 600000L);
+        sqlPoolLeakDetectionThreshold = parseLong(storage.getString("settings.storage.pool.leakDetectionThreshold"), 60000L);
+        sqlPoolValidationQuery = storage.getString("settings.storage.pool.validationQuery");
+        sqlPoolStatementCacheSize = Math.max(0, parseInt(storage.getString("settings.storage.pool.statementCacheSize"), 64));
     }
 
     public enum STORAGE_TYPE {
@@ -173,6 +533,45 @@ public class HyrinthBackendSettings {
         return normalized;
     }
 
+    private int parseInt(String value, int fallback) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (Exception e) {
+            return fallback;
+        }
+    }
+
+    private long parseLong(String value, long fallback) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (Exception e) {
+            return fallback;
+        }
+    }
+
+    private List<String> parseList(String value) {
+        List<String> values = new ArrayList<>();
+        String trimmed = value.trim();
+        if (trimmed.startsWith("[")) {
+            try {
+                for (Object entry : JSONArray.parseArray(trimmed)) {
+                    if (entry != null && !entry.toString().isBlank()) {
+                        values.add(entry.toString().trim());
+                    }
+                }
+            } catch (Exception e) {
+                Main.getLogger().err("Invalid list setting: " + value);
+            }
+            return values;
+        }
+        for (String entry : trimmed.split(",")) {
+            if (!entry.isBlank()) {
+                values.add(entry.trim());
+            }
+        }
+        return values;
+    }
+
     private String getSetting(String primaryKey, String fallbackKey) {
         String value = storage.getString(primaryKey);
         if (value == null || value.isBlank()) {
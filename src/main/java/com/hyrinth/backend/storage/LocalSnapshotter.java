@@ -0,0 +1,78 @@
+package com.hyrinth.backend.storage;
+
+import com.hyrinth.backend.Main;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class LocalSnapshotter implements AutoCloseable {
+
+    private final Path directory;
+    private final Map<Path, SnapshotStorage> storages = new LinkedHashMap<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hyrinth-local-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Thread shutdownHook = new Thread(this::snapshot, "hyrinth-local-snapshot-shutdown");
+
+    public LocalSnapshotter(Path directory, long interval, Map<String, SnapshotStorage> storages) {
+        this.directory = directory;
+        storages.forEach((name, storage) -> this.storages.put(directory.resolve(name + ".bin"), storage));
+        restore();
+        if (interval > 0) {
+            executor.scheduleWithFixedDelay(this::snapshot, interval, interval, TimeUnit.SECONDS);
+        }
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    public synchronized boolean snapshot() {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            Main.getLogger().err("[LocalSnapshotter] Failed to create " + directory + ": " + e.getMessage());
+            return false;
+        }
+        boolean saved = true;
+        for (Map.Entry<Path, SnapshotStorage> entry : storages.entrySet()) {
+            saved &= entry.getValue().saveSnapshot(entry.getKey());
+        }
+        return saved;
+    }
+
+    private void restore() {
+        long started = System.currentTimeMillis();
+        List<CompletableFuture<Boolean>> loads = new ArrayList<>();
+        storages.forEach((file, storage) -> loads.add(CompletableFuture.supplyAsync(() -> Files.exists(file) && storage.loadSnapshot(file))));
+        long restored = loads.stream().filter(CompletableFuture::join).count();
+        if (restored > 0) {
+            Main.getLogger().log("[LocalSnapshotter] Restored " + restored + " snapshot(s) from " + directory + " in " + (System.currentTimeMillis() - started) + "ms");
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException ignored) {
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                Main.getLogger().err("[LocalSnapshotter] Timed out waiting for a running snapshot.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        snapshot();
+    }
+}
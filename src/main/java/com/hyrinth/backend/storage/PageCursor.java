@@ -0,0 +1,48 @@
+package com.hyrinth.backend.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Optional;
+
+public record PageCursor(long createdAt, String key) implements Comparable<PageCursor> {
+
+    private static final Comparator<PageCursor> ORDER = Comparator.comparingLong(PageCursor::createdAt)
+            .thenComparing(PageCursor::key);
+
+    public PageCursor {
+        if (key == null) {
+            key = "";
+        }
+    }
+
+    public static PageCursor of(long createdAt, String key) {
+        return new PageCursor(createdAt, key);
+    }
+
+    public static Optional<PageCursor> decode(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(raw.trim()), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            if (separator <= 0) {
+                return Optional.empty();
+            }
+            return Optional.of(new PageCursor(Long.parseLong(decoded.substring(0, separator)), decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt + ":" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public int compareTo(PageCursor other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -0,0 +1,10 @@
+package com.hyrinth.backend.storage;
+
+import java.nio.file.Path;
+
+public interface SnapshotStorage {
+
+    boolean saveSnapshot(Path file);
+
+    boolean loadSnapshot(Path file);
+}
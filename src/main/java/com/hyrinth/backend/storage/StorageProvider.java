@@ -2,27 +2,45 @@ package com.hyrinth.backend.storage;
 
 import com.hyrinth.backend.HyrinthBackend;
 import com.hyrinth.backend.HyrinthBackendSettings;
+import com.hyrinth.backend.Main;
 import com.hyrinth.backend.storage.account.AccountStorage;
+import com.hyrinth.backend.storage.account.CachingAccountStorage;
 import com.hyrinth.backend.storage.account.JsonFileAccountStorage;
 import com.hyrinth.backend.storage.account.LocalAccountStorage;
+import com.hyrinth.backend.storage.account.ShardedJsonAccountStorage;
 import com.hyrinth.backend.storage.account.SqlAccountStorage;
+import com.hyrinth.backend.storage.cache.EntityCache;
+import com.hyrinth.backend.storage.cache.KeyFilter;
+import com.hyrinth.backend.storage.json.JsonFileOptions;
+import com.hyrinth.backend.storage.project.CachingProjectStorage;
 import com.hyrinth.backend.storage.project.JsonFileProjectStorage;
 import com.hyrinth.backend.storage.project.LocalProjectStorage;
 import com.hyrinth.backend.storage.project.ProjectStorage;
+import com.hyrinth.backend.storage.project.ShardedJsonProjectStorage;
 import com.hyrinth.backend.storage.project.SqlProjectStorage;
 import com.hyrinth.backend.storage.session.AccountSessionStorage;
+import com.hyrinth.backend.storage.session.CachingAccountSessionStorage;
 import com.hyrinth.backend.storage.session.JsonFileAccountSessionStorage;
 import com.hyrinth.backend.storage.session.LocalAccountSessionStorage;
+import com.hyrinth.backend.storage.session.ShardedJsonAccountSessionStorage;
 import com.hyrinth.backend.storage.session.SqlAccountSessionStorage;
 import com.hyrinth.backend.storage.sql.H2Database;
+import com.hyrinth.backend.storage.sql.SqlConnectionPool;
+import com.hyrinth.backend.storage.sql.SqlConnectionRouter;
+import com.hyrinth.backend.storage.sql.SqliteDatabase;
+import com.hyrinth.backend.storage.team.CachingTeamStorage;
 import com.hyrinth.backend.storage.team.JsonFileTeamStorage;
 import com.hyrinth.backend.storage.team.LocalTeamStorage;
+import com.hyrinth.backend.storage.team.ShardedJsonTeamStorage;
 import com.hyrinth.backend.storage.team.SqlTeamStorage;
 import com.hyrinth.backend.storage.team.TeamStorage;
-import org.zyneonstudios.apex.utilities.sql.MySQL;
-import org.zyneonstudios.apex.utilities.sql.SQLite;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 public class StorageProvider {
 
@@ -32,6 +50,8 @@ public class StorageProvider {
     private ProjectStorage projectStorage;
     private TeamStorage teamStorage;
     private HyrinthBackendSettings.STORAGE_TYPE activeType;
+    private SqlConnectionRouter connectionRouter;
+    private LocalSnapshotter localSnapshotter;
 
     public StorageProvider(HyrinthBackend backend) {
         this.backend = backend;
@@ -58,6 +78,54 @@ public class StorageProvider {
         return teamStorage;
     }
 
+    public synchronized SqlConnectionPool getConnectionPool() {
+        ensureInitialized();
+        return connectionRouter == null ? null : connectionRouter.getPrimary();
+    }
+
+    public synchronized SqlConnectionRouter getConnectionRouter() {
+        ensureInitialized();
+        return connectionRouter;
+    }
+
+    public synchronized Map<String, EntityCache.Stats> getCacheStats() {
+        ensureInitialized();
+        Map<String, EntityCache.Stats> stats = new LinkedHashMap<>();
+        if (accountStorage instanceof CachingAccountStorage cached) {
+            stats.put("accounts", cached.getStats());
+        }
+        if (projectStorage instanceof CachingProjectStorage cached) {
+            stats.put("projects", cached.getStats());
+        }
+        if (teamStorage instanceof CachingTeamStorage cached) {
+            stats.put("teams", cached.getStats());
+        }
+        stats.values().removeIf(Objects::isNull);
+        return stats;
+    }
+
+    public boolean runInTransaction(UnitOfWork work) {
+        UnitOfWork chain = work;
+        List<Object> participants;
+        synchronized (this) {
+            ensureInitialized();
+            participants = List.of(sessionStorage, teamStorage, projectStorage, accountStorage);
+        }
+        for (Object participant : participants) {
+            if (participant instanceof TransactionalStorage storage) {
+                UnitOfWork inner = chain;
+                chain = () -> storage.runInTransaction(inner);
+            }
+        }
+        try {
+            chain.run();
+            return true;
+        } catch (Exception e) {
+            Main.getLogger().err("Storage transaction rolled back: " + e.getMessage());
+            return false;
+        }
+    }
+
     private void ensureInitialized() {
         HyrinthBackendSettings.STORAGE_TYPE current = backend.getSettings().getStorageType();
         if (accountStorage == null || sessionStorage == null || projectStorage == null || teamStorage == null || current != activeType) {
@@ -67,69 +135,130 @@ public class StorageProvider {
 
     private void initialize() {
         HyrinthBackendSettings settings = backend.getSettings();
+        closeStorages();
         activeType = settings.getStorageType();
         switch (activeType) {
             case LOCAL -> {
-                accountStorage = new LocalAccountStorage();
-                sessionStorage = new LocalAccountSessionStorage();
-                projectStorage = new LocalProjectStorage();
-                teamStorage = new LocalTeamStorage();
+                LocalAccountStorage accounts = new LocalAccountStorage();
+                LocalAccountSessionStorage sessions = new LocalAccountSessionStorage();
+                LocalProjectStorage projects = new LocalProjectStorage();
+                LocalTeamStorage teams = new LocalTeamStorage();
+                if (settings.isLocalSnapshots()) {
+                    Map<String, SnapshotStorage> snapshots = new LinkedHashMap<>();
+                    snapshots.put("accounts", accounts);
+                    snapshots.put("sessions", sessions);
+                    snapshots.put("projects", projects);
+                    snapshots.put("teams", teams);
+                    localSnapshotter = new LocalSnapshotter(resolveDataPath(settings.getDataPath()).resolve("local"), settings.getLocalSnapshotInterval(), snapshots);
+                }
+                accountStorage = accounts;
+                sessionStorage = sessions;
+                projectStorage = projects;
+                teamStorage = teams;
             }
             case JSON -> {
                 Path base = resolveDataPath(settings.getDataPath());
-                accountStorage = new JsonFileAccountStorage(base.resolve("accounts.json"));
-                sessionStorage = new JsonFileAccountSessionStorage(base.resolve("sessions.json"));
-                projectStorage = new JsonFileProjectStorage(base.resolve("projects.json"));
-                teamStorage = new JsonFileTeamStorage(base.resolve("teams.json"));
+                if (settings.isJsonSharded()) {
+                    int shards = settings.getJsonShards();
+                    accountStorage = new ShardedJsonAccountStorage(base.resolve("accounts"), shards);
+                    sessionStorage = new ShardedJsonAccountSessionStorage(base.resolve("sessions"), shards);
+                    projectStorage = new ShardedJsonProjectStorage(base.resolve("projects"), shards);
+                    teamStorage = new ShardedJsonTeamStorage(base.resolve("teams"), shards);
+                } else {
+                    JsonFileOptions options = JsonFileOptions.of(settings);
+                    accountStorage = new JsonFileAccountStorage(base.resolve("accounts.json"), options);
+                    sessionStorage = new JsonFileAccountSessionStorage(base.resolve("sessions.json"), options);
+                    projectStorage = new JsonFileProjectStorage(base.resolve("projects.json"), options);
+                    teamStorage = new JsonFileTeamStorage(base.resolve("teams.json"), options);
+                }
             }
             case SQLITE3 -> {
                 Path base = resolveDataPath(settings.getDataPath());
-                String sqlitePath = base.resolve("storage.db").toString();
-                SQLite sqlite = new SQLite(sqlitePath);
-                accountStorage = new SqlAccountStorage(sqlite);
-                sessionStorage = new SqlAccountSessionStorage(sqlite);
-                projectStorage = new SqlProjectStorage(sqlite);
-                teamStorage = new SqlTeamStorage(sqlite);
+                SqliteDatabase sqlite = new SqliteDatabase(base.resolve("storage.db").toString());
+                initializeSql(sqlite.openRouter(settings));
             }
             case H2 -> {
                 Path base = resolveDataPath(settings.getDataPath());
-                if (settings.isH2Memory()) {
-                    String h2Path = "mem:hyrinth";
-                    H2Database h2 = new H2Database(h2Path);
-                    accountStorage = new SqlAccountStorage(h2);
-                    sessionStorage = new SqlAccountSessionStorage(h2);
-                    projectStorage = new SqlProjectStorage(h2);
-                    teamStorage = new SqlTeamStorage(h2);
-                    return;
-                } else {
-                    String h2Path = base.resolve("h2").toString();
+                String h2Path = "mem:hyrinth";
+                if (!settings.isH2Memory()) {
+                    h2Path = base.resolve("h2").toString();
                     Path h2PathResolved = Path.of(h2Path);
                     if (!h2PathResolved.isAbsolute()) {
                         h2Path = Path.of(backend.getRunPath(), h2Path).toString();
                     }
-                    H2Database h2 = new H2Database(h2Path);
-                    accountStorage = new SqlAccountStorage(h2);
-                    sessionStorage = new SqlAccountSessionStorage(h2);
-                    projectStorage = new SqlProjectStorage(h2);
-                    teamStorage = new SqlTeamStorage(h2);
-                    return;
                 }
+                H2Database h2 = new H2Database(h2Path, settings.isH2AutoServer(), settings.getH2CacheSize());
+                initializeSql(new SqlConnectionPool("H2", h2.getUrl(), null, null, SqlConnectionPool.Options.of(settings)));
             }
             case MYSQL -> {
-                MySQL mysql = new MySQL(
-                        settings.getMysqlHost(),
+                SqlConnectionPool primary = new SqlConnectionPool(
+                        "MySQL",
+                        mysqlUrl(settings, settings.getMysqlHost() + ":" + settings.getMysqlPort()),
                         settings.getMysqlUser(),
                         settings.getMysqlPassword(),
-                        settings.getMysqlDatabase(),
-                        settings.getMysqlPort(),
-                        settings.isMysqlSsl()
+                        SqlConnectionPool.Options.of(settings)
                 );
-                accountStorage = new SqlAccountStorage(mysql);
-                sessionStorage = new SqlAccountSessionStorage(mysql);
-                projectStorage = new SqlProjectStorage(mysql);
-                teamStorage = new SqlTeamStorage(mysql);
+                List<SqlConnectionPool> replicas = new ArrayList<>();
+                for (String replica : settings.getMysqlReplicas()) {
+                    replicas.add(new SqlConnectionPool(
+                            "MySQL-replica-" + (replicas.size() + 1),
+                            replica.startsWith("jdbc:") ? replica : mysqlUrl(settings, replica),
+                            settings.getMysqlUser(),
+                            settings.getMysqlPassword(),
+                            SqlConnectionPool.Options.of(settings)
+                    ));
+                }
+                initializeSql(new SqlConnectionRouter(primary, replicas));
+            }
+        }
+        boolean entityCache = settings.isStorageCache() && activeType != HyrinthBackendSettings.STORAGE_TYPE.LOCAL;
+        if (entityCache || settings.isStorageKeyFilter()) {
+            EntityCache.Options options = entityCache ? EntityCache.Options.of(settings) : null;
+            KeyFilter.Options keyOptions = KeyFilter.Options.of(settings);
+            accountStorage = new CachingAccountStorage(accountStorage, options, keyOptions, connectionRouter);
+            sessionStorage = new CachingAccountSessionStorage(sessionStorage, keyOptions);
+            projectStorage = new CachingProjectStorage(projectStorage, options, keyOptions, connectionRouter);
+            teamStorage = new CachingTeamStorage(teamStorage, options, keyOptions, connectionRouter);
+        }
+    }
+
+    private void initializeSql(SqlConnectionPool pool) {
+        initializeSql(new SqlConnectionRouter(pool));
+    }
+
+    private void initializeSql(SqlConnectionRouter router) {
+        connectionRouter = router;
+        accountStorage = new SqlAccountStorage(router);
+        sessionStorage = new SqlAccountSessionStorage(router);
+        projectStorage = new SqlProjectStorage(router);
+        teamStorage = new SqlTeamStorage(router);
+    }
+
+    private void closeStorages() {
+        if (localSnapshotter != null) {
+            localSnapshotter.close();
+            localSnapshotter = null;
+        }
+        for (Object storage : new Object[]{accountStorage, sessionStorage, projectStorage, teamStorage}) {
+            if (storage instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    Main.getLogger().err("Failed to close storage: " + e.getMessage());
+                }
             }
         }
+        if (connectionRouter != null) {
+            connectionRouter.close();
+            connectionRouter = null;
+        }
+    }
+
+    private String mysqlUrl(HyrinthBackendSettings settings, String hostAndPort) {
+        String address = hostAndPort.contains(":") ? hostAndPort : hostAndPort + ":" + settings.getMysqlPort();
+        return "jdbc:mysql://" + address + "/" + settings.getMysqlDatabase()
+                + "?useSSL=" + settings.isMysqlSsl() + (settings.isMysqlSsl() ? "" : "&allowPublicKeyRetrieval=true")
+                + "&useServerPrepStmts=true&rewriteBatchedStatements=true";
     }
 
     private Path resolveDataPath(String dataPath) {
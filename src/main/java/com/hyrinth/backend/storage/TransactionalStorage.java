@@ -0,0 +1,6 @@
+package com.hyrinth.backend.storage;
+
+public interface TransactionalStorage {
+
+    void runInTransaction(UnitOfWork work) throws Exception;
+}
@@ -0,0 +1,6 @@
+package com.hyrinth.backend.storage;
+
+public interface UnitOfWork {
+
+    void run() throws Exception;
+}
@@ -1,5 +1,7 @@
 package com.hyrinth.backend.storage.account;
 
+import com.hyrinth.backend.storage.PageCursor;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -12,8 +14,12 @@ public interface AccountStorage {
 
     Optional<AccountRecord> findByUsername(String username);
 
+    List<AccountRecord> findByIds(List<String> ids);
+
     List<AccountRecord> findPage(int limit, int offset);
 
+    List<AccountRecord> findPageAfter(PageCursor cursor, int limit);
+
     boolean hasAdminAccount();
 
     default List<AccountRecord> findAll(int pageSize) {
@@ -21,21 +27,26 @@ public interface AccountStorage {
             throw new IllegalArgumentException("pageSize must be > 0");
         }
         List<AccountRecord> all = new ArrayList<>();
-        int offset = 0;
+        PageCursor cursor = null;
         while (true) {
-            List<AccountRecord> page = findPage(pageSize, offset);
+            List<AccountRecord> page = findPageAfter(cursor, pageSize);
             if (page.isEmpty()) {
                 break;
             }
             all.addAll(page);
-            offset += page.size();
             if (page.size() < pageSize) {
                 break;
             }
+            AccountRecord last = page.get(page.size() - 1);
+            cursor = PageCursor.of(last.createdAt(), last.id());
         }
         return all;
     }
 
+    List<String> findAllIds();
+
+    long count();
+
     boolean create(AccountRecord record);
 
     boolean update(AccountRecord record);
@@ -43,4 +54,10 @@ public interface AccountStorage {
     boolean updatePasswordHash(String id, String passwordHash, long updatedAt);
 
     boolean delete(String id);
+
+    boolean createAll(List<AccountRecord> records);
+
+    boolean updateAll(List<AccountRecord> records);
+
+    boolean deleteAll(List<String> ids);
 }
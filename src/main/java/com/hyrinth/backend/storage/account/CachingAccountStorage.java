@@ -0,0 +1,230 @@
+package com.hyrinth.backend.storage.account;
+
+import com.hyrinth.backend.storage.PageCursor;
+import com.hyrinth.backend.storage.TransactionalStorage;
+import com.hyrinth.backend.storage.UnitOfWork;
+import com.hyrinth.backend.storage.cache.EntityCache;
+import com.hyrinth.backend.storage.cache.KeyFilter;
+import com.hyrinth.backend.storage.cache.SingleFlight;
+import com.hyrinth.backend.storage.sql.SqlConnectionRouter;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+public class CachingAccountStorage implements AccountStorage, TransactionalStorage, AutoCloseable {
+
+    private final AccountStorage delegate;
+    private final EntityCache<AccountRecord> cache;
+    private final KeyFilter keys;
+    private final SingleFlight<Optional<AccountRecord>> lookups = new SingleFlight<>();
+    private final SingleFlight<List<AccountRecord>> pages = new SingleFlight<>();
+    private final ThreadLocal<Set<String>> uncommitted = ThreadLocal.withInitial(LinkedHashSet::new);
+    private final SqlConnectionRouter router;
+
+    public CachingAccountStorage(AccountStorage delegate, EntityCache.Options options, KeyFilter.Options keyOptions, SqlConnectionRouter router) {
+        this.delegate = delegate;
+        this.router = router;
+        this.cache = options == null ? null : new EntityCache<>(options);
+        this.keys = new KeyFilter("accounts", keyOptions);
+        keys.rebuild(delegate::findAllIds);
+        if (router != null) {
+            router.addTransactionListener(this::committed);
+        }
+    }
+
+    public EntityCache.Stats getStats() {
+        return cache == null ? null : cache.stats();
+    }
+
+    @Override
+    public Optional<AccountRecord> findById(String id) {
+        if (!keys.mightContain(id)) {
+            return Optional.empty();
+        }
+        if (inTransaction()) {
+            return delegate.findById(id);
+        }
+        long stamp = keys.stamp();
+        Optional<AccountRecord> found = cache == null
+                ? lookups.load(id, () -> delegate.findById(id))
+                : cache.get(id, key -> lookups.load(key, () -> delegate.findById(key)));
+        if (found.isEmpty()) {
+            keys.recordMiss(id, stamp);
+        }
+        return found;
+    }
+
+    @Override
+    public Optional<AccountRecord> findByEmail(String email) {
+        return delegate.findByEmail(email);
+    }
+
+    @Override
+    public Optional<AccountRecord> findByUsername(String username) {
+        return delegate.findByUsername(username);
+    }
+
+    @Override
+    public List<AccountRecord> findByIds(List<String> ids) {
+        if (inTransaction()) {
+            return delegate.findByIds(ids);
+        }
+        List<String> candidates = ids.stream().filter(keys::mightContain).toList();
+        return cache == null ? delegate.findByIds(candidates) : cache.getAll(candidates, AccountRecord::id, delegate::findByIds);
+    }
+
+    @Override
+    public List<AccountRecord> findPage(int limit, int offset) {
+        if (inTransaction()) {
+            return delegate.findPage(limit, offset);
+        }
+        return pages.load("page:" + limit + ":" + offset, () -> delegate.findPage(limit, offset));
+    }
+
+    @Override
+    public List<AccountRecord> findPageAfter(PageCursor cursor, int limit) {
+        if (inTransaction()) {
+            return delegate.findPageAfter(cursor, limit);
+        }
+        return pages.load("after:" + cursor + ":" + limit, () -> delegate.findPageAfter(cursor, limit));
+    }
+
+    @Override
+    public boolean hasAdminAccount() {
+        return delegate.hasAdminAccount();
+    }
+
+    @Override
+    public List<String> findAllIds() {
+        return delegate.findAllIds();
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public boolean create(AccountRecord record) {
+        try {
+            return delegate.create(record);
+        } finally {
+            invalidate(record == null ? null : record.id());
+            keys.add(record == null ? null : record.id());
+        }
+    }
+
+    @Override
+    public boolean update(AccountRecord record) {
+        try {
+            return delegate.update(record);
+        } finally {
+            invalidate(record == null ? null : record.id());
+        }
+    }
+
+    @Override
+    public boolean updatePasswordHash(String id, String passwordHash, long updatedAt) {
+        try {
+            return delegate.updatePasswordHash(id, passwordHash, updatedAt);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public boolean delete(String id) {
+        try {
+            return delegate.delete(id);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public boolean createAll(List<AccountRecord> records) {
+        try {
+            return delegate.createAll(records);
+        } finally {
+            records.forEach(record -> {
+                invalidate(record == null ? null : record.id());
+                keys.add(record == null ? null : record.id());
+            });
+        }
+    }
+
+    @Override
+    public boolean updateAll(List<AccountRecord> records) {
+        try {
+            return delegate.updateAll(records);
+        } finally {
+            records.forEach(record -> invalidate(record == null ? null : record.id()));
+        }
+    }
+
+    @Override
+    public boolean deleteAll(List<String> ids) {
+        try {
+            return delegate.deleteAll(ids);
+        } finally {
+            ids.forEach(this::invalidate);
+        }
+    }
+
+    @Override
+    public void runInTransaction(UnitOfWork work) throws Exception {
+        try {
+            if (delegate instanceof TransactionalStorage storage) {
+                storage.runInTransaction(work);
+            } else {
+                work.run();
+            }
+        } catch (Exception e) {
+            lookups.forgetAll();
+            pages.forgetAll();
+            if (cache != null) {
+                cache.invalidateAll();
+            }
+            throw e;
+        } finally {
+            keys.clearMisses();
+        }
+    }
+
+    private void invalidate(String id) {
+        lookups.forget(id);
+        pages.forgetAll();
+        if (cache != null) {
+            cache.invalidate(id);
+        }
+        if (inTransaction() && id != null) {
+            uncommitted.get().add(id);
+        }
+    }
+
+    private void committed() {
+        Set<String> touched = uncommitted.get();
+        if (touched.isEmpty()) {
+            return;
+        }
+        uncommitted.remove();
+        touched.forEach(this::invalidate);
+        keys.clearMisses();
+    }
+
+    private boolean inTransaction() {
+        return router != null && router.inTransaction();
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
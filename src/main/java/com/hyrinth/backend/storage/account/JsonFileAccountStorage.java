@@ -2,58 +2,83 @@ package com.hyrinth.backend.storage.account;
 
 import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
+import com.hyrinth.backend.Main;
+import com.hyrinth.backend.storage.PageCursor;
+import com.hyrinth.backend.storage.TransactionalStorage;
+import com.hyrinth.backend.storage.UnitOfWork;
+import com.hyrinth.backend.storage.json.JsonBinarySnapshot;
+import com.hyrinth.backend.storage.json.JsonFileOptions;
+import com.hyrinth.backend.storage.json.JsonFileWriter;
+import com.hyrinth.backend.storage.json.JsonJournal;
+import com.hyrinth.backend.storage.json.JsonSnapshotReader;
+import com.hyrinth.backend.storage.session.AccountSessionStorage;
 
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 
-public class JsonFileAccountStorage implements AccountStorage {
+public class JsonFileAccountStorage implements AccountStorage, TransactionalStorage, AutoCloseable {
 
     private static final String USERS_KEY = "users";
 
     private final Path filePath;
     private final Object lock = new Object();
+    private final Object snapshotLock = new Object();
+    private final Map<String, AccountRecord> accounts = new LinkedHashMap<>();
+    private final Map<String, String> idsByEmail = new HashMap<>();
+    private final Map<String, String> idsByUsername = new HashMap<>();
+    private final NavigableMap<PageCursor, AccountRecord> pageIndex = new TreeMap<>();
+    private final Map<String, JSONObject> pending = new LinkedHashMap<>();
+    private final JsonJournal journal;
+    private final JsonFileWriter writer;
+    private final boolean binarySnapshots;
     private JSONObject data;
+    private boolean deferSaves;
+    private boolean dirty;
 
     public JsonFileAccountStorage(Path filePath) {
+        this(filePath, JsonFileOptions.DEFAULT);
+    }
+
+    public JsonFileAccountStorage(Path filePath, JsonFileOptions options) {
         this.filePath = filePath;
+        this.binarySnapshots = options.binarySnapshots();
+        this.writer = new JsonFileWriter(filePath, options.journal().enabled() ? 0L : options.commitWindow(), this::serialize);
+        try {
+            this.journal = options.journal().enabled() ? new JsonJournal(filePath, options.journal(), this::compact) : null;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to open account storage journal: " + filePath, e);
+        }
         loadOrCreate();
     }
 
     @Override
     public Optional<AccountRecord> findById(String id) {
         synchronized (lock) {
-            return usersArray().stream()
-                    .filter(JSONObject.class::isInstance)
-                    .map(JSONObject.class::cast)
-                    .map(this::toRecord)
-                    .filter(record -> Objects.equals(record.id(), id))
-                    .findFirst();
+            return Optional.ofNullable(accounts.get(id));
         }
     }
 
     @Override
     public Optional<AccountRecord> findByEmail(String email) {
         synchronized (lock) {
-            return usersArray().stream()
-                    .filter(JSONObject.class::isInstance)
-                    .map(JSONObject.class::cast)
-                    .map(this::toRecord)
-                    .filter(record -> Objects.equals(record.email(), email))
-                    .findFirst();
+            return lookup(idsByEmail, email);
         }
     }
 
     @Override
     public Optional<AccountRecord> findByUsername(String username) {
         synchronized (lock) {
-            return usersArray().stream()
-                    .filter(JSONObject.class::isInstance)
-                    .map(JSONObject.class::cast)
-                    .map(this::toRecord)
-                    .filter(record -> Objects.equals(record.username(), username))
-                    .findFirst();
+            return lookup(idsByUsername, username);
+        }
+    }
+
+    @Override
+    public List<AccountRecord> findByIds(List<String> ids) {
+        synchronized (lock) {
+            Set<String> targets = new LinkedHashSet<>(ids);
+            targets.remove(null);
+            return targets.stream().map(accounts::get).filter(Objects::nonNull).toList();
         }
     }
 
@@ -63,33 +88,43 @@ public class JsonFileAccountStorage implements AccountStorage {
             if (limit <= 0 || offset < 0) {
                 return List.of();
             }
-            List<AccountRecord> records = new ArrayList<>();
-            for (Object entry : usersArray()) {
-                if (entry instanceof JSONObject user) {
-                    records.add(toRecord(user));
-                }
-            }
-            records.sort(Comparator.comparingLong(AccountRecord::createdAt)
-                    .thenComparing(AccountRecord::id));
-            if (offset >= records.size()) {
+            return pageIndex.values().stream()
+                    .skip(offset)
+                    .limit(limit)
+                    .toList();
+        }
+    }
+
+    @Override
+    public List<AccountRecord> findPageAfter(PageCursor cursor, int limit) {
+        synchronized (lock) {
+            if (limit <= 0) {
                 return List.of();
             }
-            int toIndex = Math.min(records.size(), offset + limit);
-            return records.subList(offset, toIndex);
+            return (cursor == null ? pageIndex : pageIndex.tailMap(cursor, false)).values().stream()
+                    .limit(limit)
+                    .toList();
         }
     }
 
     @Override
     public boolean hasAdminAccount() {
         synchronized (lock) {
-            for (Object entry : usersArray()) {
-                if (entry instanceof JSONObject user) {
-                    if (user.getBooleanValue("isAdmin")) {
-                        return true;
-                    }
-                }
-            }
-            return false;
+            return accounts.values().stream().anyMatch(AccountRecord::isAdmin);
+        }
+    }
+
+    @Override
+    public List<String> findAllIds() {
+        synchronized (lock) {
+            return List.copyOf(accounts.keySet());
+        }
+    }
+
+    @Override
+    public long count() {
+        synchronized (lock) {
+            return accounts.size();
         }
     }
 
@@ -99,7 +134,7 @@ public class JsonFileAccountStorage implements AccountStorage {
             if (existsByIdOrIdentity(record)) {
                 return false;
             }
-            usersArray().add(fromRecord(record));
+            write(record);
             return save();
         }
     }
@@ -107,154 +142,388 @@ public class JsonFileAccountStorage implements AccountStorage {
     @Override
     public boolean update(AccountRecord record) {
         synchronized (lock) {
-            if (record == null || record.id() == null || record.id().isBlank()) {
+            if (record == null || record.id() == null || record.id().isBlank() || !accounts.containsKey(record.id())) {
                 return false;
             }
-            JSONArray users = usersArray();
-            for (int i = 0; i < users.size(); i++) {
-                Object entry = users.get(i);
-                if (entry instanceof JSONObject user) {
-                    if (Objects.equals(user.getString("id"), record.id())) {
-                        users.set(i, fromRecord(record));
-                        return save();
-                    }
-                }
-            }
-            return false;
+            write(record);
+            return save();
         }
     }
 
     @Override
     public boolean updatePasswordHash(String id, String passwordHash, long updatedAt) {
         synchronized (lock) {
-            JSONArray users = usersArray();
-            for (int i = 0; i < users.size(); i++) {
-                Object entry = users.get(i);
-                if (entry instanceof JSONObject user) {
-                    if (Objects.equals(user.getString("id"), id)) {
-                        user.put("passwordHash", passwordHash);
-                        user.put("updatedAt", updatedAt);
-                        return save();
-                    }
-                }
+            AccountRecord account = accounts.get(id);
+            if (account == null) {
+                return false;
             }
-            return false;
+            write(new AccountRecord(
+                    account.id(),
+                    account.email(),
+                    account.username(),
+                    account.profilePicture(),
+                    account.isHidden(),
+                    passwordHash,
+                    account.isAdmin(),
+                    account.permissions(),
+                    account.projects(),
+                    account.teams(),
+                    account.createdAt(),
+                    updatedAt
+            ));
+            return save();
         }
     }
 
     @Override
     public boolean delete(String id) {
         synchronized (lock) {
-            JSONArray users = usersArray();
-            for (int i = 0; i < users.size(); i++) {
-                Object entry = users.get(i);
-                if (entry instanceof JSONObject user) {
-                    if (Objects.equals(user.getString("id"), id)) {
-                        users.remove(i);
-                        boolean saved = save();
-                        if (saved) {
-                            com.hyrinth.backend.Main.getHyrinthBackend()
-                                    .getStorageProvider()
-                                    .getSessionStorage()
-                                    .deleteByAccountId(id);
-                        }
-                        return saved;
-                    }
+            if (erase(id) == null) {
+                return false;
+            }
+            boolean saved = save();
+            if (saved) {
+                Main.getHyrinthBackend()
+                        .getStorageProvider()
+                        .getSessionStorage()
+                        .deleteByAccountId(id);
+            }
+            return saved;
+        }
+    }
+
+    @Override
+    public boolean createAll(List<AccountRecord> records) {
+        synchronized (lock) {
+            Set<String> identities = new HashSet<>();
+            for (AccountRecord record : records) {
+                if (existsByIdOrIdentity(record)
+                        || !identities.add("id:" + record.id())
+                        || !identities.add("email:" + normalize(record.email()))
+                        || !identities.add("username:" + normalize(record.username()))) {
+                    return false;
                 }
             }
-            return false;
+            records.forEach(this::write);
+            return save();
         }
     }
 
-    private void loadOrCreate() {
+    @Override
+    public boolean updateAll(List<AccountRecord> records) {
         synchronized (lock) {
-            try {
-                if (Files.notExists(filePath)) {
-                    Files.createDirectories(filePath.getParent());
-                    data = new JSONObject();
-                    data.put(USERS_KEY, new JSONArray());
-                    save();
-                    return;
+            for (AccountRecord record : records) {
+                if (record == null || !accounts.containsKey(record.id())) {
+                    return false;
                 }
-                String raw = Files.readString(filePath, StandardCharsets.UTF_8);
-                data = JSONObject.parseObject(raw);
-                if (data == null) {
-                    data = new JSONObject();
+            }
+            records.forEach(this::write);
+            return save();
+        }
+    }
+
+    @Override
+    public boolean deleteAll(List<String> ids) {
+        synchronized (lock) {
+            Set<String> targets = new HashSet<>(ids);
+            if (!accounts.keySet().containsAll(targets)) {
+                return false;
+            }
+            targets.forEach(this::erase);
+            boolean saved = save();
+            if (saved) {
+                AccountSessionStorage sessionStorage = Main.getHyrinthBackend()
+                        .getStorageProvider()
+                        .getSessionStorage();
+                targets.forEach(sessionStorage::deleteByAccountId);
+            }
+            return saved;
+        }
+    }
+
+    @Override
+    public void runInTransaction(UnitOfWork work) throws Exception {
+        synchronized (lock) {
+            if (deferSaves) {
+                work.run();
+                return;
+            }
+            deferSaves = true;
+            dirty = false;
+            try {
+                work.run();
+            } catch (Exception e) {
+                deferSaves = false;
+                if (dirty) {
+                    discardChanges();
                 }
-                if (!data.containsKey(USERS_KEY)) {
-                    data.put(USERS_KEY, new JSONArray());
+                throw e;
+            } finally {
+                deferSaves = false;
+            }
+            if (dirty && !save()) {
+                discardChanges();
+                throw new IllegalStateException("Failed to write storage file: " + filePath);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (journal != null) {
+            synchronized (lock) {
+                if (!pending.isEmpty()) {
                     save();
                 }
-                boolean updated = false;
-                JSONArray users = data.getJSONArray(USERS_KEY);
-                if (users != null) {
-                    for (Object entry : users) {
-                        if (entry instanceof JSONObject user) {
-                            if (!user.containsKey("permissions")) {
-                                user.put("permissions", new JSONArray());
-                                updated = true;
-                            }
-                            if (!user.containsKey("projects")) {
-                                user.put("projects", new JSONArray());
-                                updated = true;
-                            }
-                            if (!user.containsKey("teams")) {
-                                if (user.containsKey("organizations")) {
-                                    user.put("teams", user.getJSONArray("organizations"));
-                                } else {
-                                    user.put("teams", new JSONArray());
-                                }
-                                updated = true;
-                            }
-                            if (!user.containsKey("profilePicture")) {
-                                user.put("profilePicture", "");
-                                updated = true;
-                            }
-                            if (!user.containsKey("isHidden")) {
-                                user.put("isHidden", false);
-                                updated = true;
-                            }
-                            if (!user.containsKey("isAdmin")) {
-                                user.put("isAdmin", hasAdminPermission(user));
-                                updated = true;
-                            }
+            }
+            journal.close();
+        }
+        writer.close();
+        synchronized (lock) {
+            writeBinarySnapshot();
+        }
+    }
+
+    private void compact() {
+        String snapshot;
+        synchronized (lock) {
+            if (data == null || !pending.isEmpty() && !save()) {
+                return;
+            }
+            try {
+                snapshot = serialize();
+                journal.rotate();
+            } catch (Exception e) {
+                Main.getLogger().err("Failed to compact account storage journal: " + e.getMessage());
+                return;
+            }
+        }
+        synchronized (snapshotLock) {
+            try {
+                JsonFileWriter.writeAtomically(filePath, snapshot);
+                journal.release();
+            } catch (Exception e) {
+                Main.getLogger().err("Failed to compact account storage journal: " + filePath);
+            }
+        }
+    }
+
+    private void discardChanges() {
+        pending.clear();
+        loadOrCreate();
+    }
+
+    private void loadOrCreate() {
+        synchronized (lock) {
+            synchronized (snapshotLock) {
+                try {
+                    if (Files.notExists(filePath)) {
+                        Files.createDirectories(filePath.getParent());
+                        data = new JSONObject();
+                        clear();
+                        replayJournal();
+                        writeSnapshot();
+                        return;
+                    }
+                    clear();
+                    JsonSnapshotReader.Result loaded = JsonSnapshotReader.stream(filePath, USERS_KEY, binarySnapshots, JsonFileAccountStorage::migrate, user -> {
+                        if (user.getString("id") != null) {
+                            put(toRecord(user));
                         }
+                    });
+                    data = loaded.data();
+                    boolean updated = loaded.migrated();
+                    if (replayJournal() || updated) {
+                        writeSnapshot();
                     }
+                    writeBinarySnapshot();
+                } catch (Exception e) {
+                    throw new IllegalStateException("Failed to load account storage file: " + filePath, e);
                 }
-                if (updated) {
-                    save();
-                }
-            } catch (Exception e) {
-                throw new IllegalStateException("Failed to load account storage file: " + filePath, e);
             }
         }
     }
 
-    private JSONArray usersArray() {
-        JSONArray users = data.getJSONArray(USERS_KEY);
-        if (users == null) {
-            users = new JSONArray();
-            data.put(USERS_KEY, users);
+    static boolean migrate(JSONObject user) {
+        boolean updated = false;
+        if (!user.containsKey("permissions")) {
+            user.put("permissions", new JSONArray());
+            updated = true;
+        }
+        if (!user.containsKey("projects")) {
+            user.put("projects", new JSONArray());
+            updated = true;
+        }
+        if (!user.containsKey("teams")) {
+            if (user.containsKey("organizations")) {
+                user.put("teams", user.getJSONArray("organizations"));
+            } else {
+                user.put("teams", new JSONArray());
+            }
+            updated = true;
         }
-        return users;
+        if (!user.containsKey("profilePicture")) {
+            user.put("profilePicture", "");
+            updated = true;
+        }
+        if (!user.containsKey("isHidden")) {
+            user.put("isHidden", false);
+            updated = true;
+        }
+        if (!user.containsKey("isAdmin")) {
+            user.put("isAdmin", hasAdminPermission(user));
+            updated = true;
+        }
+        return updated;
+    }
+
+    private void clear() {
+        accounts.clear();
+        idsByEmail.clear();
+        idsByUsername.clear();
+        pageIndex.clear();
+    }
+
+    private void writeBinarySnapshot() {
+        if (binarySnapshots && data != null && (journal == null || journal.entries() == 0) && !JsonBinarySnapshot.isCurrent(filePath)) {
+            JsonBinarySnapshot.write(filePath, data, USERS_KEY, accounts.values(), JsonFileAccountStorage::fromRecord);
+        }
+    }
+
+    private boolean replayJournal() throws Exception {
+        if (journal == null) {
+            return false;
+        }
+        List<JsonJournal.Change> changes = journal.read();
+        for (JsonJournal.Change change : changes) {
+            if (change.value() == null) {
+                remove(change.key());
+            } else if (change.key() != null) {
+                put(toRecord(change.value()));
+            }
+        }
+        return !changes.isEmpty();
+    }
+
+    private void write(AccountRecord record) {
+        put(record);
+        if (journal != null) {
+            pending.put(record.id(), fromRecord(record));
+        }
+    }
+
+    private AccountRecord erase(String id) {
+        AccountRecord removed = remove(id);
+        if (removed != null && journal != null) {
+            pending.put(id, null);
+        }
+        return removed;
+    }
+
+    private void put(AccountRecord record) {
+        AccountRecord previous = accounts.put(record.id(), record);
+        if (previous != null) {
+            unindex(previous);
+        }
+        pageIndex.put(PageCursor.of(record.createdAt(), record.id()), record);
+        if (record.email() != null) {
+            idsByEmail.put(normalize(record.email()), record.id());
+        }
+        if (record.username() != null) {
+            idsByUsername.put(normalize(record.username()), record.id());
+        }
+    }
+
+    private AccountRecord remove(String id) {
+        AccountRecord removed = accounts.remove(id);
+        if (removed != null) {
+            unindex(removed);
+        }
+        return removed;
+    }
+
+    private void unindex(AccountRecord record) {
+        pageIndex.remove(PageCursor.of(record.createdAt(), record.id()));
+        if (record.email() != null) {
+            idsByEmail.remove(normalize(record.email()), record.id());
+        }
+        if (record.username() != null) {
+            idsByUsername.remove(normalize(record.username()), record.id());
+        }
+    }
+
+    private Optional<AccountRecord> lookup(Map<String, String> index, String key) {
+        if (key == null) {
+            return Optional.empty();
+        }
+        String id = index.get(normalize(key));
+        return id == null ? Optional.empty() : Optional.ofNullable(accounts.get(id));
+    }
+
+    private String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
     }
 
     private boolean save() {
+        if (deferSaves) {
+            dirty = true;
+            return true;
+        }
+        if (journal == null) {
+            return writeSnapshot();
+        }
+        try {
+            List<JsonJournal.Change> changes = new ArrayList<>(pending.size());
+            pending.forEach((key, value) -> changes.add(new JsonJournal.Change(key, value)));
+            journal.append(changes);
+            pending.clear();
+            return true;
+        } catch (Exception e) {
+            Main.getLogger().err("Failed to append to account storage journal: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean writeSnapshot() {
         try {
-            Files.writeString(filePath, data.toJSONString(), StandardCharsets.UTF_8);
+            if (journal == null) {
+                return writer.flushAndWait(lock);
+            }
+            synchronized (snapshotLock) {
+                JsonFileWriter.writeAtomically(filePath, serialize());
+                journal.reset();
+            }
+            pending.clear();
             return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         } catch (Exception e) {
             return false;
         }
     }
 
+    private String serialize() {
+        synchronized (lock) {
+            return snapshot().toJSONString();
+        }
+    }
+
+    private JSONObject snapshot() {
+        JSONArray users = new JSONArray(accounts.size());
+        accounts.values().forEach(record -> users.add(fromRecord(record)));
+        JSONObject snapshot = new JSONObject(data);
+        snapshot.put(USERS_KEY, users);
+        return snapshot;
+    }
+
     private boolean existsByIdOrIdentity(AccountRecord record) {
-        return findById(record.id()).isPresent()
-                || findByEmail(record.email()).isPresent()
-                || findByUsername(record.username()).isPresent();
+        return accounts.containsKey(record.id())
+                || lookup(idsByEmail, record.email()).isPresent()
+                || lookup(idsByUsername, record.username()).isPresent();
     }
 
-    private AccountRecord toRecord(JSONObject json) {
+    static AccountRecord toRecord(JSONObject json) {
         java.util.List<String> permissions = toStringList(json.getJSONArray("permissions"));
         java.util.List<String> projects = toStringList(json.getJSONArray("projects"));
         java.util.List<String> teams = toStringList(json.getJSONArray("teams"));
@@ -274,7 +543,7 @@ public class JsonFileAccountStorage implements AccountStorage {
         );
     }
 
-    private JSONObject fromRecord(AccountRecord record) {
+    static JSONObject fromRecord(AccountRecord record) {
         JSONObject json = new JSONObject();
         json.put("id", record.id());
         json.put("email", record.email());
@@ -291,7 +560,7 @@ public class JsonFileAccountStorage implements AccountStorage {
         return json;
     }
 
-    private java.util.List<String> toStringList(JSONArray array) {
+    static java.util.List<String> toStringList(JSONArray array) {
         java.util.List<String> list = new java.util.ArrayList<>();
         if (array == null) {
             return list;
@@ -304,7 +573,7 @@ public class JsonFileAccountStorage implements AccountStorage {
         return list;
     }
 
-    private boolean hasAdminPermission(JSONObject user) {
+    static boolean hasAdminPermission(JSONObject user) {
         JSONArray permissions = user.getJSONArray("permissions");
         if (permissions == null) {
             return false;
@@ -1,14 +1,28 @@
 package com.hyrinth.backend.storage.account;
 
-import java.util.Comparator;
+import com.hyrinth.backend.storage.PageCursor;
+import com.hyrinth.backend.storage.SnapshotStorage;
+import com.hyrinth.backend.storage.json.JsonBinarySnapshot;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
-public class LocalAccountStorage implements AccountStorage {
+public class LocalAccountStorage implements AccountStorage, SnapshotStorage {
 
     private final Map<String, AccountRecord> accounts = new ConcurrentHashMap<>();
+    private final NavigableMap<PageCursor, AccountRecord> pageIndex = new ConcurrentSkipListMap<>();
+    private final Map<String, String> idsByEmail = new ConcurrentHashMap<>();
+    private final Map<String, String> idsByUsername = new ConcurrentHashMap<>();
 
     @Override
     public Optional<AccountRecord> findById(String id) {
@@ -17,16 +31,22 @@ public class LocalAccountStorage implements AccountStorage {
 
     @Override
     public Optional<AccountRecord> findByEmail(String email) {
-        return accounts.values().stream()
-                .filter(record -> record.email().equalsIgnoreCase(email))
-                .findFirst();
+        return lookup(idsByEmail, email);
     }
 
     @Override
     public Optional<AccountRecord> findByUsername(String username) {
-        return accounts.values().stream()
-                .filter(record -> record.username().equalsIgnoreCase(username))
-                .findFirst();
+        return lookup(idsByUsername, username);
+    }
+
+    @Override
+    public List<AccountRecord> findByIds(List<String> ids) {
+        return ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .map(accounts::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     @Override
@@ -34,26 +54,40 @@ public class LocalAccountStorage implements AccountStorage {
         if (limit <= 0 || offset < 0) {
             return List.of();
         }
-        return accounts.values().stream()
-                .sorted(Comparator.comparingLong(AccountRecord::createdAt)
-                        .thenComparing(AccountRecord::id))
+        return pageIndex.values().stream()
                 .skip(offset)
                 .limit(limit)
                 .toList();
     }
 
+    @Override
+    public List<AccountRecord> findPageAfter(PageCursor cursor, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        return (cursor == null ? pageIndex : pageIndex.tailMap(cursor, false)).values().stream()
+                .limit(limit)
+                .toList();
+    }
+
     @Override
     public boolean hasAdminAccount() {
         return accounts.values().stream().anyMatch(AccountRecord::isAdmin);
     }
 
+    @Override
+    public List<String> findAllIds() {
+        return List.copyOf(accounts.keySet());
+    }
+
+    @Override
+    public long count() {
+        return accounts.size();
+    }
+
     @Override
     public boolean create(AccountRecord record) {
-        if (findByEmail(record.email()).isPresent() || findByUsername(record.username()).isPresent()) {
-            return false;
-        }
-        accounts.put(record.id(), record);
-        return true;
+        return createAll(List.of(record));
     }
 
     @Override
@@ -61,20 +95,23 @@ public class LocalAccountStorage implements AccountStorage {
         if (record == null || record.id() == null || record.id().isBlank()) {
             return false;
         }
-        if (!accounts.containsKey(record.id())) {
-            return false;
+        while (true) {
+            AccountRecord previous = accounts.get(record.id());
+            if (previous == null || !claim(previous, record)) {
+                return false;
+            }
+            if (accounts.replace(record.id(), previous, record)) {
+                index(previous, record);
+                unclaim(record, previous);
+                return true;
+            }
+            unclaim(previous, record);
         }
-        accounts.put(record.id(), record);
-        return true;
     }
 
     @Override
     public boolean updatePasswordHash(String id, String passwordHash, long updatedAt) {
-        AccountRecord record = accounts.get(id);
-        if (record == null) {
-            return false;
-        }
-        accounts.put(id, new AccountRecord(
+        AccountRecord updated = id == null ? null : accounts.computeIfPresent(id, (key, record) -> new AccountRecord(
                 record.id(),
                 record.email(),
                 record.username(),
@@ -88,19 +125,206 @@ public class LocalAccountStorage implements AccountStorage {
                 record.createdAt(),
                 updatedAt
         ));
+        if (updated == null) {
+            return false;
+        }
+        index(null, updated);
         return true;
     }
 
     @Override
     public boolean delete(String id) {
-        boolean removed = accounts.remove(id) != null;
-        if (removed) {
+        AccountRecord removed = id == null ? null : accounts.remove(id);
+        if (removed != null) {
+            index(removed, null);
+            release(removed);
             com.hyrinth.backend.Main.getHyrinthBackend()
                     .getStorageProvider()
                     .getSessionStorage()
                     .deleteByAccountId(id);
         }
-        return removed;
+        return removed != null;
+    }
+
+    @Override
+    public boolean createAll(List<AccountRecord> records) {
+        Set<String> ids = new HashSet<>();
+        for (AccountRecord record : records) {
+            if (record == null || record.id() == null || accounts.containsKey(record.id()) || !ids.add(record.id())) {
+                return false;
+            }
+        }
+        List<AccountRecord> reserved = new ArrayList<>();
+        for (AccountRecord record : records) {
+            if (!reserve(record)) {
+                reserved.forEach(this::release);
+                return false;
+            }
+            reserved.add(record);
+        }
+        List<AccountRecord> inserted = new ArrayList<>();
+        for (AccountRecord record : records) {
+            if (accounts.putIfAbsent(record.id(), record) != null) {
+                inserted.forEach(created -> accounts.remove(created.id(), created));
+                reserved.forEach(this::release);
+                return false;
+            }
+            inserted.add(record);
+        }
+        inserted.forEach(record -> index(null, record));
+        return true;
+    }
+
+    @Override
+    public boolean updateAll(List<AccountRecord> records) {
+        List<AccountRecord> previous = new ArrayList<>();
+        for (AccountRecord record : records) {
+            AccountRecord existing = record == null || record.id() == null ? null : accounts.get(record.id());
+            if (existing == null) {
+                return false;
+            }
+            previous.add(existing);
+        }
+        for (int i = 0; i < records.size(); i++) {
+            if (!claim(previous.get(i), records.get(i))) {
+                for (int j = 0; j < i; j++) {
+                    unclaim(previous.get(j), records.get(j));
+                }
+                return false;
+            }
+        }
+        for (int i = 0; i < records.size(); i++) {
+            AccountRecord record = records.get(i);
+            AccountRecord expected = previous.get(i);
+            while (!accounts.replace(record.id(), expected, record)) {
+                unclaim(expected, record);
+                expected = accounts.get(record.id());
+                if (expected == null || !claim(expected, record)) {
+                    for (int j = i + 1; j < records.size(); j++) {
+                        unclaim(previous.get(j), records.get(j));
+                    }
+                    return false;
+                }
+            }
+            index(expected, record);
+            unclaim(record, expected);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean deleteAll(List<String> ids) {
+        if (ids.stream().anyMatch(Objects::isNull) || !accounts.keySet().containsAll(ids)) {
+            return false;
+        }
+        ids.forEach(id -> {
+            AccountRecord removed = accounts.remove(id);
+            if (removed != null) {
+                index(removed, null);
+                release(removed);
+                com.hyrinth.backend.Main.getHyrinthBackend()
+                        .getStorageProvider()
+                        .getSessionStorage()
+                        .deleteByAccountId(id);
+            }
+        });
+        return true;
+    }
+
+    private boolean reserve(AccountRecord record) {
+        String email = normalize(record.email());
+        if (email != null && idsByEmail.putIfAbsent(email, record.id()) != null) {
+            return false;
+        }
+        String username = normalize(record.username());
+        if (username != null && idsByUsername.putIfAbsent(username, record.id()) != null) {
+            if (email != null) {
+                idsByEmail.remove(email, record.id());
+            }
+            return false;
+        }
+        return true;
     }
 
+
+    @Override
+    public boolean saveSnapshot(Path file) {
+        return JsonBinarySnapshot.save(file, "users", accounts.values(), JsonFileAccountStorage::fromRecord);
+    }
+
+    @Override
+    public boolean loadSnapshot(Path file) {
+        return JsonBinarySnapshot.load(file, "users", JsonFileAccountStorage::toRecord, this::create);
+    }
+
+    private void release(AccountRecord record) {
+        if (record.email() != null) {
+            idsByEmail.remove(normalize(record.email()), record.id());
+        }
+        if (record.username() != null) {
+            idsByUsername.remove(normalize(record.username()), record.id());
+        }
+    }
+
+    private boolean claim(AccountRecord previous, AccountRecord current) {
+        String email = changed(previous.email(), current.email());
+        if (email != null && !claim(idsByEmail, email, current.id())) {
+            return false;
+        }
+        String username = changed(previous.username(), current.username());
+        if (username != null && !claim(idsByUsername, username, current.id())) {
+            if (email != null) {
+                idsByEmail.remove(email, current.id());
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private boolean claim(Map<String, String> index, String key, String id) {
+        String owner = index.putIfAbsent(key, id);
+        return owner == null || owner.equals(id);
+    }
+
+    private void unclaim(AccountRecord kept, AccountRecord dropped) {
+        String email = changed(kept.email(), dropped.email());
+        if (email != null) {
+            idsByEmail.remove(email, dropped.id());
+        }
+        String username = changed(kept.username(), dropped.username());
+        if (username != null) {
+            idsByUsername.remove(username, dropped.id());
+        }
+    }
+
+    private String changed(String previous, String current) {
+        String key = normalize(current);
+        return key == null || key.equals(normalize(previous)) ? null : key;
+    }
+
+    private Optional<AccountRecord> lookup(Map<String, String> index, String key) {
+        if (key == null) {
+            return Optional.empty();
+        }
+        String id = index.get(normalize(key));
+        return id == null ? Optional.empty() : Optional.ofNullable(accounts.get(id));
+    }
+
+    private String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private void index(AccountRecord previous, AccountRecord current) {
+        if (previous != null) {
+            pageIndex.computeIfPresent(PageCursor.of(previous.createdAt(), previous.id()), (cursor, record) -> resolve(cursor));
+        }
+        if (current != null) {
+            pageIndex.compute(PageCursor.of(current.createdAt(), current.id()), (cursor, record) -> resolve(cursor));
+        }
+    }
+
+    private AccountRecord resolve(PageCursor cursor) {
+        AccountRecord record = accounts.get(cursor.key());
+        return record != null && record.createdAt() == cursor.createdAt() ? record : null;
+    }
 }
@@ -0,0 +1,294 @@
+package com.hyrinth.backend.storage.account;
+
+import com.hyrinth.backend.Main;
+import com.hyrinth.backend.storage.PageCursor;
+import com.hyrinth.backend.storage.json.ShardedJsonStore;
+import com.hyrinth.backend.storage.session.AccountSessionStorage;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ShardedJsonAccountStorage implements AccountStorage {
+
+    private final NavigableMap<PageCursor, AccountRecord> pageIndex = new ConcurrentSkipListMap<>();
+    private final Map<String, String> idsByEmail = new ConcurrentHashMap<>();
+    private final Map<String, String> idsByUsername = new ConcurrentHashMap<>();
+    private final AtomicLong admins = new AtomicLong();
+    private final ShardedJsonStore<AccountRecord> store;
+
+    public ShardedJsonAccountStorage(Path directory, int shards) {
+        this.store = new ShardedJsonStore<>(directory, shards, "users", new ShardedJsonStore.Codec<>(
+                AccountRecord::id,
+                JsonFileAccountStorage::toRecord,
+                JsonFileAccountStorage::fromRecord,
+                JsonFileAccountStorage::migrate
+        ), this::changed);
+    }
+
+    @Override
+    public Optional<AccountRecord> findById(String id) {
+        return store.get(id);
+    }
+
+    @Override
+    public Optional<AccountRecord> findByEmail(String email) {
+        return lookup(idsByEmail, email);
+    }
+
+    @Override
+    public Optional<AccountRecord> findByUsername(String username) {
+        return lookup(idsByUsername, username);
+    }
+
+    @Override
+    public List<AccountRecord> findByIds(List<String> ids) {
+        Set<String> targets = new LinkedHashSet<>(ids);
+        targets.remove(null);
+        return targets.stream().map(store::get).flatMap(Optional::stream).toList();
+    }
+
+    @Override
+    public List<AccountRecord> findPage(int limit, int offset) {
+        if (limit <= 0 || offset < 0) {
+            return List.of();
+        }
+        return pageIndex.values().stream()
+                .skip(offset)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public List<AccountRecord> findPageAfter(PageCursor cursor, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        return (cursor == null ? pageIndex : pageIndex.tailMap(cursor, false)).values().stream()
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public boolean hasAdminAccount() {
+        return admins.get() > 0;
+    }
+
+    @Override
+    public List<String> findAllIds() {
+        return store.keys();
+    }
+
+    @Override
+    public long count() {
+        return store.size();
+    }
+
+    @Override
+    public boolean create(AccountRecord record) {
+        return createAll(List.of(record));
+    }
+
+    @Override
+    public boolean update(AccountRecord record) {
+        return updateAll(List.of(record));
+    }
+
+    @Override
+    public boolean updatePasswordHash(String id, String passwordHash, long updatedAt) {
+        return store.update(id, account -> new AccountRecord(
+                account.id(),
+                account.email(),
+                account.username(),
+                account.profilePicture(),
+                account.isHidden(),
+                passwordHash,
+                account.isAdmin(),
+                account.permissions(),
+                account.projects(),
+                account.teams(),
+                account.createdAt(),
+                updatedAt
+        ));
+    }
+
+    @Override
+    public boolean delete(String id) {
+        return deleteAll(List.of(id));
+    }
+
+    @Override
+    public boolean createAll(List<AccountRecord> records) {
+        List<AccountRecord> reserved = new ArrayList<>();
+        for (AccountRecord record : records) {
+            if (record == null || store.contains(record.id()) || !reserve(record)) {
+                reserved.forEach(this::release);
+                return false;
+            }
+            reserved.add(record);
+        }
+        if (!store.insertAll(records)) {
+            reserved.forEach(this::release);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean updateAll(List<AccountRecord> records) {
+        List<AccountRecord> previous = new ArrayList<>();
+        for (AccountRecord record : records) {
+            Optional<AccountRecord> existing = record == null ? Optional.empty() : store.get(record.id());
+            if (existing.isEmpty()) {
+                return false;
+            }
+            previous.add(existing.get());
+        }
+        for (int i = 0; i < records.size(); i++) {
+            if (!claim(previous.get(i), records.get(i))) {
+                for (int j = 0; j < i; j++) {
+                    unclaim(previous.get(j), records.get(j));
+                }
+                return false;
+            }
+        }
+        if (!store.replaceAll(records)) {
+            for (int i = 0; i < records.size(); i++) {
+                unclaim(previous.get(i), records.get(i));
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean deleteAll(List<String> ids) {
+        Set<String> targets = new LinkedHashSet<>(ids);
+        if (!store.removeAll(targets)) {
+            return false;
+        }
+        AccountSessionStorage sessionStorage = Main.getHyrinthBackend()
+                .getStorageProvider()
+                .getSessionStorage();
+        targets.forEach(sessionStorage::deleteByAccountId);
+        return true;
+    }
+
+    private boolean reserve(AccountRecord record) {
+        String email = normalize(record.email());
+        if (email != null && idsByEmail.putIfAbsent(email, record.id()) != null) {
+            return false;
+        }
+        String username = normalize(record.username());
+        if (username != null && idsByUsername.putIfAbsent(username, record.id()) != null) {
+            if (email != null) {
+                idsByEmail.remove(email, record.id());
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private void release(AccountRecord record) {
+        if (record.email() != null) {
+            idsByEmail.remove(normalize(record.email()), record.id());
+        }
+        if (record.username() != null) {
+            idsByUsername.remove(normalize(record.username()), record.id());
+        }
+        store.get(record.id()).ifPresent(existing -> {
+            if (existing.email() != null) {
+                idsByEmail.putIfAbsent(normalize(existing.email()), existing.id());
+            }
+            if (existing.username() != null) {
+                idsByUsername.putIfAbsent(normalize(existing.username()), existing.id());
+            }
+        });
+    }
+
+    private void changed(AccountRecord previous, AccountRecord current) {
+        if (previous != null) {
+            pageIndex.remove(PageCursor.of(previous.createdAt(), previous.id()));
+            String email = changed(current == null ? null : current.email(), previous.email());
+            if (email != null) {
+                idsByEmail.remove(email, previous.id());
+            }
+            String username = changed(current == null ? null : current.username(), previous.username());
+            if (username != null) {
+                idsByUsername.remove(username, previous.id());
+            }
+            if (previous.isAdmin()) {
+                admins.decrementAndGet();
+            }
+        }
+        if (current != null) {
+            pageIndex.put(PageCursor.of(current.createdAt(), current.id()), current);
+            if (current.email() != null) {
+                idsByEmail.putIfAbsent(normalize(current.email()), current.id());
+            }
+            if (current.username() != null) {
+                idsByUsername.putIfAbsent(normalize(current.username()), current.id());
+            }
+            if (current.isAdmin()) {
+                admins.incrementAndGet();
+            }
+        }
+    }
+
+    private boolean claim(AccountRecord previous, AccountRecord current) {
+        String email = changed(previous.email(), current.email());
+        if (email != null && !claim(idsByEmail, email, current.id())) {
+            return false;
+        }
+        String username = changed(previous.username(), current.username());
+        if (username != null && !claim(idsByUsername, username, current.id())) {
+            if (email != null) {
+                idsByEmail.remove(email, current.id());
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private boolean claim(Map<String, String> index, String key, String id) {
+        String owner = index.putIfAbsent(key, id);
+        return owner == null || owner.equals(id);
+    }
+
+    private void unclaim(AccountRecord kept, AccountRecord dropped) {
+        String email = changed(kept.email(), dropped.email());
+        if (email != null) {
+            idsByEmail.remove(email, dropped.id());
+        }
+        String username = changed(kept.username(), dropped.username());
+        if (username != null) {
+            idsByUsername.remove(username, dropped.id());
+        }
+    }
+
+    private String changed(String previous, String current) {
+        String key = normalize(current);
+        return key == null || key.equals(normalize(previous)) ? null : key;
+    }
+
+    private Optional<AccountRecord> lookup(Map<String, String> index, String key) {
+        if (key == null) {
+            return Optional.empty();
+        }
+        String id = index.get(normalize(key));
+        return id == null ? Optional.empty() : store.get(id);
+    }
+
+    private String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+}
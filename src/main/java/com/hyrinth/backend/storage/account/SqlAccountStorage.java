@@ -1,156 +1,202 @@
 package com.hyrinth.backend.storage.account;
 
 import com.hyrinth.backend.Main;
-import org.zyneonstudios.apex.utilities.sql.SQL;
+import com.hyrinth.backend.storage.PageCursor;
+import com.hyrinth.backend.storage.TransactionalStorage;
+import com.hyrinth.backend.storage.UnitOfWork;
+import com.hyrinth.backend.storage.session.AccountSessionStorage;
+import com.hyrinth.backend.storage.sql.SqlConnectionPool;
+import com.hyrinth.backend.storage.sql.SqlConnectionRouter;
+import com.hyrinth.backend.storage.sql.SqlCountCache;
+import com.hyrinth.backend.storage.sql.SqlMigrator;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.Savepoint;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
-public class SqlAccountStorage implements AccountStorage {
+public class SqlAccountStorage implements AccountStorage, TransactionalStorage {
 
-    private final SQL sql;
+    private static final int MULTI_GET_CHUNK = 256;
+
+    private final SqlConnectionRouter router;
+    private final SqlCountCache counts = new SqlCountCache();
     private final String table;
-    private boolean schemaEnsured = false;
+    private final String findByIdQuery;
+    private final String findByEmailQuery;
+    private final String findByUsernameQuery;
+    private final String findPageQuery;
+    private final String findFirstPageQuery;
+    private final String findPageAfterQuery;
+    private final String hasAdminQuery;
+    private final String findAllIdsQuery;
+    private final String countQuery;
+    private final String insertQuery;
+    private final String updateQuery;
+    private final String updatePasswordHashQuery;
+    private final String deleteQuery;
+    private volatile boolean schemaEnsured = false;
+    private boolean schemaFailed = false;
+
+    public SqlAccountStorage(SqlConnectionPool pool) {
+        this(new SqlConnectionRouter(pool));
+    }
 
-    public SqlAccountStorage(SQL sql) {
-        this(sql, "accounts");
+    public SqlAccountStorage(SqlConnectionRouter router) {
+        this(router, "accounts");
     }
 
-    public SqlAccountStorage(SQL sql, String table) {
-        this.sql = sql;
+    public SqlAccountStorage(SqlConnectionRouter router, String table) {
+        this.router = router;
+        router.addTransactionListener(counts::invalidate);
         this.table = table;
+        this.findByIdQuery = "SELECT * FROM `" + table + "` WHERE `id` = ?";
+        this.findByEmailQuery = "SELECT * FROM `" + table + "` WHERE `email` = ?";
+        this.findByUsernameQuery = "SELECT * FROM `" + table + "` WHERE `username` = ?";
+        this.findPageQuery = "SELECT * FROM `" + table + "` ORDER BY `created_at` ASC, `id` ASC LIMIT ? OFFSET ?";
+        this.findFirstPageQuery = "SELECT * FROM `" + table + "` ORDER BY `created_at` ASC, `id` ASC LIMIT ?";
+        this.findPageAfterQuery = "SELECT * FROM `" + table + "` WHERE `created_at` > ? OR (`created_at` = ? AND `id` > ?)"
+                + " ORDER BY `created_at` ASC, `id` ASC LIMIT ?";
+        this.hasAdminQuery = "SELECT 1 FROM `" + table + "` WHERE `is_admin` = ? LIMIT 1";
+        this.findAllIdsQuery = "SELECT `id` FROM `" + table + "`";
+        this.countQuery = "SELECT COUNT(*) FROM `" + table + "`";
+        this.insertQuery = "INSERT INTO `" + table + "` (`id`, `email`, `username`, `profile_picture`, `is_hidden`, `password_hash`, `is_admin`, `permissions`, `projects`, `teams`, `created_at`, `updated_at`)"
+                + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        this.updateQuery = "UPDATE `" + table + "` SET `email` = ?, `username` = ?, `profile_picture` = ?, `is_hidden` = ?,"
+                + " `password_hash` = ?, `is_admin` = ?, `permissions` = ?, `projects` = ?, `teams` = ?, `updated_at` = ? WHERE `id` = ?";
+        this.updatePasswordHashQuery = "UPDATE `" + table + "` SET `password_hash` = ?, `updated_at` = ? WHERE `id` = ?";
+        this.deleteQuery = "DELETE FROM `" + table + "` WHERE `id` = ?";
         ensureSchema();
     }
 
-    private synchronized void ensureSchema() {
+    @Override
+    public void runInTransaction(UnitOfWork work) throws Exception {
+        router.runInTransaction(work);
+    }
+
+    private void ensureSchema() {
         if (schemaEnsured) {
             return;
         }
-        if (!sql.reconnect()) {
-            Main.getLogger().err("Account storage could not reconnect to SQL backend for schema init.");
-            return;
-        }
-        String createTable = "CREATE TABLE IF NOT EXISTS `" + table + "` ("
-                + "`id` VARCHAR(36) NOT NULL PRIMARY KEY,"
-                + "`email` VARCHAR(255) NOT NULL,"
-                + "`username` VARCHAR(64) NOT NULL,"
-                + "`profile_picture` VARCHAR(512) NOT NULL DEFAULT '',"
-                + "`is_hidden` BOOLEAN NOT NULL DEFAULT FALSE,"
-                + "`password_hash` VARCHAR(255) NOT NULL,"
-                + "`is_admin` BOOLEAN NOT NULL DEFAULT FALSE,"
-                + "`permissions` TEXT NOT NULL,"
-                + "`projects` TEXT NOT NULL,"
-                + "`teams` TEXT NOT NULL,"
-                + "`created_at` BIGINT NOT NULL,"
-                + "`updated_at` BIGINT NOT NULL"
-                + ");";
-        String emailIndex = "CREATE UNIQUE INDEX IF NOT EXISTS `idx_" + table + "_email` ON `" + table + "` (`email`);";
-        String usernameIndex = "CREATE UNIQUE INDEX IF NOT EXISTS `idx_" + table + "_username` ON `" + table + "` (`username`);";
-        try (Connection connection = sql.getConnection()) {
-            if (connection == null) {
-                Main.getLogger().err("Account storage schema init failed: SQL connection is null.");
-                return;
-            }
-            try (PreparedStatement createStatement = connection.prepareStatement(createTable)) {
-                createStatement.execute();
-            }
-            try (PreparedStatement emailStatement = connection.prepareStatement(emailIndex)) {
-                emailStatement.execute();
-            } catch (Exception e) {
-                Main.getLogger().err("Account storage email index init failed: " + e.getMessage());
-            }
-            try (PreparedStatement usernameStatement = connection.prepareStatement(usernameIndex)) {
-                usernameStatement.execute();
-            } catch (Exception e) {
-                Main.getLogger().err("Account storage username index init failed: " + e.getMessage());
-            }
-            String profilePictureColumn = "ALTER TABLE `" + table + "` ADD COLUMN `profile_picture` VARCHAR(512) NOT NULL DEFAULT ''";
-            try (PreparedStatement profileStatement = connection.prepareStatement(profilePictureColumn)) {
-                profileStatement.execute();
-            } catch (Exception e) {
-                Main.getLogger().deb("Account storage profile picture column init skipped: " + e.getMessage());
-            }
-            String hiddenColumn = "ALTER TABLE `" + table + "` ADD COLUMN `is_hidden` BOOLEAN NOT NULL DEFAULT FALSE";
-            try (PreparedStatement hiddenStatement = connection.prepareStatement(hiddenColumn)) {
-                hiddenStatement.execute();
-            } catch (Exception e) {
-                Main.getLogger().deb("Account storage hidden column init skipped: " + e.getMessage());
+        synchronized (this) {
+            if (schemaFailed) {
+                throw new IllegalStateException("Schema for " + table + " is unavailable after a failed migration");
             }
-            String adminColumn = "ALTER TABLE `" + table + "` ADD COLUMN `is_admin` BOOLEAN NOT NULL DEFAULT FALSE";
-            try (PreparedStatement adminStatement = connection.prepareStatement(adminColumn)) {
-                adminStatement.execute();
-                String backfill = "UPDATE `" + table + "` SET `is_admin` = TRUE WHERE `permissions` LIKE '%\"admin\"%'";
-                try (PreparedStatement backfillStatement = connection.prepareStatement(backfill)) {
-                    backfillStatement.executeUpdate();
-                } catch (Exception e) {
-                    Main.getLogger().err("Account storage admin backfill failed: " + e.getMessage());
+            if (!schemaEnsured) {
+                schemaEnsured = migrations().migrate();
+                schemaFailed = !schemaEnsured;
+                if (schemaFailed) {
+                    throw new IllegalStateException("Schema migration failed for " + table);
                 }
-            } catch (Exception e) {
-                Main.getLogger().deb("Account storage admin column init skipped: " + e.getMessage());
             }
-            String projectsColumn = "ALTER TABLE `" + table + "` ADD COLUMN `projects` TEXT NOT NULL DEFAULT '[]'";
-            try (PreparedStatement projectsStatement = connection.prepareStatement(projectsColumn)) {
-                projectsStatement.execute();
-            } catch (Exception e) {
-                Main.getLogger().deb("Account storage projects column init skipped: " + e.getMessage());
-            }
-            String teamsColumn = "ALTER TABLE `" + table + "` ADD COLUMN `teams` TEXT NOT NULL DEFAULT '[]'";
-            try (PreparedStatement teamsStatement = connection.prepareStatement(teamsColumn)) {
-                teamsStatement.execute();
-            } catch (Exception e) {
-                Main.getLogger().deb("Account storage teams column init skipped: " + e.getMessage());
-            }
-            String teamsBackfill = "UPDATE `" + table + "` SET `teams` = `organizations` WHERE `teams` = '[]'";
-            try (PreparedStatement teamsBackfillStatement = connection.prepareStatement(teamsBackfill)) {
-                teamsBackfillStatement.executeUpdate();
-            } catch (Exception e) {
-                Main.getLogger().deb("Account storage teams backfill skipped: " + e.getMessage());
-            }
-            schemaEnsured = true;
-        } catch (Exception e) {
-            Main.getLogger().err("Account storage schema init failed: " + e.getMessage());
         }
     }
 
+    private SqlMigrator migrations() {
+        return new SqlMigrator(router.getPrimary(), table)
+                .add(1, "create table", connection -> {
+                    SqlMigrator.execute(connection, "CREATE TABLE IF NOT EXISTS `" + table + "` ("
+                            + "`id` VARCHAR(36) NOT NULL PRIMARY KEY,"
+                            + "`email` VARCHAR(255) NOT NULL,"
+                            + "`username` VARCHAR(64) NOT NULL,"
+                            + "`profile_picture` VARCHAR(512) NOT NULL DEFAULT '',"
+                            + "`is_hidden` BOOLEAN NOT NULL DEFAULT FALSE,"
+                            + "`password_hash` VARCHAR(255) NOT NULL,"
+                            + "`is_admin` BOOLEAN NOT NULL DEFAULT FALSE,"
+                            + "`permissions` TEXT NOT NULL,"
+                            + "`projects` TEXT NOT NULL,"
+                            + "`teams` TEXT NOT NULL,"
+                            + "`created_at` BIGINT NOT NULL,"
+                            + "`updated_at` BIGINT NOT NULL"
+                            + ")");
+                    SqlMigrator.createIndex(connection, table, "idx_" + table + "_email", true, "email");
+                    SqlMigrator.createIndex(connection, table, "idx_" + table + "_username", true, "username");
+                })
+                .add(2, "add profile, visibility, admin, projects and teams columns", connection -> {
+                    Set<String> columns = SqlMigrator.columns(connection, table);
+                    SqlMigrator.addColumn(connection, table, columns, "profile_picture", "VARCHAR(512) NOT NULL DEFAULT ''");
+                    SqlMigrator.addColumn(connection, table, columns, "is_hidden", "BOOLEAN NOT NULL DEFAULT FALSE");
+                    if (SqlMigrator.addColumn(connection, table, columns, "is_admin", "BOOLEAN NOT NULL DEFAULT FALSE")) {
+                        SqlMigrator.execute(connection, "UPDATE `" + table + "` SET `is_admin` = TRUE WHERE `permissions` LIKE '%\"admin\"%'");
+                    }
+                    SqlMigrator.addTextColumn(connection, table, columns, "projects", "[]");
+                    SqlMigrator.addTextColumn(connection, table, columns, "teams", "[]");
+                    if (columns.contains("organizations")) {
+                        SqlMigrator.execute(connection, "UPDATE `" + table + "` SET `teams` = `organizations` WHERE `teams` = '[]'");
+                    }
+                })
+                .add(3, "add page index", connection ->
+                        SqlMigrator.createIndex(connection, table, "idx_" + table + "_page", false, "created_at", "id"));
+    }
+
     @Override
     public Optional<AccountRecord> findById(String id) {
         ensureSchema();
-        String query = "SELECT * FROM `" + table + "` WHERE `id` = ?";
-        return fetchOne(query, id);
+        return fetchOne(findByIdQuery, id);
     }
 
     @Override
     public Optional<AccountRecord> findByEmail(String email) {
         ensureSchema();
-        String query = "SELECT * FROM `" + table + "` WHERE `email` = ?";
-        return fetchOne(query, email);
+        return fetchOne(findByEmailQuery, email);
     }
 
     @Override
     public Optional<AccountRecord> findByUsername(String username) {
         ensureSchema();
-        String query = "SELECT * FROM `" + table + "` WHERE `username` = ?";
-        return fetchOne(query, username);
+        return fetchOne(findByUsernameQuery, username);
     }
 
     @Override
-    public List<AccountRecord> findPage(int limit, int offset) {
+    public List<AccountRecord> findByIds(List<String> ids) {
         ensureSchema();
-        if (limit <= 0 || offset < 0) {
+        List<String> keys = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (keys.isEmpty()) {
             return List.of();
         }
-        if (!sql.reconnect()) {
-            Main.getLogger().err("Account storage could not reconnect to SQL backend.");
+        Map<String, AccountRecord> found = new HashMap<>();
+        try (Connection connection = router.getReadConnection()) {
+            for (int from = 0; from < keys.size(); from += MULTI_GET_CHUNK) {
+                List<String> chunk = keys.subList(from, Math.min(keys.size(), from + MULTI_GET_CHUNK));
+                int slots = Math.max(1, Integer.highestOneBit(chunk.size() - 1) << 1);
+                try (PreparedStatement statement = connection.prepareStatement(multiGetQuery(slots))) {
+                    for (int i = 0; i < slots; i++) {
+                        statement.setString(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            AccountRecord record = fromResultSet(resultSet);
+                            found.put(record.id(), record);
+                        }
+                    }
+                }
+            }
+        } catch (Exception e) {
+            Main.getLogger().err("Account storage multi-get query failed: " + e.getMessage());
+        }
+        return keys.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    @Override
+    public List<AccountRecord> findPage(int limit, int offset) {
+        ensureSchema();
+        if (limit <= 0 || offset < 0) {
             return List.of();
         }
-        String query = "SELECT * FROM `" + table + "` ORDER BY `created_at` ASC, `id` ASC LIMIT ? OFFSET ?";
         List<AccountRecord> records = new ArrayList<>();
-        try (Connection connection = sql.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query)) {
+        try (Connection connection = router.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(findPageQuery)) {
             statement.setInt(1, limit);
             statement.setInt(2, offset);
             try (ResultSet resultSet = statement.executeQuery()) {
@@ -164,59 +210,78 @@ public class SqlAccountStorage implements AccountStorage {
         return records;
     }
 
+    @Override
+    public List<AccountRecord> findPageAfter(PageCursor cursor, int limit) {
+        ensureSchema();
+        if (limit <= 0) {
+            return List.of();
+        }
+        List<AccountRecord> records = new ArrayList<>();
+        try (Connection connection = router.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(cursor == null ? findFirstPageQuery : findPageAfterQuery)) {
+            if (cursor == null) {
+                statement.setInt(1, limit);
+            } else {
+                statement.setLong(1, cursor.createdAt());
+                statement.setLong(2, cursor.createdAt());
+                statement.setString(3, cursor.key());
+                statement.setInt(4, limit);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    records.add(fromResultSet(resultSet));
+                }
+            }
+        } catch (Exception e) {
+            Main.getLogger().err("Account storage cursor page query failed: " + e.getMessage());
+        }
+        return records;
+    }
+
     @Override
     public boolean hasAdminAccount() {
         ensureSchema();
-        String query = "SELECT 1 FROM `" + table + "` WHERE `is_admin` = ? LIMIT 1";
-        return exists(query, true);
+        return exists(hasAdminQuery, true);
+    }
+
+    @Override
+    public List<String> findAllIds() {
+        ensureSchema();
+        List<String> keys = new ArrayList<>();
+        try (Connection connection = router.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(findAllIdsQuery);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                keys.add(resultSet.getString("id"));
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Account storage key scan failed: " + e.getMessage(), e);
+        }
+        return keys;
+    }
+
+    @Override
+    public long count() {
+        ensureSchema();
+        return count("all", countQuery, null);
     }
 
     @Override
     public boolean create(AccountRecord record) {
         ensureSchema();
-        String query = "INSERT INTO `" + table + "` (`id`, `email`, `username`, `profile_picture`, `is_hidden`, `password_hash`, `is_admin`, `permissions`, `projects`, `teams`, `created_at`, `updated_at`)"
-                + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        return executeUpdate(query, statement -> {
-            statement.setString(1, record.id());
-            statement.setString(2, record.email());
-            statement.setString(3, record.username());
-            statement.setString(4, record.profilePicture());
-            statement.setBoolean(5, record.isHidden());
-            statement.setString(6, record.passwordHash());
-            statement.setBoolean(7, record.isAdmin());
-            statement.setString(8, serializePermissions(record.permissions()));
-            statement.setString(9, serializeProjects(record.projects()));
-            statement.setString(10, serializeTeams(record.teams()));
-            statement.setLong(11, record.createdAt());
-            statement.setLong(12, record.updatedAt());
-        });
+        return executeUpdate(insertQuery, statement -> bindInsert(statement, record));
     }
 
     @Override
     public boolean update(AccountRecord record) {
         ensureSchema();
-        String query = "UPDATE `" + table + "` SET `email` = ?, `username` = ?, `profile_picture` = ?, `is_hidden` = ?,"
-                + " `password_hash` = ?, `is_admin` = ?, `permissions` = ?, `projects` = ?, `teams` = ?, `updated_at` = ? WHERE `id` = ?";
-        return executeUpdate(query, statement -> {
-            statement.setString(1, record.email());
-            statement.setString(2, record.username());
-            statement.setString(3, record.profilePicture());
-            statement.setBoolean(4, record.isHidden());
-            statement.setString(5, record.passwordHash());
-            statement.setBoolean(6, record.isAdmin());
-            statement.setString(7, serializePermissions(record.permissions()));
-            statement.setString(8, serializeProjects(record.projects()));
-            statement.setString(9, serializeTeams(record.teams()));
-            statement.setLong(10, record.updatedAt());
-            statement.setString(11, record.id());
-        });
+        return executeUpdate(updateQuery, statement -> bindUpdate(statement, record));
     }
 
     @Override
     public boolean updatePasswordHash(String id, String passwordHash, long updatedAt) {
         ensureSchema();
-        String query = "UPDATE `" + table + "` SET `password_hash` = ?, `updated_at` = ? WHERE `id` = ?";
-        return executeUpdate(query, statement -> {
+        return executeUpdate(updatePasswordHashQuery, statement -> {
             statement.setString(1, passwordHash);
             statement.setLong(2, updatedAt);
             statement.setString(3, id);
@@ -226,8 +291,7 @@ public class SqlAccountStorage implements AccountStorage {
     @Override
     public boolean delete(String id) {
         ensureSchema();
-        String query = "DELETE FROM `" + table + "` WHERE `id` = ?";
-        boolean removed = executeUpdate(query, statement -> statement.setString(1, id));
+        boolean removed = executeUpdate(deleteQuery, statement -> statement.setString(1, id));
         if (removed) {
             com.hyrinth.backend.Main.getHyrinthBackend()
                     .getStorageProvider()
@@ -237,12 +301,69 @@ public class SqlAccountStorage implements AccountStorage {
         return removed;
     }
 
+    @Override
+    public boolean createAll(List<AccountRecord> records) {
+        ensureSchema();
+        List<String> ids = keysOf(records);
+        if (ids == null || new LinkedHashSet<>(ids).size() != ids.size()) {
+            return false;
+        }
+        return executeBatch(insertQuery, records, this::bindInsert, ids, false);
+    }
+
+    @Override
+    public boolean updateAll(List<AccountRecord> records) {
+        ensureSchema();
+        List<String> ids = keysOf(records);
+        if (ids == null) {
+            return false;
+        }
+        return executeBatch(updateQuery, records, this::bindUpdate, ids, true);
+    }
+
+    @Override
+    public boolean deleteAll(List<String> ids) {
+        ensureSchema();
+        boolean removed = executeBatch(deleteQuery, List.copyOf(new LinkedHashSet<>(ids)), (statement, id) -> statement.setString(1, id), ids, true);
+        if (removed) {
+            AccountSessionStorage sessionStorage = com.hyrinth.backend.Main.getHyrinthBackend()
+                    .getStorageProvider()
+                    .getSessionStorage();
+            ids.forEach(sessionStorage::deleteByAccountId);
+        }
+        return removed;
+    }
+
+    private String multiGetQuery(int slots) {
+        return "SELECT * FROM `" + table + "` WHERE `id` IN (" + String.join(", ", Collections.nCopies(slots, "?")) + ")";
+    }
+
+    private String countKeysQuery(int slots) {
+        return "SELECT COUNT(*) FROM `" + table + "` WHERE `id` IN (" + String.join(", ", Collections.nCopies(slots, "?")) + ")";
+    }
+
+    private List<String> keysOf(List<AccountRecord> records) {
+        List<String> keys = new ArrayList<>(records.size());
+        for (AccountRecord record : records) {
+            if (record == null || record.id() == null || record.id().isBlank()) {
+                return null;
+            }
+            keys.add(record.id());
+        }
+        return keys;
+    }
+
     private Optional<AccountRecord> fetchOne(String query, String value) {
-        if (!sql.reconnect()) {
-            Main.getLogger().err("Account storage could not reconnect to SQL backend.");
-            return Optional.empty();
+        boolean replica = router.readsFromReplica();
+        Optional<AccountRecord> record = fetchOne(query, value, replica);
+        if (record.isEmpty() && replica && router.hasLaggingReplicas()) {
+            return fetchOne(query, value, false);
         }
-        try (Connection connection = sql.getConnection();
+        return record;
+    }
+
+    private Optional<AccountRecord> fetchOne(String query, String value, boolean replica) {
+        try (Connection connection = replica ? router.getReadConnection() : router.getPrimaryConnection();
              PreparedStatement statement = connection.prepareStatement(query)) {
             statement.setString(1, value);
             try (ResultSet resultSet = statement.executeQuery()) {
@@ -257,11 +378,7 @@ public class SqlAccountStorage implements AccountStorage {
     }
 
     private boolean exists(String query, String value) {
-        if (!sql.reconnect()) {
-            Main.getLogger().err("Account storage could not reconnect to SQL backend.");
-            return false;
-        }
-        try (Connection connection = sql.getConnection();
+        try (Connection connection = router.getReadConnection();
              PreparedStatement statement = connection.prepareStatement(query)) {
             statement.setString(1, value);
             try (ResultSet resultSet = statement.executeQuery()) {
@@ -274,11 +391,7 @@ public class SqlAccountStorage implements AccountStorage {
     }
 
     private boolean exists(String query, boolean value) {
-        if (!sql.reconnect()) {
-            Main.getLogger().err("Account storage could not reconnect to SQL backend.");
-            return false;
-        }
-        try (Connection connection = sql.getConnection();
+        try (Connection connection = router.getReadConnection();
              PreparedStatement statement = connection.prepareStatement(query)) {
             statement.setBoolean(1, value);
             try (ResultSet resultSet = statement.executeQuery()) {
@@ -290,21 +403,145 @@ public class SqlAccountStorage implements AccountStorage {
         return false;
     }
 
-    private boolean executeUpdate(String query, StatementConfigurer configurer) {
-        if (!sql.reconnect()) {
-            Main.getLogger().err("Account storage could not reconnect to SQL backend.");
-            return false;
+    private long count(String key, String query, String value) {
+        try {
+            return counts.get(key, () -> {
+                try (Connection connection = router.getReadConnection();
+                     PreparedStatement statement = connection.prepareStatement(query)) {
+                    if (value != null) {
+                        statement.setString(1, value);
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        return resultSet.next() ? resultSet.getLong(1) : 0L;
+                    }
+                }
+            });
+        } catch (Exception e) {
+            Main.getLogger().err("Account storage count query failed: " + e.getMessage());
+            return -1;
         }
-        try (Connection connection = sql.getConnection();
+    }
+
+    private boolean executeUpdate(String query, StatementConfigurer configurer) {
+        try (Connection connection = router.getConnection();
              PreparedStatement statement = connection.prepareStatement(query)) {
             configurer.configure(statement);
-            return statement.executeUpdate() > 0;
+            boolean updated = statement.executeUpdate() > 0;
+            if (updated) {
+                counts.invalidate();
+            }
+            return updated;
         } catch (Exception e) {
             Main.getLogger().err("Account storage update failed: " + e.getMessage());
             return false;
         }
     }
 
+    private <T> boolean executeBatch(String query, List<T> items, BatchConfigurer<T> configurer, List<String> keys, boolean existing) {
+        if (items == null || items.isEmpty()) {
+            return true;
+        }
+        try (Connection connection = router.getConnection()) {
+            boolean ownsTransaction = connection.getAutoCommit();
+            if (ownsTransaction) {
+                connection.setAutoCommit(false);
+            }
+            Savepoint savepoint = ownsTransaction ? null : connection.setSavepoint();
+            try {
+                Set<String> distinct = new LinkedHashSet<>(keys);
+                if (countKeys(connection, distinct) != (existing ? distinct.size() : 0)) {
+                    rollback(connection, savepoint);
+                    return false;
+                }
+                try (PreparedStatement statement = connection.prepareStatement(query)) {
+                    for (T item : items) {
+                        configurer.configure(statement, item);
+                        statement.addBatch();
+                    }
+                    for (int result : statement.executeBatch()) {
+                        if (result == 0 || result == Statement.EXECUTE_FAILED) {
+                            throw new IllegalStateException("batch entry did not match a row");
+                        }
+                    }
+                }
+                if (ownsTransaction) {
+                    connection.commit();
+                } else {
+                    connection.releaseSavepoint(savepoint);
+                }
+                counts.invalidate();
+                return true;
+            } catch (Exception e) {
+                rollback(connection, savepoint);
+                Main.getLogger().err("Account storage batch update failed and was rolled back: " + e.getMessage());
+                return false;
+            } finally {
+                if (ownsTransaction) {
+                    connection.setAutoCommit(true);
+                }
+            }
+        } catch (Exception e) {
+            Main.getLogger().err("Account storage batch update failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private long countKeys(Connection connection, Collection<String> keys) throws Exception {
+        List<String> values = List.copyOf(keys);
+        long found = 0;
+        for (int from = 0; from < values.size(); from += MULTI_GET_CHUNK) {
+            List<String> chunk = values.subList(from, Math.min(values.size(), from + MULTI_GET_CHUNK));
+            try (PreparedStatement statement = connection.prepareStatement(countKeysQuery(chunk.size()))) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    statement.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next()) {
+                        found += resultSet.getLong(1);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private void rollback(Connection connection, Savepoint savepoint) throws Exception {
+        if (savepoint == null) {
+            connection.rollback();
+        } else {
+            connection.rollback(savepoint);
+        }
+    }
+
+    private void bindInsert(PreparedStatement statement, AccountRecord record) throws Exception {
+        statement.setString(1, record.id());
+        statement.setString(2, record.email());
+        statement.setString(3, record.username());
+        statement.setString(4, record.profilePicture());
+        statement.setBoolean(5, record.isHidden());
+        statement.setString(6, record.passwordHash());
+        statement.setBoolean(7, record.isAdmin());
+        statement.setString(8, serializePermissions(record.permissions()));
+        statement.setString(9, serializeProjects(record.projects()));
+        statement.setString(10, serializeTeams(record.teams()));
+        statement.setLong(11, record.createdAt());
+        statement.setLong(12, record.updatedAt());
+    }
+
+    private void bindUpdate(PreparedStatement statement, AccountRecord record) throws Exception {
+        statement.setString(1, record.email());
+        statement.setString(2, record.username());
+        statement.setString(3, record.profilePicture());
+        statement.setBoolean(4, record.isHidden());
+        statement.setString(5, record.passwordHash());
+        statement.setBoolean(6, record.isAdmin());
+        statement.setString(7, serializePermissions(record.permissions()));
+        statement.setString(8, serializeProjects(record.projects()));
+        statement.setString(9, serializeTeams(record.teams()));
+        statement.setLong(10, record.updatedAt());
+        statement.setString(11, record.id());
+    }
+
     private AccountRecord fromResultSet(ResultSet resultSet) throws Exception {
         return new AccountRecord(
                 resultSet.getString("id"),
@@ -394,4 +631,8 @@ public class SqlAccountStorage implements AccountStorage {
     private interface StatementConfigurer {
         void configure(PreparedStatement statement) throws Exception;
     }
+
+    private interface BatchConfigurer<T> {
+        void configure(PreparedStatement statement, T item) throws Exception;
+    }
 }
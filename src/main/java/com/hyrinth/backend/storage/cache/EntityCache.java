@@ -0,0 +1,226 @@
+package com.hyrinth.backend.storage.cache;
+
+import com.hyrinth.backend.HyrinthBackendSettings;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+public class EntityCache<V> {
+
+    private static final int SEGMENTS = 16;
+
+    private final long ttl;
+    private final List<Segment<V>> segments;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    public EntityCache(Options options) {
+        this.ttl = options.ttl();
+        int count = (int) Math.max(1, Math.min(SEGMENTS, options.maxSize()));
+        long perSegment = Math.max(1L, options.maxSize() / count);
+        List<Segment<V>> created = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            created.add(new Segment<>(perSegment));
+        }
+        this.segments = List.copyOf(created);
+    }
+
+    public Optional<V> get(String key, Function<String, Optional<V>> loader) {
+        if (key == null) {
+            return loader.apply(null);
+        }
+        V cached = lookup(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long current = generation.get();
+        Optional<V> loaded = loader.apply(key);
+        loaded.ifPresent(value -> store(key, value, current));
+        return loaded;
+    }
+
+    public List<V> getAll(Collection<String> keys, Function<V, String> keyOf, Function<List<String>, List<V>> loader) {
+        Map<String, V> found = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String key : keys) {
+            if (key == null || found.containsKey(key)) {
+                continue;
+            }
+            V cached = lookup(key);
+            found.put(key, cached);
+            if (cached == null) {
+                missing.add(key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long current = generation.get();
+            for (V value : loader.apply(missing)) {
+                String key = keyOf.apply(value);
+                found.put(key, value);
+                store(key, value, current);
+            }
+        }
+        List<V> values = new ArrayList<>(found.size());
+        found.values().forEach(value -> {
+            if (value != null) {
+                values.add(value);
+            }
+        });
+        return values;
+    }
+
+    public void invalidate(String key) {
+        if (key == null) {
+            return;
+        }
+        generation.incrementAndGet();
+        Segment<V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        for (Segment<V> segment : segments) {
+            synchronized (segment) {
+                segment.probation.clear();
+                segment.protection.clear();
+            }
+        }
+    }
+
+    public Stats stats() {
+        long size = 0;
+        for (Segment<V> segment : segments) {
+            synchronized (segment) {
+                size += segment.probation.size() + segment.protection.size();
+            }
+        }
+        return new Stats(hits.get(), misses.get(), evictions.get(), expirations.get(), size);
+    }
+
+    private V lookup(String key) {
+        Segment<V> segment = segmentFor(key);
+        long now = System.currentTimeMillis();
+        synchronized (segment) {
+            Entry<V> entry = segment.protection.get(key);
+            if (entry == null) {
+                entry = segment.probation.remove(key);
+                if (entry != null && !entry.expired(now)) {
+                    segment.promote(key, entry, evictions);
+                }
+            }
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (entry.expired(now)) {
+                segment.remove(key);
+                expirations.incrementAndGet();
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.value();
+        }
+    }
+
+    private void store(String key, V value, long expected) {
+        Segment<V> segment = segmentFor(key);
+        synchronized (segment) {
+            if (generation.get() != expected) {
+                return;
+            }
+            Entry<V> entry = new Entry<>(value, ttl > 0 ? System.currentTimeMillis() + ttl : Long.MAX_VALUE);
+            if (segment.protection.containsKey(key)) {
+                segment.protection.put(key, entry);
+                return;
+            }
+            segment.probation.put(key, entry);
+            segment.evict(evictions);
+        }
+    }
+
+    private Segment<V> segmentFor(String key) {
+        return segments.get(Math.floorMod(key.hashCode(), segments.size()));
+    }
+
+    private static final class Segment<V> {
+
+        private final long capacity;
+        private final long protectedCapacity;
+        private final LinkedHashMap<String, Entry<V>> probation = new LinkedHashMap<>();
+        private final LinkedHashMap<String, Entry<V>> protection = new LinkedHashMap<>(16, 0.75f, true);
+
+        private Segment(long capacity) {
+            this.capacity = capacity;
+            this.protectedCapacity = Math.max(1L, capacity * 4 / 5);
+        }
+
+        private void promote(String key, Entry<V> entry, AtomicLong evictions) {
+            protection.put(key, entry);
+            if (protection.size() > protectedCapacity) {
+                Iterator<Map.Entry<String, Entry<V>>> eldest = protection.entrySet().iterator();
+                Map.Entry<String, Entry<V>> demoted = eldest.next();
+                eldest.remove();
+                probation.put(demoted.getKey(), demoted.getValue());
+            }
+            evict(evictions);
+        }
+
+        private void evict(AtomicLong evictions) {
+            while (probation.size() + protection.size() > capacity) {
+                Map<String, Entry<V>> victims = probation.isEmpty() ? protection : probation;
+                Iterator<String> eldest = victims.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+
+        private void remove(String key) {
+            if (probation.remove(key) == null) {
+                protection.remove(key);
+            }
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+
+        private boolean expired(long now) {
+            return expiresAt <= now;
+        }
+    }
+
+    public record Stats(long hits, long misses, long evictions, long expirations, long size) {
+
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0D : (double) hits / requests;
+        }
+    }
+
+    public record Options(long maxSize, long ttl) {
+
+        public Options {
+            if (maxSize <= 0) {
+                throw new IllegalArgumentException("maxSize must be > 0");
+            }
+        }
+
+        public static Options of(HyrinthBackendSettings settings) {
+            return new Options(settings.getStorageCacheMaxSize(), settings.getStorageCacheTtl());
+        }
+    }
+}
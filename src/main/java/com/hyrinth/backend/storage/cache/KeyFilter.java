@@ -0,0 +1,170 @@
+package com.hyrinth.backend.storage.cache;
+
+import com.hyrinth.backend.HyrinthBackendSettings;
+import com.hyrinth.backend.Main;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+public class KeyFilter {
+
+    private static final int MAX_NEGATIVE_ENTRIES = 10000;
+
+    private final String name;
+    private final Options options;
+    private final AtomicLongArray bits;
+    private final int hashes;
+    private final Map<String, Long> negatives = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile boolean ready;
+
+    public KeyFilter(String name, Options options) {
+        this.name = name;
+        this.options = options;
+        if (options.bloomFilter()) {
+            long size = Math.max(64L, (long) Math.ceil(-options.expectedKeys() * Math.log(options.falsePositiveRate()) / (Math.log(2) * Math.log(2))));
+            this.bits = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE, (size + 63) / 64));
+            this.hashes = (int) Math.max(1, Math.round((double) bits.length() * 64 / options.expectedKeys() * Math.log(2)));
+        } else {
+            this.bits = null;
+            this.hashes = 0;
+        }
+    }
+
+    public void rebuild(Supplier<Collection<String>> keys) {
+        if (bits == null) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                long started = System.currentTimeMillis();
+                Collection<String> loaded = keys.get();
+                loaded.forEach(this::set);
+                ready = true;
+                Main.getLogger().deb("[KeyFilter] Indexed " + loaded.size() + " " + name + " keys in " + (System.currentTimeMillis() - started) + "ms");
+            } catch (Exception e) {
+                Main.getLogger().err("[KeyFilter] Failed to index " + name + " keys, bloom filter stays disabled: " + e.getMessage());
+            }
+        }, "hyrinth-key-filter-" + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public boolean mightContain(String key) {
+        if (key == null) {
+            return false;
+        }
+        if (ready && !test(key)) {
+            return false;
+        }
+        if (options.negativeTtl() > 0) {
+            Long expiresAt = negatives.get(key);
+            if (expiresAt != null) {
+                if (expiresAt > System.currentTimeMillis()) {
+                    return false;
+                }
+                negatives.remove(key, expiresAt);
+            }
+        }
+        return true;
+    }
+
+    public long stamp() {
+        return version.get();
+    }
+
+    public void recordMiss(String key, long stamp) {
+        if (key == null || options.negativeTtl() <= 0 || version.get() != stamp) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (negatives.size() >= MAX_NEGATIVE_ENTRIES) {
+            negatives.values().removeIf(expiresAt -> expiresAt <= now);
+            if (negatives.size() >= MAX_NEGATIVE_ENTRIES) {
+                negatives.clear();
+            }
+        }
+        negatives.put(key, now + options.negativeTtl());
+    }
+
+    public void add(String key) {
+        if (key == null) {
+            return;
+        }
+        version.incrementAndGet();
+        if (bits != null) {
+            set(key);
+        }
+        negatives.remove(key);
+    }
+
+    public void clearMisses() {
+        version.incrementAndGet();
+        negatives.clear();
+    }
+
+    private void set(String key) {
+        long hash = hash(key);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        long size = (long) bits.length() * 64;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(first + (long) i * second, size);
+            long mask = 1L << (bit & 63);
+            bits.getAndUpdate((int) (bit >>> 6), word -> word | mask);
+        }
+    }
+
+    private boolean test(String key) {
+        long hash = hash(key);
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        long size = (long) bits.length() * 64;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(first + (long) i * second, size);
+            if ((bits.get((int) (bit >>> 6)) & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte value : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= value;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    public record Options(boolean bloomFilter, long expectedKeys, double falsePositiveRate, long negativeTtl) {
+
+        public Options {
+            expectedKeys = Math.max(1L, expectedKeys);
+            if (falsePositiveRate <= 0D || falsePositiveRate >= 1D) {
+                falsePositiveRate = 0.01D;
+            }
+        }
+
+        public static Options of(HyrinthBackendSettings settings) {
+            boolean enabled = settings.isStorageKeyFilter();
+            return new Options(
+                    enabled && settings.isStorageCacheBloomFilter(),
+                    settings.getStorageCacheBloomExpectedKeys(),
+                    0.01D,
+                    enabled ? settings.getStorageCacheNegativeTtl() : 0L
+            );
+        }
+    }
+}
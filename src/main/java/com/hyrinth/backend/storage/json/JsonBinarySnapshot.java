@@ -0,0 +1,457 @@
+package com.hyrinth.backend.storage.json;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.hyrinth.backend.Main;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+public final class JsonBinarySnapshot {
+
+    private static final int MAGIC = 0x48594233;
+    private static final int DIGEST_LENGTH = 32;
+    private static final int STAMP_OFFSET = 4;
+    private static final int DIGEST_OFFSET = STAMP_OFFSET + 8 * 3;
+    private static final int CHECKSUM_OFFSET = DIGEST_OFFSET + DIGEST_LENGTH;
+    private static final int HEADER_LENGTH = CHECKSUM_OFFSET + 8;
+    private static final int PARALLEL_THRESHOLD = 1024;
+    private static final boolean MAPPED = !System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("windows");
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte STRING = 6;
+    private static final byte ARRAY = 7;
+    private static final byte OBJECT = 8;
+    private static final byte NUMBER = 9;
+
+    private JsonBinarySnapshot() {
+    }
+
+    public static Path pathFor(Path source) {
+        return source.resolveSibling(source.getFileName() + ".bin");
+    }
+
+    public static JsonSnapshotReader.Result stream(Path source, String arrayKey, JsonSnapshotReader.Migration migration, Consumer<JSONObject> sink) {
+        Path path = pathFor(source);
+        try {
+            ByteBuffer buffer = content(path, source);
+            if (buffer == null) {
+                return null;
+            }
+            JSONObject root = new JSONObject();
+            boolean[] migrated = {false};
+            boolean found = decodeRoot(buffer, strings(buffer), arrayKey, root, false, entry -> {
+                migrated[0] |= migration.migrate(entry);
+                sink.accept(entry);
+            });
+            root.remove(arrayKey);
+            return new JsonSnapshotReader.Result(root, migrated[0] || !found);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (Exception e) {
+            Main.getLogger().err("[" + path.getFileName() + "] Ignoring unreadable binary snapshot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public static <R> boolean save(Path path, String arrayKey, Collection<R> records, Function<R, JSONObject> encoder) {
+        return write(path, new Stamp(0, 0, 0), new byte[DIGEST_LENGTH], new JSONObject(), arrayKey, records, encoder);
+    }
+
+    public static <R> boolean load(Path path, String arrayKey, Function<JSONObject, R> decoder, Consumer<R> sink) {
+        try {
+            ByteBuffer buffer = content(path, null);
+            if (buffer == null) {
+                return false;
+            }
+            return decodeRoot(buffer, strings(buffer), arrayKey, new JSONObject(), true, entry -> sink.accept(decoder.apply(entry)));
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (Exception e) {
+            Main.getLogger().err("[" + path.getFileName() + "] Ignoring unreadable binary snapshot: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public static boolean isCurrent(Path source) {
+        Path path = pathFor(source);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = header(channel);
+            return header != null && current(path, header, source);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public static <R> boolean write(Path source, JSONObject data, String arrayKey, Collection<R> records, Function<R, JSONObject> encoder) {
+        try {
+            return write(pathFor(source), Stamp.of(source), digest(source), data, arrayKey, records, encoder);
+        } catch (IOException e) {
+            Main.getLogger().err("[" + source.getFileName() + "] Failed to write binary snapshot: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static <R> boolean write(Path path, Stamp stamp, byte[] digest, JSONObject data, String arrayKey, Collection<R> records, Function<R, JSONObject> encoder) {
+        try {
+            Encoder out = new Encoder();
+            out.root(data, arrayKey, records, encoder);
+            ByteBuffer table = out.table();
+            ByteBuffer body = out.buffer.flip();
+            CRC32C checksum = new CRC32C();
+            checksum.update(table.duplicate());
+            checksum.update(body.duplicate());
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).putInt(MAGIC);
+            stamp.put(header);
+            header.put(digest).putLong(checksum.getValue()).flip();
+            JsonFileWriter.writeAtomically(path, header, table, body);
+            return true;
+        } catch (Exception e) {
+            Main.getLogger().err("[" + path.getFileName() + "] Failed to write binary snapshot: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static ByteBuffer content(Path path, Path source) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = header(channel);
+            long size = channel.size();
+            if (header == null || size > Integer.MAX_VALUE || source != null && !current(path, header, source)) {
+                return null;
+            }
+            if (MAPPED) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_LENGTH, size - HEADER_LENGTH);
+            } else {
+                buffer = ByteBuffer.allocate((int) (size - HEADER_LENGTH));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, HEADER_LENGTH + buffer.position()) < 0) {
+                        return null;
+                    }
+                }
+                buffer.flip();
+            }
+            CRC32C checksum = new CRC32C();
+            checksum.update(buffer.duplicate());
+            if (checksum.getValue() != header.getLong(CHECKSUM_OFFSET)) {
+                throw new IllegalStateException("checksum mismatch");
+            }
+        }
+        return buffer;
+    }
+
+    private static ByteBuffer header(FileChannel channel) throws IOException {
+        if (channel.size() < HEADER_LENGTH) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                return null;
+            }
+        }
+        return header.getInt(0) == MAGIC ? header : null;
+    }
+
+    private static boolean current(Path path, ByteBuffer header, Path source) throws IOException {
+        Stamp stamp = Stamp.of(source);
+        if (stamp.equals(Stamp.read(header))) {
+            return true;
+        }
+        if (stamp.size() != header.getLong(STAMP_OFFSET)) {
+            return false;
+        }
+        byte[] expected = new byte[DIGEST_LENGTH];
+        header.get(DIGEST_OFFSET, expected);
+        if (!MessageDigest.isEqual(expected, digest(source))) {
+            return false;
+        }
+        ByteBuffer refreshed = ByteBuffer.allocate(DIGEST_OFFSET - STAMP_OFFSET);
+        stamp.put(refreshed);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(refreshed.flip(), STAMP_OFFSET);
+        } catch (IOException ignored) {
+        }
+        return true;
+    }
+
+    private static byte[] digest(Path source) throws IOException {
+        MessageDigest digest = sha256();
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            while (channel.read(buffer) >= 0) {
+                digest.update(buffer.flip());
+                buffer.clear();
+            }
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String[] strings(ByteBuffer buffer) {
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    private static boolean decodeRoot(ByteBuffer buffer, String[] strings, String arrayKey, JSONObject root, boolean parallel, Consumer<JSONObject> sink) {
+        if (buffer.get() != OBJECT) {
+            throw new IllegalStateException("Expected an object root");
+        }
+        boolean found = false;
+        int size = buffer.getInt();
+        for (int i = 0; i < size; i++) {
+            String key = strings[buffer.getInt()];
+            if (!arrayKey.equals(key) || buffer.get(buffer.position()) != ARRAY) {
+                root.put(key, decode(buffer, strings));
+                continue;
+            }
+            found = true;
+            buffer.get();
+            int count = buffer.getInt();
+            if (parallel && count >= PARALLEL_THRESHOLD) {
+                int[] offsets = new int[count];
+                for (int j = 0; j < count; j++) {
+                    offsets[j] = buffer.position();
+                    buffer.position(offsets[j] + 4 + buffer.getInt(offsets[j]));
+                }
+                IntStream.range(0, count).parallel().forEach(j -> {
+                    if (element(buffer.duplicate().position(offsets[j]), strings) instanceof JSONObject entry) {
+                        sink.accept(entry);
+                    }
+                });
+                continue;
+            }
+            for (int j = 0; j < count; j++) {
+                if (element(buffer, strings) instanceof JSONObject entry) {
+                    sink.accept(entry);
+                }
+            }
+        }
+        return found;
+    }
+
+    private static Object element(ByteBuffer buffer, String[] strings) {
+        int length = buffer.getInt();
+        int end = buffer.position() + length;
+        Object value = decode(buffer, strings);
+        if (buffer.position() != end) {
+            throw new IllegalStateException("Corrupt record at offset " + (end - length));
+        }
+        return value;
+    }
+
+    private static Object decode(ByteBuffer buffer, String[] strings) {
+        byte tag = buffer.get();
+        return switch (tag) {
+            case NULL -> null;
+            case FALSE -> false;
+            case TRUE -> true;
+            case INT -> buffer.getInt();
+            case LONG -> buffer.getLong();
+            case DOUBLE -> buffer.getDouble();
+            case STRING -> strings[buffer.getInt()];
+            case NUMBER -> new BigDecimal(strings[buffer.getInt()]);
+            case ARRAY -> {
+                int size = buffer.getInt();
+                JSONArray array = new JSONArray(size);
+                for (int i = 0; i < size; i++) {
+                    array.add(element(buffer, strings));
+                }
+                yield array;
+            }
+            case OBJECT -> {
+                int size = buffer.getInt();
+                JSONObject object = new JSONObject(size);
+                for (int i = 0; i < size; i++) {
+                    String key = strings[buffer.getInt()];
+                    object.put(key, decode(buffer, strings));
+                }
+                yield object;
+            }
+            default -> throw new IllegalStateException("Unknown value tag " + tag);
+        };
+    }
+
+    private record Stamp(long size, long modified, long changed) {
+
+        private static Stamp of(Path source) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+            long changed = 0;
+            if (source.getFileSystem().supportedFileAttributeViews().contains("unix")) {
+                changed = ((FileTime) Files.getAttribute(source, "unix:ctime")).to(TimeUnit.NANOSECONDS);
+            }
+            return new Stamp(attributes.size(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS), changed);
+        }
+
+        private static Stamp read(ByteBuffer header) {
+            return new Stamp(header.getLong(STAMP_OFFSET), header.getLong(STAMP_OFFSET + 8), header.getLong(STAMP_OFFSET + 16));
+        }
+
+        private void put(ByteBuffer buffer) {
+            buffer.putLong(size).putLong(modified).putLong(changed);
+        }
+    }
+
+    private static final class Encoder {
+
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+        private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+        private void value(Object value) {
+            switch (value) {
+                case null -> put(NULL);
+                case Boolean bool -> put(bool ? TRUE : FALSE);
+                case Integer number -> {
+                    put(INT);
+                    ensure(4).putInt(number);
+                }
+                case Short number -> {
+                    put(INT);
+                    ensure(4).putInt(number);
+                }
+                case Byte number -> {
+                    put(INT);
+                    ensure(4).putInt(number);
+                }
+                case Long number -> {
+                    put(LONG);
+                    ensure(8).putLong(number);
+                }
+                case Double number -> {
+                    put(DOUBLE);
+                    ensure(8).putDouble(number);
+                }
+                case Float number -> {
+                    put(DOUBLE);
+                    ensure(8).putDouble(number);
+                }
+                case BigDecimal number -> {
+                    put(NUMBER);
+                    ensure(4).putInt(intern(number.toString()));
+                }
+                case BigInteger number -> {
+                    put(NUMBER);
+                    ensure(4).putInt(intern(number.toString()));
+                }
+                case Map<?, ?> map -> {
+                    put(OBJECT);
+                    ensure(4).putInt(map.size());
+                    for (Map.Entry<?, ?> entry : map.entrySet()) {
+                        ensure(4).putInt(intern(String.valueOf(entry.getKey())));
+                        value(entry.getValue());
+                    }
+                }
+                case List<?> list -> {
+                    put(ARRAY);
+                    ensure(4).putInt(list.size());
+                    for (Object element : list) {
+                        element(element);
+                    }
+                }
+                default -> {
+                    put(STRING);
+                    ensure(4).putInt(intern(value.toString()));
+                }
+            }
+        }
+
+        private <R> void root(JSONObject data, String arrayKey, Collection<R> records, Function<R, JSONObject> encoder) {
+            put(OBJECT);
+            ensure(4).putInt(data.size() + (data.containsKey(arrayKey) ? 0 : 1));
+            for (Map.Entry<String, Object> entry : data.entrySet()) {
+                if (!arrayKey.equals(entry.getKey())) {
+                    ensure(4).putInt(intern(entry.getKey()));
+                    value(entry.getValue());
+                }
+            }
+            ensure(4).putInt(intern(arrayKey));
+            put(ARRAY);
+            int countAt = ensure(4).position();
+            buffer.putInt(0);
+            int count = 0;
+            for (R record : records) {
+                element(encoder.apply(record));
+                count++;
+            }
+            buffer.putInt(countAt, count);
+        }
+
+        private void element(Object value) {
+            int start = ensure(4).position();
+            buffer.putInt(0);
+            value(value);
+            buffer.putInt(start, buffer.position() - start - 4);
+        }
+
+        private ByteBuffer table() {
+            List<byte[]> encoded = new ArrayList<>(strings.size());
+            int size = 4;
+            for (String value : strings.keySet()) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                encoded.add(bytes);
+                size += 4 + bytes.length;
+            }
+            ByteBuffer table = ByteBuffer.allocate(size).putInt(encoded.size());
+            for (byte[] bytes : encoded) {
+                table.putInt(bytes.length).put(bytes);
+            }
+            return table.flip();
+        }
+
+        private int intern(String value) {
+            return strings.computeIfAbsent(value, key -> strings.size());
+        }
+
+        private void put(byte tag) {
+            ensure(1).put(tag);
+        }
+
+        private ByteBuffer ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                grown.put(buffer.flip());
+                buffer = grown;
+            }
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.hyrinth.backend.storage.json;
+
+import com.hyrinth.backend.HyrinthBackendSettings;
+
+public record JsonFileOptions(JsonJournal.Options journal, long commitWindow, boolean binarySnapshots) {
+
+    public static final JsonFileOptions DEFAULT = new JsonFileOptions(JsonJournal.Options.DISABLED, 0L, false);
+
+    public static JsonFileOptions of(HyrinthBackendSettings settings) {
+        return new JsonFileOptions(
+                JsonJournal.Options.of(settings),
+                settings.getJsonCommitWindow(),
+                settings.isJsonBinarySnapshots()
+        );
+    }
+}
@@ -0,0 +1,169 @@
+package com.hyrinth.backend.storage.json;
+
+import com.hyrinth.backend.Main;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class JsonFileWriter implements AutoCloseable {
+
+    private static final boolean DIRECTORY_SYNC = !System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("windows");
+
+    private final Path target;
+    private final long window;
+    private final Snapshot snapshot;
+    private final ScheduledExecutorService executor;
+    private CompletableFuture<Boolean> batch;
+    private boolean writing;
+
+    public JsonFileWriter(Path target, long window, Snapshot snapshot) {
+        this.target = target;
+        this.window = window;
+        this.snapshot = snapshot;
+        this.executor = window > 0 ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hyrinth-json-writer-" + target.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    public CompletableFuture<Boolean> requestFlush() {
+        if (executor == null) {
+            return CompletableFuture.completedFuture(write());
+        }
+        synchronized (this) {
+            if (batch == null) {
+                batch = new CompletableFuture<>();
+                try {
+                    executor.schedule(this::flush, window, TimeUnit.MILLISECONDS);
+                } catch (Exception e) {
+                    CompletableFuture<Boolean> rejected = batch;
+                    batch = null;
+                    rejected.complete(write());
+                    return rejected;
+                }
+            }
+            return batch;
+        }
+    }
+
+    public boolean flushAndWait(Object monitor) throws InterruptedException {
+        CompletableFuture<Boolean> flushed = requestFlush();
+        if (!flushed.isDone()) {
+            flushed.whenComplete((written, error) -> {
+                synchronized (monitor) {
+                    monitor.notifyAll();
+                }
+            });
+            while (!flushed.isDone()) {
+                monitor.wait();
+            }
+        }
+        return flushed.join();
+    }
+
+    public synchronized boolean hasPendingWrites() {
+        return batch != null || writing;
+    }
+
+    @Override
+    public void close() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                Main.getLogger().err("[" + target.getFileName() + "] Timed out waiting for pending writes.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void writeAtomically(Path target, String content) throws IOException {
+        writeAtomically(target, ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public static void writeAtomically(Path target, ByteBuffer... content) throws IOException {
+        publish(stage(target, content), target);
+    }
+
+    public static Path stage(Path target, String content) throws IOException {
+        return stage(target, ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public static Path stage(Path target, ByteBuffer... content) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (ByteBuffer buffer : content) {
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+            }
+            out.force(true);
+        }
+        return temp;
+    }
+
+    public static void publish(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(target.toAbsolutePath().getParent());
+    }
+
+    private static void syncDirectory(Path directory) throws IOException {
+        if (directory == null || !DIRECTORY_SYNC) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private void flush() {
+        CompletableFuture<Boolean> current;
+        synchronized (this) {
+            current = batch;
+            batch = null;
+            writing = current != null;
+        }
+        if (current == null) {
+            return;
+        }
+        boolean written = write();
+        synchronized (this) {
+            writing = false;
+        }
+        current.complete(written);
+    }
+
+    private boolean write() {
+        try {
+            writeAtomically(target, snapshot.serialize());
+            return true;
+        } catch (Exception e) {
+            Main.getLogger().err("[" + target.getFileName() + "] Failed to write storage file: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public interface Snapshot {
+        String serialize() throws Exception;
+    }
+}
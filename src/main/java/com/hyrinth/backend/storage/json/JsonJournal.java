@@ -0,0 +1,269 @@
+package com.hyrinth.backend.storage.json;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.hyrinth.backend.HyrinthBackendSettings;
+import com.hyrinth.backend.Main;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class JsonJournal implements AutoCloseable {
+
+    private static final long COMPACTION_CHECK_INTERVAL = 1000L;
+
+    private final Path path;
+    private final Path rotated;
+    private final Options options;
+    private final Runnable compactor;
+    private final ScheduledExecutorService scheduler;
+    private FileChannel channel;
+    private int entries;
+    private int rotatedEntries;
+    private boolean unsynced;
+    private boolean closed;
+
+    public JsonJournal(Path snapshotPath, Options options, Runnable compactor) throws IOException {
+        this.path = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".journal");
+        this.rotated = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".journal.old");
+        this.options = options;
+        this.compactor = compactor;
+        Files.createDirectories(path.getParent());
+        this.channel = open(path);
+        String name = "hyrinth-json-journal-" + snapshotPath.getFileName();
+        this.scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (options.syncInterval() > 0) {
+            scheduler.scheduleWithFixedDelay(this::sync, options.syncInterval(), options.syncInterval(), TimeUnit.MILLISECONDS);
+        }
+        if (options.compactAfter() > 0) {
+            scheduler.scheduleWithFixedDelay(this::compact, COMPACTION_CHECK_INTERVAL, COMPACTION_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized List<Change> read() throws IOException {
+        List<Change> changes = new ArrayList<>();
+        rotatedEntries = 0;
+        if (Files.exists(rotated)) {
+            try (FileChannel old = FileChannel.open(rotated, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                rotatedEntries = read(old, rotated, changes);
+            }
+        }
+        entries = read(channel, path, changes);
+        return changes;
+    }
+
+    private int read(FileChannel channel, Path path, List<Change> changes) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Journal too large to replay: " + path);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        channel.position(0);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        byte[] bytes = buffer.array();
+        int count = 0;
+        int start = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+            String line = new String(bytes, start, i - start, StandardCharsets.UTF_8);
+            start = i + 1;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                JSONObject entry = JSONObject.parseObject(line);
+                changes.add(new Change(entry.getString("k"), entry.getJSONObject("v")));
+                count++;
+            } catch (Exception e) {
+                Main.getLogger().err("[" + path.getFileName() + "] Skipping malformed journal entry: " + e.getMessage());
+            }
+        }
+        if (start < bytes.length) {
+            Main.getLogger().err("[" + path.getFileName() + "] Discarding incomplete journal entry (" + (bytes.length - start) + " bytes).");
+            channel.truncate(start);
+        }
+        channel.position(start);
+        return count;
+    }
+
+    public synchronized void append(Collection<Change> changes) throws IOException {
+        if (changes.isEmpty()) {
+            return;
+        }
+        if (closed) {
+            throw new IOException("Journal is closed: " + path);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Change change : changes) {
+            JSONObject entry = new JSONObject();
+            entry.put("k", change.key());
+            if (change.value() != null) {
+                entry.put("v", change.value());
+            }
+            out.write(entry.toJSONString().getBytes(StandardCharsets.UTF_8));
+            out.write('\n');
+        }
+        long start = channel.position();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (options.syncInterval() <= 0) {
+                channel.force(false);
+            } else {
+                unsynced = true;
+            }
+        } catch (IOException e) {
+            try {
+                channel.truncate(start);
+                channel.position(start);
+            } catch (IOException ignore) {}
+            throw e;
+        }
+        entries += changes.size();
+    }
+
+    public synchronized void reset() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(false);
+        Files.deleteIfExists(rotated);
+        entries = 0;
+        rotatedEntries = 0;
+        unsynced = false;
+    }
+
+    public synchronized void rotate() throws IOException {
+        if (closed) {
+            throw new IOException("Journal is closed: " + path);
+        }
+        channel.force(false);
+        unsynced = false;
+        if (Files.exists(rotated)) {
+            try (FileChannel old = FileChannel.open(rotated, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                long position = 0;
+                while (position < channel.size()) {
+                    position += channel.transferTo(position, channel.size() - position, old);
+                }
+                old.force(false);
+            }
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(false);
+        } else {
+            channel.close();
+            try {
+                JsonFileWriter.publish(path, rotated);
+            } finally {
+                channel = open(path);
+            }
+        }
+        rotatedEntries += entries;
+        entries = 0;
+    }
+
+    public synchronized void release() throws IOException {
+        Files.deleteIfExists(rotated);
+        rotatedEntries = 0;
+    }
+
+    public synchronized int entries() {
+        return entries + rotatedEntries;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(30, TimeUnit.SECONDS)) {
+                Main.getLogger().err("[" + path.getFileName() + "] Journal compaction did not finish before close.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                channel.force(false);
+                channel.close();
+            } catch (IOException e) {
+                Main.getLogger().err("[" + path.getFileName() + "] Can't close journal: " + e.getMessage());
+            }
+        }
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        return channel;
+    }
+
+    private void sync() {
+        try {
+            synchronized (this) {
+                if (closed || !unsynced) {
+                    return;
+                }
+                unsynced = false;
+                channel.force(false);
+            }
+        } catch (Exception e) {
+            Main.getLogger().err("[" + path.getFileName() + "] Journal sync failed: " + e.getMessage());
+        }
+    }
+
+    private void compact() {
+        try {
+            if (entries() >= options.compactAfter()) {
+                compactor.run();
+            }
+        } catch (Exception e) {
+            Main.getLogger().err("[" + path.getFileName() + "] Journal compaction failed: " + e.getMessage());
+        }
+    }
+
+    public record Change(String key, JSONObject value) {
+    }
+
+    public record Options(boolean enabled, long syncInterval, int compactAfter) {
+
+        public static final Options DISABLED = new Options(false, 0, 0);
+
+        public static Options of(HyrinthBackendSettings settings) {
+            return new Options(
+                    settings.isJsonJournal(),
+                    settings.getJsonJournalSyncInterval(),
+                    settings.getJsonJournalCompactAfter()
+            );
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.hyrinth.backend.storage.json;
+
+import com.alibaba.fastjson2.JSONException;
+import com.alibaba.fastjson2.JSONObject;
+import com.alibaba.fastjson2.JSONReader;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+public final class JsonSnapshotReader {
+
+    private JsonSnapshotReader() {
+    }
+
+    public static Result stream(Path source, String arrayKey, boolean binary, Migration migration, Consumer<JSONObject> sink) throws IOException {
+        if (binary) {
+            Result cached = JsonBinarySnapshot.stream(source, arrayKey, migration, sink);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(source));
+             JSONReader reader = JSONReader.of(in, StandardCharsets.UTF_8)) {
+            JSONObject root = new JSONObject();
+            if (reader.isEnd() || reader.nextIfNull()) {
+                return new Result(root, true);
+            }
+            if (!reader.nextIfObjectStart()) {
+                throw new JSONException("Expected a JSON object in " + source);
+            }
+            boolean found = false;
+            boolean migrated = false;
+            while (!reader.nextIfObjectEnd()) {
+                String name = reader.readFieldName();
+                if (!arrayKey.equals(name) || !reader.nextIfArrayStart()) {
+                    root.put(name, reader.readAny());
+                    continue;
+                }
+                found = true;
+                while (!reader.nextIfArrayEnd()) {
+                    if (reader.readAny() instanceof JSONObject entry) {
+                        migrated |= migration.migrate(entry);
+                        sink.accept(entry);
+                    }
+                }
+            }
+            root.remove(arrayKey);
+            return new Result(root, migrated || !found);
+        }
+    }
+
+    public interface Migration {
+        boolean migrate(JSONObject entry);
+    }
+
+    public record Result(JSONObject data, boolean migrated) {
+    }
+}
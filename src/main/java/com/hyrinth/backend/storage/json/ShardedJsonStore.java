@@ -0,0 +1,339 @@
+package com.hyrinth.backend.storage.json;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.hyrinth.backend.Main;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+public class ShardedJsonStore<R> {
+
+    private final Path directory;
+    private final String arrayKey;
+    private final Codec<R> codec;
+    private final Listener<R> listener;
+    private final List<Shard<R>> shards;
+
+    public ShardedJsonStore(Path directory, int shardCount, String arrayKey, Codec<R> codec, Listener<R> listener) {
+        this.directory = directory;
+        this.arrayKey = arrayKey;
+        this.codec = codec;
+        this.listener = listener;
+        List<Shard<R>> created = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, shardCount); i++) {
+            created.add(new Shard<>(directory.resolve(String.format("shard-%03d.json", i))));
+        }
+        this.shards = List.copyOf(created);
+        try {
+            load();
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to load sharded storage: " + directory, e);
+        }
+    }
+
+    public Optional<R> get(String key) {
+        if (key == null) {
+            return Optional.empty();
+        }
+        Shard<R> shard = shardFor(key);
+        shard.lock.lock();
+        try {
+            return Optional.ofNullable(shard.records.get(key));
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    public boolean contains(String key) {
+        return get(key).isPresent();
+    }
+
+    public boolean insert(R record) {
+        return insertAll(List.of(record));
+    }
+
+    public boolean insertAll(Collection<R> records) {
+        return commit(toChanges(records), Expect.ABSENT);
+    }
+
+    public boolean put(R record) {
+        return commit(toChanges(List.of(record)), Expect.ANY);
+    }
+
+    public boolean replace(R record) {
+        return replaceAll(List.of(record));
+    }
+
+    public boolean replaceAll(Collection<R> records) {
+        return commit(toChanges(records), Expect.PRESENT);
+    }
+
+    public boolean remove(String key) {
+        return removeAll(List.of(key));
+    }
+
+    public boolean removeAll(Collection<String> keys) {
+        Map<String, R> changes = new LinkedHashMap<>();
+        for (String key : keys) {
+            if (key == null) {
+                return false;
+            }
+            changes.put(key, null);
+        }
+        return commit(changes, Expect.PRESENT);
+    }
+
+    public boolean update(String key, UnaryOperator<R> change) {
+        if (key == null) {
+            return false;
+        }
+        Shard<R> shard = shardFor(key);
+        shard.lock.lock();
+        try {
+            R current = shard.records.get(key);
+            if (current == null) {
+                return false;
+            }
+            Map<String, R> changes = new LinkedHashMap<>();
+            changes.put(key, change.apply(current));
+            return commit(changes, Expect.PRESENT);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    public List<String> keys() {
+        List<String> keys = new ArrayList<>();
+        for (Shard<R> shard : shards) {
+            shard.lock.lock();
+            try {
+                keys.addAll(shard.records.keySet());
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return keys;
+    }
+
+    public long size() {
+        long size = 0;
+        for (Shard<R> shard : shards) {
+            shard.lock.lock();
+            try {
+                size += shard.records.size();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private Map<String, R> toChanges(Collection<R> records) {
+        Map<String, R> changes = new LinkedHashMap<>();
+        for (R record : records) {
+            String key = record == null ? null : codec.key().apply(record);
+            if (key == null || key.isBlank() || changes.put(key, record) != null) {
+                return null;
+            }
+        }
+        return changes;
+    }
+
+    private boolean commit(Map<String, R> changes, Expect expect) {
+        if (changes == null) {
+            return false;
+        }
+        if (changes.isEmpty()) {
+            return true;
+        }
+        TreeMap<Integer, Map<String, R>> byShard = new TreeMap<>();
+        changes.forEach((key, record) -> byShard.computeIfAbsent(shardIndex(key), index -> new LinkedHashMap<>()).put(key, record));
+        List<Shard<R>> locked = new ArrayList<>();
+        try {
+            for (int index : byShard.keySet()) {
+                Shard<R> shard = shards.get(index);
+                shard.lock.lock();
+                locked.add(shard);
+            }
+            for (Map.Entry<Integer, Map<String, R>> entry : byShard.entrySet()) {
+                Shard<R> shard = shards.get(entry.getKey());
+                for (String key : entry.getValue().keySet()) {
+                    boolean present = shard.records.containsKey(key);
+                    if (expect == Expect.ABSENT && present || expect == Expect.PRESENT && !present) {
+                        return false;
+                    }
+                }
+            }
+            Map<Shard<R>, Map<String, R>> previous = new LinkedHashMap<>();
+            byShard.forEach((index, records) -> {
+                Shard<R> shard = shards.get(index);
+                Map<String, R> undo = new LinkedHashMap<>();
+                records.forEach((key, record) -> undo.put(key, record == null ? shard.records.remove(key) : shard.records.put(key, record)));
+                previous.put(shard, undo);
+            });
+            if (!persist(previous)) {
+                return false;
+            }
+            previous.forEach((shard, undo) -> undo.forEach((key, record) -> listener.changed(record, shard.records.get(key))));
+            return true;
+        } finally {
+            for (Shard<R> shard : locked) {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    private boolean persist(Map<Shard<R>, Map<String, R>> previous) {
+        Map<Shard<R>, Path> staged = new LinkedHashMap<>();
+        List<Shard<R>> published = new ArrayList<>();
+        try {
+            for (Shard<R> shard : previous.keySet()) {
+                staged.put(shard, JsonFileWriter.stage(shard.file, encode(shard)));
+            }
+            for (Map.Entry<Shard<R>, Path> entry : staged.entrySet()) {
+                JsonFileWriter.publish(entry.getValue(), entry.getKey().file);
+                published.add(entry.getKey());
+            }
+            return true;
+        } catch (Exception e) {
+            Main.getLogger().err("[" + directory.getFileName() + "] Failed to write shards, rolling back: " + e.getMessage());
+            staged.forEach((shard, temp) -> {
+                if (!published.contains(shard)) {
+                    try {
+                        Files.deleteIfExists(temp);
+                    } catch (IOException ignored) {
+                    }
+                }
+            });
+            previous.forEach((shard, undo) -> undo.forEach((key, record) -> {
+                if (record == null) {
+                    shard.records.remove(key);
+                } else {
+                    shard.records.put(key, record);
+                }
+            }));
+            published.forEach(this::write);
+            return false;
+        }
+    }
+
+    private boolean write(Shard<R> shard) {
+        try {
+            JsonFileWriter.writeAtomically(shard.file, encode(shard));
+            return true;
+        } catch (Exception e) {
+            Main.getLogger().err("[" + shard.file.getFileName() + "] Failed to write shard: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private String encode(Shard<R> shard) {
+        JSONArray entries = new JSONArray(shard.records.size());
+        shard.records.values().forEach(record -> entries.add(codec.encoder().apply(record)));
+        JSONObject root = new JSONObject();
+        root.put(arrayKey, entries);
+        return root.toJSONString();
+    }
+
+    private void load() throws IOException {
+        Files.createDirectories(directory);
+        Set<Path> known = new HashSet<>();
+        shards.forEach(shard -> known.add(shard.file));
+        Set<Shard<R>> dirty = new HashSet<>();
+        List<Path> stale = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "shard-*.json")) {
+            for (Path file : files) {
+                Shard<R> owner = shards.stream().filter(shard -> shard.file.equals(file)).findFirst().orElse(null);
+                if (owner == null) {
+                    stale.add(file);
+                }
+                JsonSnapshotReader.Result result = JsonSnapshotReader.stream(file, arrayKey, false, codec.migration(), json -> {
+                    R record = codec.decoder().apply(json);
+                    String key = codec.key().apply(record);
+                    if (key == null) {
+                        return;
+                    }
+                    Shard<R> shard = shardFor(key);
+                    if (shard == owner) {
+                        shard.records.put(key, record);
+                        return;
+                    }
+                    shard.records.putIfAbsent(key, record);
+                    dirty.add(shard);
+                    if (owner != null) {
+                        dirty.add(owner);
+                    }
+                });
+                if (result.migrated() && owner != null) {
+                    dirty.add(owner);
+                }
+            }
+        }
+        if (!stale.isEmpty()) {
+            dirty.addAll(shards);
+        }
+        for (Shard<R> shard : dirty) {
+            if (!write(shard)) {
+                throw new IOException("Failed to rewrite shard " + shard.file);
+            }
+        }
+        for (Path file : stale) {
+            Files.deleteIfExists(file);
+        }
+        for (Shard<R> shard : shards) {
+            shard.records.values().forEach(record -> listener.changed(null, record));
+        }
+    }
+
+    private Shard<R> shardFor(String key) {
+        return shards.get(shardIndex(key));
+    }
+
+    private int shardIndex(String key) {
+        return Math.floorMod(key.hashCode(), shards.size());
+    }
+
+    private enum Expect {
+        ABSENT,
+        PRESENT,
+        ANY
+    }
+
+    private static final class Shard<R> {
+
+        private final Path file;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, R> records = new LinkedHashMap<>();
+
+        private Shard(Path file) {
+            this.file = file;
+        }
+    }
+
+    public interface Listener<R> {
+        void changed(R previous, R current);
+    }
+
+    public record Codec<R>(
+            Function<R, String> key,
+            Function<JSONObject, R> decoder,
+            Function<R, JSONObject> encoder,
+            JsonSnapshotReader.Migration migration
+    ) {
+    }
+}
@@ -0,0 +1,216 @@
+package com.hyrinth.backend.storage.project;
+
+import com.hyrinth.backend.storage.PageCursor;
+import com.hyrinth.backend.storage.TransactionalStorage;
+import com.hyrinth.backend.storage.UnitOfWork;
+import com.hyrinth.backend.storage.cache.EntityCache;
+import com.hyrinth.backend.storage.cache.KeyFilter;
+import com.hyrinth.backend.storage.cache.SingleFlight;
+import com.hyrinth.backend.storage.sql.SqlConnectionRouter;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+public class CachingProjectStorage implements ProjectStorage, TransactionalStorage, AutoCloseable {
+
+    private final ProjectStorage delegate;
+    private final EntityCache<ProjectRecord> cache;
+    private final KeyFilter keys;
+    private final SingleFlight<Optional<ProjectRecord>> lookups = new SingleFlight<>();
+    private final SingleFlight<List<ProjectRecord>> pages = new SingleFlight<>();
+    private final ThreadLocal<Set<String>> uncommitted = ThreadLocal.withInitial(LinkedHashSet::new);
+    private final SqlConnectionRouter router;
+
+    public CachingProjectStorage(ProjectStorage delegate, EntityCache.Options options, KeyFilter.Options keyOptions, SqlConnectionRouter router) {
+        this.delegate = delegate;
+        this.router = router;
+        this.cache = options == null ? null : new EntityCache<>(options);
+        this.keys = new KeyFilter("projects", keyOptions);
+        keys.rebuild(delegate::findAllSlugs);
+        if (router != null) {
+            router.addTransactionListener(this::committed);
+        }
+    }
+
+    public EntityCache.Stats getStats() {
+        return cache == null ? null : cache.stats();
+    }
+
+    @Override
+    public Optional<ProjectRecord> findBySlug(String slug) {
+        if (!keys.mightContain(slug)) {
+            return Optional.empty();
+        }
+        if (inTransaction()) {
+            return delegate.findBySlug(slug);
+        }
+        long stamp = keys.stamp();
+        Optional<ProjectRecord> found = cache == null
+                ? lookups.load(slug, () -> delegate.findBySlug(slug))
+                : cache.get(slug, key -> lookups.load(key, () -> delegate.findBySlug(key)));
+        if (found.isEmpty()) {
+            keys.recordMiss(slug, stamp);
+        }
+        return found;
+    }
+
+    @Override
+    public List<ProjectRecord> findBySlugs(List<String> slugs) {
+        if (inTransaction()) {
+            return delegate.findBySlugs(slugs);
+        }
+        List<String> candidates = slugs.stream().filter(keys::mightContain).toList();
+        return cache == null ? delegate.findBySlugs(candidates) : cache.getAll(candidates, ProjectRecord::slug, delegate::findBySlugs);
+    }
+
+    @Override
+    public List<ProjectRecord> findPage(int limit, int offset) {
+        if (inTransaction()) {
+            return delegate.findPage(limit, offset);
+        }
+        return pages.load("page:" + limit + ":" + offset, () -> delegate.findPage(limit, offset));
+    }
+
+    @Override
+    public List<ProjectRecord> findPageAfter(PageCursor cursor, int limit) {
+        if (inTransaction()) {
+            return delegate.findPageAfter(cursor, limit);
+        }
+        return pages.load("after:" + cursor + ":" + limit, () -> delegate.findPageAfter(cursor, limit));
+    }
+
+    @Override
+    public List<String> findAllSlugs() {
+        return delegate.findAllSlugs();
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public long countByOwner(String ownerId) {
+        return delegate.countByOwner(ownerId);
+    }
+
+    @Override
+    public long countByStatus(String status) {
+        return delegate.countByStatus(status);
+    }
+
+    @Override
+    public boolean create(ProjectRecord record) {
+        try {
+            return delegate.create(record);
+        } finally {
+            invalidate(record == null ? null : record.slug());
+            keys.add(record == null ? null : record.slug());
+        }
+    }
+
+    @Override
+    public boolean update(ProjectRecord record) {
+        try {
+            return delegate.update(record);
+        } finally {
+            invalidate(record == null ? null : record.slug());
+        }
+    }
+
+    @Override
+    public boolean delete(String slug) {
+        try {
+            return delegate.delete(slug);
+        } finally {
+            invalidate(slug);
+        }
+    }
+
+    @Override
+    public boolean createAll(List<ProjectRecord> records) {
+        try {
+            return delegate.createAll(records);
+        } finally {
+            records.forEach(record -> {
+                invalidate(record == null ? null : record.slug());
+                keys.add(record == null ? null : record.slug());
+            });
+        }
+    }
+
+    @Override
+    public boolean updateAll(List<ProjectRecord> records) {
+        try {
+            return delegate.updateAll(records);
+        } finally {
+            records.forEach(record -> invalidate(record == null ? null : record.slug()));
+        }
+    }
+
+    @Override
+    public boolean deleteAll(List<String> slugs) {
+        try {
+            return delegate.deleteAll(slugs);
+        } finally {
+            slugs.forEach(this::invalidate);
+        }
+    }
+
+    @Override
+    public void runInTransaction(UnitOfWork work) throws Exception {
+        try {
+            if (delegate instanceof TransactionalStorage storage) {
+                storage.runInTransaction(work);
+            } else {
+                work.run();
+            }
+        } catch (Exception e) {
+            lookups.forgetAll();
+            pages.forgetAll();
+            if (cache != null) {
+                cache.invalidateAll();
+            }
+            throw e;
+        } finally {
+            keys.clearMisses();
+        }
+    }
+
+    private void invalidate(String slug) {
+        lookups.forget(slug);
+        pages.forgetAll();
+        if (cache != null) {
+            cache.invalidate(slug);
+        }
+        if (inTransaction() && slug != null) {
+            uncommitted.get().add(slug);
+        }
+    }
+
+    private void committed() {
+        Set<String> touched = uncommitted.get();
+        if (touched.isEmpty()) {
+            return;
+        }
+        uncommitted.remove();
+        touched.forEach(this::invalidate);
+        keys.clearMisses();
+    }
+
+    private boolean inTransaction() {
+        return router != null && router.inTransaction();
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
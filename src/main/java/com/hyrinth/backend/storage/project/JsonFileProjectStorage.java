@@ -2,37 +2,78 @@ package com.hyrinth.backend.storage.project;
 
 import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
+import com.hyrinth.backend.Main;
+import com.hyrinth.backend.storage.PageCursor;
+import com.hyrinth.backend.storage.TransactionalStorage;
+import com.hyrinth.backend.storage.UnitOfWork;
+import com.hyrinth.backend.storage.json.JsonBinarySnapshot;
+import com.hyrinth.backend.storage.json.JsonFileOptions;
+import com.hyrinth.backend.storage.json.JsonFileWriter;
+import com.hyrinth.backend.storage.json.JsonJournal;
+import com.hyrinth.backend.storage.json.JsonSnapshotReader;
 
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 
-public class JsonFileProjectStorage implements ProjectStorage {
+public class JsonFileProjectStorage implements ProjectStorage, TransactionalStorage, AutoCloseable {
 
     private static final String PROJECTS_KEY = "projects";
 
     private final Path filePath;
     private final Object lock = new Object();
+    private final Object snapshotLock = new Object();
+    private final Map<String, ProjectRecord> projects = new LinkedHashMap<>();
+    private final NavigableMap<PageCursor, ProjectRecord> pageIndex = new TreeMap<>();
+    private final Map<String, Long> tallies = new HashMap<>();
+    private final Map<String, JSONObject> pending = new LinkedHashMap<>();
+    private final JsonJournal journal;
+    private final JsonFileWriter writer;
+    private final boolean binarySnapshots;
     private JSONObject data;
+    private boolean deferSaves;
+    private boolean dirty;
 
     public JsonFileProjectStorage(Path filePath) {
+        this(filePath, JsonFileOptions.DEFAULT);
+    }
+
+    public JsonFileProjectStorage(Path filePath, JsonFileOptions options) {
         this.filePath = filePath;
+        this.binarySnapshots = options.binarySnapshots();
+        this.writer = new JsonFileWriter(filePath, options.journal().enabled() ? 0L : options.commitWindow(), this::serialize);
+        try {
+            this.journal = options.journal().enabled() ? new JsonJournal(filePath, options.journal(), this::compact) : null;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to open project storage journal: " + filePath, e);
+        }
         loadOrCreate();
     }
 
     @Override
     public Optional<ProjectRecord> findBySlug(String slug) {
         synchronized (lock) {
-            return projectsArray().stream()
-                    .filter(JSONObject.class::isInstance)
-                    .map(JSONObject.class::cast)
-                    .map(this::toRecord)
-                    .filter(record -> record.slug().equals(slug))
-                    .findFirst();
+            return Optional.ofNullable(projects.get(slug));
+        }
+    }
+
+    @Override
+    public List<ProjectRecord> findBySlugs(List<String> slugs) {
+        synchronized (lock) {
+            Set<String> targets = new LinkedHashSet<>(slugs);
+            targets.remove(null);
+            return targets.stream().map(projects::get).filter(Objects::nonNull).toList();
         }
     }
 
@@ -42,19 +83,50 @@ public class JsonFileProjectStorage implements ProjectStorage {
             if (limit <= 0 || offset < 0) {
                 return List.of();
             }
-            List<ProjectRecord> records = new ArrayList<>();
-            for (Object entry : projectsArray()) {
-                if (entry instanceof JSONObject project) {
-                    records.add(toRecord(project));
-                }
-            }
-            records.sort(Comparator.comparingLong(ProjectRecord::createdAt)
-                    .thenComparing(ProjectRecord::slug));
-            if (offset >= records.size()) {
+            return pageIndex.values().stream()
+                    .skip(offset)
+                    .limit(limit)
+                    .toList();
+        }
+    }
+
+    @Override
+    public List<ProjectRecord> findPageAfter(PageCursor cursor, int limit) {
+        synchronized (lock) {
+            if (limit <= 0) {
                 return List.of();
             }
-            int toIndex = Math.min(records.size(), offset + limit);
-            return records.subList(offset, toIndex);
+            return (cursor == null ? pageIndex : pageIndex.tailMap(cursor, false)).values().stream()
+                    .limit(limit)
+                    .toList();
+        }
+    }
+
+    @Override
+    public List<String> findAllSlugs() {
+        synchronized (lock) {
+            return List.copyOf(projects.keySet());
+        }
+    }
+
+    @Override
+    public long count() {
+        synchronized (lock) {
+            return projects.size();
+        }
+    }
+
+    @Override
+    public long countByOwner(String ownerId) {
+        synchronized (lock) {
+            return tallies.getOrDefault("owner:" + ownerId, 0L);
+        }
+    }
+
+    @Override
+    public long countByStatus(String status) {
+        synchronized (lock) {
+            return tallies.getOrDefault("status:" + status, 0L);
         }
     }
 
@@ -64,10 +136,10 @@ public class JsonFileProjectStorage implements ProjectStorage {
             if (record == null || record.slug() == null || record.slug().isBlank()) {
                 return false;
             }
-            if (findBySlug(record.slug()).isPresent()) {
+            if (projects.containsKey(record.slug())) {
                 return false;
             }
-            projectsArray().add(fromRecord(record));
+            put(track(record.slug(), record));
             return save();
         }
     }
@@ -78,212 +150,410 @@ public class JsonFileProjectStorage implements ProjectStorage {
             if (record == null || record.slug() == null || record.slug().isBlank()) {
                 return false;
             }
-            JSONArray projects = projectsArray();
-            for (int i = 0; i < projects.size(); i++) {
-                Object entry = projects.get(i);
-                if (entry instanceof JSONObject project) {
-                    if (record.slug().equals(project.getString("slug"))) {
-                        projects.set(i, fromRecord(record));
-                        return save();
-                    }
-                }
+            if (!projects.containsKey(record.slug())) {
+                return false;
             }
-            return false;
+            put(track(record.slug(), record));
+            return save();
         }
     }
 
     @Override
     public boolean delete(String slug) {
         synchronized (lock) {
-            JSONArray projects = projectsArray();
-            for (int i = 0; i < projects.size(); i++) {
-                Object entry = projects.get(i);
-                if (entry instanceof JSONObject project) {
-                    if (slug.equals(project.getString("slug"))) {
-                        projects.remove(i);
-                        return save();
-                    }
+            if (remove(slug) == null) {
+                return false;
+            }
+            track(slug, null);
+            return save();
+        }
+    }
+
+    @Override
+    public boolean createAll(List<ProjectRecord> records) {
+        synchronized (lock) {
+            Set<String> keys = new HashSet<>();
+            for (ProjectRecord record : records) {
+                if (record == null || record.slug() == null || record.slug().isBlank()
+                        || !keys.add(record.slug()) || projects.containsKey(record.slug())) {
+                    return false;
                 }
             }
-            return false;
+            records.forEach(record -> put(track(record.slug(), record)));
+            return save();
         }
     }
 
-    private void loadOrCreate() {
+    @Override
+    public boolean updateAll(List<ProjectRecord> records) {
         synchronized (lock) {
-            try {
-                if (Files.notExists(filePath)) {
-                    Files.createDirectories(filePath.getParent());
-                    data = new JSONObject();
-                    data.put(PROJECTS_KEY, new JSONArray());
-                    save();
-                    return;
+            for (ProjectRecord record : records) {
+                if (record == null || !projects.containsKey(record.slug())) {
+                    return false;
                 }
-                String raw = Files.readString(filePath, StandardCharsets.UTF_8);
-                data = JSONObject.parseObject(raw);
-                if (data == null) {
-                    data = new JSONObject();
+            }
+            records.forEach(record -> put(track(record.slug(), record)));
+            return save();
+        }
+    }
+
+    @Override
+    public boolean deleteAll(List<String> slugs) {
+        synchronized (lock) {
+            Set<String> targets = new HashSet<>(slugs);
+            if (!projects.keySet().containsAll(targets)) {
+                return false;
+            }
+            targets.forEach(target -> {
+                remove(target);
+                track(target, null);
+            });
+            return save();
+        }
+    }
+
+    @Override
+    public void runInTransaction(UnitOfWork work) throws Exception {
+        synchronized (lock) {
+            if (deferSaves) {
+                work.run();
+                return;
+            }
+            deferSaves = true;
+            dirty = false;
+            try {
+                work.run();
+            } catch (Exception e) {
+                deferSaves = false;
+                if (dirty) {
+                    discardChanges();
                 }
-                if (!data.containsKey(PROJECTS_KEY)) {
-                    data.put(PROJECTS_KEY, new JSONArray());
+                throw e;
+            } finally {
+                deferSaves = false;
+            }
+            if (dirty && !save()) {
+                discardChanges();
+                throw new IllegalStateException("Failed to write storage file: " + filePath);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (journal != null) {
+            synchronized (lock) {
+                if (!pending.isEmpty()) {
                     save();
                 }
-                boolean updated = false;
-                JSONArray projects = data.getJSONArray(PROJECTS_KEY);
-                if (projects != null) {
-                    for (Object entry : projects) {
-                        if (entry instanceof JSONObject project) {
-                            if (!project.containsKey("id")) {
-                                project.put("id", "");
-                                updated = true;
-                            }
-                            if (!project.containsKey("slug")) {
-                                project.put("slug", "");
-                                updated = true;
-                            }
-                            if (!project.containsKey("title")) {
-                                project.put("title", "");
-                                updated = true;
-                            }
-                            if (!project.containsKey("description")) {
-                                project.put("description", "");
-                                updated = true;
-                            }
-                            if (!project.containsKey("categoryIds")) {
-                                if (project.containsKey("categories")) {
-                                    project.put("categoryIds", project.getJSONArray("categories"));
-                                } else {
-                                    project.put("categoryIds", new JSONArray());
-                                }
-                                updated = true;
-                            }
-                            if (!project.containsKey("additionalTags")) {
-                                project.put("additionalTags", new JSONArray());
-                                updated = true;
-                            }
-                            if (!project.containsKey("donationUrls")) {
-                                project.put("donationUrls", new JSONArray());
-                                updated = true;
-                            }
-                            if (!project.containsKey("galleryUrls")) {
-                                project.put("galleryUrls", new JSONArray());
-                                updated = true;
-                            }
-                            if (!project.containsKey("gameVersions")) {
-                                project.put("gameVersions", new JSONArray());
-                                updated = true;
-                            }
-                            if (!project.containsKey("versionIds")) {
-                                project.put("versionIds", new JSONArray());
-                                updated = true;
-                            }
-                            if (!project.containsKey("body")) {
-                                project.put("body", "");
-                                updated = true;
-                            }
-                            if (!project.containsKey("status")) {
-                                project.put("status", "");
-                                updated = true;
-                            }
-                            if (!project.containsKey("requestedStatus")) {
-                                project.put("requestedStatus", "");
-                                updated = true;
-                            }
-                            if (!project.containsKey("issuesUrl")) {
-                                project.put("issuesUrl", "");
-                                updated = true;
-                            }
-                            if (!project.containsKey("sourceUrl")) {
-                                project.put("sourceUrl", "");
-                                updated = true;
-                            }
-                            if (!project.containsKey("wikiUrl")) {
-                                project.put("wikiUrl", "");
-                                updated = true;
-                            }
-                            if (!project.containsKey("discordUrl")) {
-                                project.put("discordUrl", "");
-                                updated = true;
-                            }
-                            if (!project.containsKey("projectType")) {
-                                project.put("projectType", "");
-                                updated = true;
-                            }
-                            if (!project.containsKey("downloads")) {
-                                project.put("downloads", 0);
-                                updated = true;
-                            }
-                            if (!project.containsKey("iconUrl")) {
-                                project.put("iconUrl", "");
-                                updated = true;
-                            }
-                            if (!project.containsKey("colorHex")) {
-                                project.put("colorHex", "");
-                                updated = true;
-                            }
-                            if (!project.containsKey("ownerId")) {
-                                project.put("ownerId", "");
-                                updated = true;
-                            }
-                            if (!project.containsKey("moderatorMessage")) {
-                                project.put("moderatorMessage", "");
-                                updated = true;
-                            }
-                            if (!project.containsKey("createdAt")) {
-                                project.put("createdAt", 0);
-                                updated = true;
-                            }
-                            if (!project.containsKey("updatedAt")) {
-                                project.put("updatedAt", 0);
-                                updated = true;
-                            }
-                            if (!project.containsKey("approvedAt")) {
-                                project.put("approvedAt", 0);
-                                updated = true;
-                            }
-                            if (!project.containsKey("queuedAt")) {
-                                project.put("queuedAt", 0);
-                                updated = true;
-                            }
-                            if (!project.containsKey("followers")) {
-                                project.put("followers", 0);
-                                updated = true;
-                            }
-                            if (!project.containsKey("license")) {
-                                project.put("license", "");
-                                updated = true;
-                            }
+            }
+            journal.close();
+        }
+        writer.close();
+        synchronized (lock) {
+            writeBinarySnapshot();
+        }
+    }
+
+    private void compact() {
+        String snapshot;
+        synchronized (lock) {
+            if (data == null || !pending.isEmpty() && !save()) {
+                return;
+            }
+            try {
+                snapshot = serialize();
+                journal.rotate();
+            } catch (Exception e) {
+                Main.getLogger().err("Failed to compact project storage journal: " + e.getMessage());
+                return;
+            }
+        }
+        synchronized (snapshotLock) {
+            try {
+                JsonFileWriter.writeAtomically(filePath, snapshot);
+                journal.release();
+            } catch (Exception e) {
+                Main.getLogger().err("Failed to compact project storage journal: " + filePath);
+            }
+        }
+    }
+
+    private void discardChanges() {
+        pending.clear();
+        loadOrCreate();
+    }
+
+    private void loadOrCreate() {
+        synchronized (lock) {
+            synchronized (snapshotLock) {
+                try {
+                    if (Files.notExists(filePath)) {
+                        Files.createDirectories(filePath.getParent());
+                        data = new JSONObject();
+                        clear();
+                        replayJournal();
+                        writeSnapshot();
+                        return;
+                    }
+                    clear();
+                    JsonSnapshotReader.Result loaded = JsonSnapshotReader.stream(filePath, PROJECTS_KEY, binarySnapshots, JsonFileProjectStorage::migrate, project -> {
+                        ProjectRecord record = toRecord(project);
+                        if (record.slug() != null && !projects.containsKey(record.slug())) {
+                            put(record);
                         }
+                    });
+                    data = loaded.data();
+                    boolean updated = loaded.migrated();
+                    if (replayJournal() || updated) {
+                        writeSnapshot();
                     }
+                    writeBinarySnapshot();
+                } catch (Exception e) {
+                    throw new IllegalStateException("Failed to load project storage file: " + filePath, e);
                 }
-                if (updated) {
-                    save();
-                }
-            } catch (Exception e) {
-                throw new IllegalStateException("Failed to load project storage file: " + filePath, e);
             }
         }
     }
 
-    private JSONArray projectsArray() {
-        JSONArray projects = data.getJSONArray(PROJECTS_KEY);
-        if (projects == null) {
-            projects = new JSONArray();
-            data.put(PROJECTS_KEY, projects);
+    static boolean migrate(JSONObject project) {
+        boolean updated = false;
+        if (!project.containsKey("id")) {
+            project.put("id", "");
+            updated = true;
+        }
+        if (!project.containsKey("slug")) {
+            project.put("slug", "");
+            updated = true;
+        }
+        if (!project.containsKey("title")) {
+            project.put("title", "");
+            updated = true;
+        }
+        if (!project.containsKey("description")) {
+            project.put("description", "");
+            updated = true;
+        }
+        if (!project.containsKey("categoryIds")) {
+            if (project.containsKey("categories")) {
+                project.put("categoryIds", project.getJSONArray("categories"));
+            } else {
+                project.put("categoryIds", new JSONArray());
+            }
+            updated = true;
+        }
+        if (!project.containsKey("additionalTags")) {
+            project.put("additionalTags", new JSONArray());
+            updated = true;
+        }
+        if (!project.containsKey("donationUrls")) {
+            project.put("donationUrls", new JSONArray());
+            updated = true;
+        }
+        if (!project.containsKey("galleryUrls")) {
+            project.put("galleryUrls", new JSONArray());
+            updated = true;
+        }
+        if (!project.containsKey("gameVersions")) {
+            project.put("gameVersions", new JSONArray());
+            updated = true;
+        }
+        if (!project.containsKey("versionIds")) {
+            project.put("versionIds", new JSONArray());
+            updated = true;
+        }
+        if (!project.containsKey("body")) {
+            project.put("body", "");
+            updated = true;
+        }
+        if (!project.containsKey("status")) {
+            project.put("status", "");
+            updated = true;
+        }
+        if (!project.containsKey("requestedStatus")) {
+            project.put("requestedStatus", "");
+            updated = true;
+        }
+        if (!project.containsKey("issuesUrl")) {
+            project.put("issuesUrl", "");
+            updated = true;
+        }
+        if (!project.containsKey("sourceUrl")) {
+            project.put("sourceUrl", "");
+            updated = true;
+        }
+        if (!project.containsKey("wikiUrl")) {
+            project.put("wikiUrl", "");
+            updated = true;
+        }
+        if (!project.containsKey("discordUrl")) {
+            project.put("discordUrl", "");
+            updated = true;
+        }
+        if (!project.containsKey("projectType")) {
+            project.put("projectType", "");
+            updated = true;
+        }
+        if (!project.containsKey("downloads")) {
+            project.put("downloads", 0);
+            updated = true;
+        }
+        if (!project.containsKey("iconUrl")) {
+            project.put("iconUrl", "");
+            updated = true;
+        }
+        if (!project.containsKey("colorHex")) {
+            project.put("colorHex", "");
+            updated = true;
+        }
+        if (!project.containsKey("ownerId")) {
+            project.put("ownerId", "");
+            updated = true;
+        }
+        if (!project.containsKey("moderatorMessage")) {
+            project.put("moderatorMessage", "");
+            updated = true;
+        }
+        if (!project.containsKey("createdAt")) {
+            project.put("createdAt", 0);
+            updated = true;
+        }
+        if (!project.containsKey("updatedAt")) {
+            project.put("updatedAt", 0);
+            updated = true;
+        }
+        if (!project.containsKey("approvedAt")) {
+            project.put("approvedAt", 0);
+            updated = true;
         }
-        return projects;
+        if (!project.containsKey("queuedAt")) {
+            project.put("queuedAt", 0);
+            updated = true;
+        }
+        if (!project.containsKey("followers")) {
+            project.put("followers", 0);
+            updated = true;
+        }
+        if (!project.containsKey("license")) {
+            project.put("license", "");
+            updated = true;
+        }
+        return updated;
+    }
+
+    private void put(ProjectRecord record) {
+        ProjectRecord previous = projects.put(record.slug(), record);
+        if (previous != null) {
+            unindex(previous);
+        }
+        pageIndex.put(PageCursor.of(record.createdAt(), record.slug()), record);
+        tallies.merge("owner:" + record.ownerId(), 1L, Long::sum);
+        tallies.merge("status:" + record.status(), 1L, Long::sum);
+    }
+
+    private ProjectRecord remove(String slug) {
+        ProjectRecord removed = projects.remove(slug);
+        if (removed != null) {
+            unindex(removed);
+        }
+        return removed;
+    }
+
+    private void unindex(ProjectRecord record) {
+        pageIndex.remove(PageCursor.of(record.createdAt(), record.slug()));
+        tallies.computeIfPresent("owner:" + record.ownerId(), (key, count) -> count > 1 ? count - 1 : null);
+        tallies.computeIfPresent("status:" + record.status(), (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private void clear() {
+        projects.clear();
+        pageIndex.clear();
+        tallies.clear();
     }
 
     private boolean save() {
+        if (deferSaves) {
+            dirty = true;
+            return true;
+        }
+        if (journal == null) {
+            return writeSnapshot();
+        }
+        try {
+            List<JsonJournal.Change> changes = new ArrayList<>(pending.size());
+            pending.forEach((key, value) -> changes.add(new JsonJournal.Change(key, value)));
+            journal.append(changes);
+            pending.clear();
+            return true;
+        } catch (Exception e) {
+            Main.getLogger().err("Failed to append to project storage journal: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean writeSnapshot() {
         try {
-            Files.writeString(filePath, data.toJSONString(), StandardCharsets.UTF_8);
+            if (journal == null) {
+                return writer.flushAndWait(lock);
+            }
+            synchronized (snapshotLock) {
+                JsonFileWriter.writeAtomically(filePath, serialize());
+                journal.reset();
+            }
+            pending.clear();
             return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         } catch (Exception e) {
             return false;
         }
     }
 
-    private ProjectRecord toRecord(JSONObject json) {
+    private String serialize() {
+        synchronized (lock) {
+            return snapshot().toJSONString();
+        }
+    }
+
+    private JSONObject snapshot() {
+        JSONArray entries = new JSONArray(projects.size());
+        projects.values().forEach(record -> entries.add(fromRecord(record)));
+        JSONObject snapshot = new JSONObject(data);
+        snapshot.put(PROJECTS_KEY, entries);
+        return snapshot;
+    }
+
+    private void writeBinarySnapshot() {
+        if (binarySnapshots && data != null && (journal == null || journal.entries() == 0) && !JsonBinarySnapshot.isCurrent(filePath)) {
+            JsonBinarySnapshot.write(filePath, data, PROJECTS_KEY, projects.values(), JsonFileProjectStorage::fromRecord);
+        }
+    }
+
+    private boolean replayJournal() throws Exception {
+        if (journal == null) {
+            return false;
+        }
+        List<JsonJournal.Change> changes = journal.read();
+        for (JsonJournal.Change change : changes) {
+            if (change.value() == null) {
+                remove(change.key());
+            } else if (change.key() != null) {
+                migrate(change.value());
+                put(toRecord(change.value()));
+            }
+        }
+        return !changes.isEmpty();
+    }
+
+    private ProjectRecord track(String key, ProjectRecord record) {
+        if (journal != null) {
+            pending.put(key, record == null ? null : fromRecord(record));
+        }
+        return record;
+    }
+
+    static ProjectRecord toRecord(JSONObject json) {
         return new ProjectRecord(
                 json.getString("id"),
                 json.getString("slug"),
@@ -317,7 +587,7 @@ public class JsonFileProjectStorage implements ProjectStorage {
         );
     }
 
-    private JSONObject fromRecord(ProjectRecord record) {
+    static JSONObject fromRecord(ProjectRecord record) {
         JSONObject json = new JSONObject();
         json.put("id", record.id());
         json.put("slug", record.slug());
@@ -351,7 +621,7 @@ public class JsonFileProjectStorage implements ProjectStorage {
         return json;
     }
 
-    private List<String> toStringList(JSONArray array) {
+    static List<String> toStringList(JSONArray array) {
         List<String> list = new ArrayList<>();
         if (array == null) {
             return list;
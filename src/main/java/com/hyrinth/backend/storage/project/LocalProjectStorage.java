@@ -1,42 +1,96 @@
 package com.hyrinth.backend.storage.project;
 
-import java.util.Comparator;
+import com.hyrinth.backend.storage.PageCursor;
+import com.hyrinth.backend.storage.SnapshotStorage;
+import com.hyrinth.backend.storage.json.JsonBinarySnapshot;
+
+import java.nio.file.Path;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 
-public class LocalProjectStorage implements ProjectStorage {
+public class LocalProjectStorage implements ProjectStorage, SnapshotStorage {
 
     private final Map<String, ProjectRecord> projects = new ConcurrentHashMap<>();
+    private final NavigableMap<PageCursor, ProjectRecord> pageIndex = new ConcurrentSkipListMap<>();
+    private final Map<String, AtomicLong> ownerCounts = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> statusCounts = new ConcurrentHashMap<>();
 
     @Override
     public Optional<ProjectRecord> findBySlug(String slug) {
         return Optional.ofNullable(projects.get(slug));
     }
 
+    @Override
+    public List<ProjectRecord> findBySlugs(List<String> slugs) {
+        return slugs.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .map(projects::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     @Override
     public List<ProjectRecord> findPage(int limit, int offset) {
         if (limit <= 0 || offset < 0) {
             return List.of();
         }
-        return projects.values().stream()
-                .sorted(Comparator.comparingLong(ProjectRecord::createdAt)
-                        .thenComparing(ProjectRecord::slug))
+        return pageIndex.values().stream()
                 .skip(offset)
                 .limit(limit)
                 .toList();
     }
 
+    @Override
+    public List<ProjectRecord> findPageAfter(PageCursor cursor, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        return (cursor == null ? pageIndex : pageIndex.tailMap(cursor, false)).values().stream()
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public List<String> findAllSlugs() {
+        return List.copyOf(projects.keySet());
+    }
+
+    @Override
+    public long count() {
+        return projects.size();
+    }
+
+    @Override
+    public long countByOwner(String ownerId) {
+        AtomicLong count = ownerCounts.get(Objects.requireNonNullElse(ownerId, ""));
+        return count == null ? 0 : count.get();
+    }
+
+    @Override
+    public long countByStatus(String status) {
+        AtomicLong count = statusCounts.get(Objects.requireNonNullElse(status, ""));
+        return count == null ? 0 : count.get();
+    }
+
     @Override
     public boolean create(ProjectRecord record) {
         if (record == null || record.slug() == null || record.slug().isBlank()) {
             return false;
         }
-        if (projects.containsKey(record.slug())) {
+        if (projects.putIfAbsent(record.slug(), record) != null) {
             return false;
         }
-        projects.put(record.slug(), record);
+        index(null, record);
+        tally(record, 1);
         return true;
     }
 
@@ -45,15 +99,94 @@ public class LocalProjectStorage implements ProjectStorage {
         if (record == null || record.slug() == null || record.slug().isBlank()) {
             return false;
         }
-        if (!projects.containsKey(record.slug())) {
+        ProjectRecord previous = projects.replace(record.slug(), record);
+        if (previous == null) {
             return false;
         }
-        projects.put(record.slug(), record);
+        index(previous, record);
+        tally(previous, -1);
+        tally(record, 1);
         return true;
     }
 
     @Override
     public boolean delete(String slug) {
-        return projects.remove(slug) != null;
+        ProjectRecord removed = projects.remove(slug);
+        index(removed, null);
+        tally(removed, -1);
+        return removed != null;
+    }
+
+    @Override
+    public boolean createAll(List<ProjectRecord> records) {
+        Set<String> keys = new HashSet<>();
+        for (ProjectRecord record : records) {
+            if (record == null || record.slug() == null || record.slug().isBlank()
+                    || projects.containsKey(record.slug()) || !keys.add(record.slug())) {
+                return false;
+            }
+        }
+        records.forEach(this::store);
+        return true;
+    }
+
+    @Override
+    public boolean updateAll(List<ProjectRecord> records) {
+        for (ProjectRecord record : records) {
+            if (record == null || record.slug() == null || !projects.containsKey(record.slug())) {
+                return false;
+            }
+        }
+        records.forEach(this::store);
+        return true;
+    }
+
+    @Override
+    public boolean deleteAll(List<String> slugs) {
+        if (!projects.keySet().containsAll(slugs)) {
+            return false;
+        }
+        slugs.forEach(this::delete);
+        return true;
+    }
+
+
+    @Override
+    public boolean saveSnapshot(Path file) {
+        return JsonBinarySnapshot.save(file, "projects", projects.values(), JsonFileProjectStorage::fromRecord);
+    }
+
+    @Override
+    public boolean loadSnapshot(Path file) {
+        return JsonBinarySnapshot.load(file, "projects", JsonFileProjectStorage::toRecord, this::create);
+    }
+
+    private void store(ProjectRecord record) {
+        ProjectRecord previous = projects.put(record.slug(), record);
+        index(previous, record);
+        tally(previous, -1);
+        tally(record, 1);
+    }
+
+    private void tally(ProjectRecord record, long delta) {
+        if (record == null) {
+            return;
+        }
+        ownerCounts.computeIfAbsent(Objects.requireNonNullElse(record.ownerId(), ""), key -> new AtomicLong()).addAndGet(delta);
+        statusCounts.computeIfAbsent(Objects.requireNonNullElse(record.status(), ""), key -> new AtomicLong()).addAndGet(delta);
+    }
+
+    private void index(ProjectRecord previous, ProjectRecord current) {
+        if (previous != null) {
+            pageIndex.computeIfPresent(PageCursor.of(previous.createdAt(), previous.slug()), (cursor, record) -> resolve(cursor));
+        }
+        if (current != null) {
+            pageIndex.compute(PageCursor.of(current.createdAt(), current.slug()), (cursor, record) -> resolve(cursor));
+        }
+    }
+
+    private ProjectRecord resolve(PageCursor cursor) {
+        ProjectRecord record = projects.get(cursor.key());
+        return record != null && record.createdAt() == cursor.createdAt() ? record : null;
     }
 }
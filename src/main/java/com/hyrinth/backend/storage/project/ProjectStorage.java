@@ -1,5 +1,7 @@
 package com.hyrinth.backend.storage.project;
 
+import com.hyrinth.backend.storage.PageCursor;
+
 import java.util.List;
 import java.util.Optional;
 
@@ -7,11 +9,29 @@ public interface ProjectStorage {
 
     Optional<ProjectRecord> findBySlug(String slug);
 
+    List<ProjectRecord> findBySlugs(List<String> slugs);
+
     List<ProjectRecord> findPage(int limit, int offset);
 
+    List<ProjectRecord> findPageAfter(PageCursor cursor, int limit);
+
+    List<String> findAllSlugs();
+
+    long count();
+
+    long countByOwner(String ownerId);
+
+    long countByStatus(String status);
+
     boolean create(ProjectRecord record);
 
     boolean update(ProjectRecord record);
 
     boolean delete(String slug);
+
+    boolean createAll(List<ProjectRecord> records);
+
+    boolean updateAll(List<ProjectRecord> records);
+
+    boolean deleteAll(List<String> slugs);
 }
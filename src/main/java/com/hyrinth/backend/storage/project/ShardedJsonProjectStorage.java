@@ -0,0 +1,130 @@
+package com.hyrinth.backend.storage.project;
+
+import com.hyrinth.backend.storage.PageCursor;
+import com.hyrinth.backend.storage.json.ShardedJsonStore;
+
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+public class ShardedJsonProjectStorage implements ProjectStorage {
+
+    private final NavigableMap<PageCursor, ProjectRecord> pageIndex = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> tallies = new ConcurrentHashMap<>();
+    private final ShardedJsonStore<ProjectRecord> store;
+
+    public ShardedJsonProjectStorage(Path directory, int shards) {
+        this.store = new ShardedJsonStore<>(directory, shards, "projects", new ShardedJsonStore.Codec<>(
+                ProjectRecord::slug,
+                JsonFileProjectStorage::toRecord,
+                JsonFileProjectStorage::fromRecord,
+                JsonFileProjectStorage::migrate
+        ), this::changed);
+    }
+
+    @Override
+    public Optional<ProjectRecord> findBySlug(String slug) {
+        return store.get(slug);
+    }
+
+    @Override
+    public List<ProjectRecord> findBySlugs(List<String> slugs) {
+        Set<String> targets = new LinkedHashSet<>(slugs);
+        targets.remove(null);
+        return targets.stream().map(store::get).flatMap(Optional::stream).toList();
+    }
+
+    @Override
+    public List<ProjectRecord> findPage(int limit, int offset) {
+        if (limit <= 0 || offset < 0) {
+            return List.of();
+        }
+        return pageIndex.values().stream()
+                .skip(offset)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public List<ProjectRecord> findPageAfter(PageCursor cursor, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        return (cursor == null ? pageIndex : pageIndex.tailMap(cursor, false)).values().stream()
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public List<String> findAllSlugs() {
+        return store.keys();
+    }
+
+    @Override
+    public long count() {
+        return store.size();
+    }
+
+    @Override
+    public long countByOwner(String ownerId) {
+        return tallies.getOrDefault("owner:" + ownerId, 0L);
+    }
+
+    @Override
+    public long countByStatus(String status) {
+        return tallies.getOrDefault("status:" + status, 0L);
+    }
+
+    @Override
+    public boolean create(ProjectRecord record) {
+        return store.insert(record);
+    }
+
+    @Override
+    public boolean update(ProjectRecord record) {
+        return store.replace(record);
+    }
+
+    @Override
+    public boolean delete(String slug) {
+        return store.remove(slug);
+    }
+
+    @Override
+    public boolean createAll(List<ProjectRecord> records) {
+        return store.insertAll(records);
+    }
+
+    @Override
+    public boolean updateAll(List<ProjectRecord> records) {
+        return store.replaceAll(records);
+    }
+
+    @Override
+    public boolean deleteAll(List<String> slugs) {
+        return store.removeAll(new LinkedHashSet<>(slugs));
+    }
+
+    private void changed(ProjectRecord previous, ProjectRecord current) {
+        if (previous != null) {
+            pageIndex.remove(PageCursor.of(previous.createdAt(), previous.slug()));
+            tally("owner:" + previous.ownerId(), -1);
+            tally("status:" + previous.status(), -1);
+        }
+        if (current != null) {
+            pageIndex.put(PageCursor.of(current.createdAt(), current.slug()), current);
+            tally("owner:" + current.ownerId(), 1);
+            tally("status:" + current.status(), 1);
+        }
+    }
+
+    private void tally(String key, long delta) {
+        tallies.merge(key, delta, (count, change) -> count + change == 0 ? null : count + change);
+    }
+}
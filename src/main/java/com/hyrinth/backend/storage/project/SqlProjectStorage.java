@@ -1,143 +1,226 @@
 package com.hyrinth.backend.storage.project;
 
 import com.hyrinth.backend.Main;
-import org.zyneonstudios.apex.utilities.sql.SQL;
+import com.hyrinth.backend.storage.PageCursor;
+import com.hyrinth.backend.storage.TransactionalStorage;
+import com.hyrinth.backend.storage.UnitOfWork;
+import com.hyrinth.backend.storage.sql.SqlConnectionPool;
+import com.hyrinth.backend.storage.sql.SqlConnectionRouter;
+import com.hyrinth.backend.storage.sql.SqlCountCache;
+import com.hyrinth.backend.storage.sql.SqlMigrator;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.Savepoint;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
-public class SqlProjectStorage implements ProjectStorage {
+public class SqlProjectStorage implements ProjectStorage, TransactionalStorage {
 
-    private final SQL sql;
+    private static final int MULTI_GET_CHUNK = 256;
+
+    private final SqlConnectionRouter router;
+    private final SqlCountCache counts = new SqlCountCache();
     private final String table;
-    private boolean schemaEnsured = false;
+    private final String findBySlugQuery;
+    private final String findPageQuery;
+    private final String findFirstPageQuery;
+    private final String findPageAfterQuery;
+    private final String findAllSlugsQuery;
+    private final String countQuery;
+    private final String countByOwnerQuery;
+    private final String countByStatusQuery;
+    private final String insertQuery;
+    private final String updateQuery;
+    private final String deleteQuery;
+    private volatile boolean schemaEnsured = false;
+    private boolean schemaFailed = false;
+
+    public SqlProjectStorage(SqlConnectionPool pool) {
+        this(new SqlConnectionRouter(pool));
+    }
 
-    public SqlProjectStorage(SQL sql) {
-        this(sql, "projects");
+    public SqlProjectStorage(SqlConnectionRouter router) {
+        this(router, "projects");
     }
 
-    public SqlProjectStorage(SQL sql, String table) {
-        this.sql = sql;
+    public SqlProjectStorage(SqlConnectionRouter router, String table) {
+        this.router = router;
+        router.addTransactionListener(counts::invalidate);
         this.table = table;
+        this.findBySlugQuery = "SELECT * FROM `" + table + "` WHERE `slug` = ?";
+        this.findPageQuery = "SELECT * FROM `" + table + "` ORDER BY `created_at` ASC, `slug` ASC LIMIT ? OFFSET ?";
+        this.findFirstPageQuery = "SELECT * FROM `" + table + "` ORDER BY `created_at` ASC, `slug` ASC LIMIT ?";
+        this.findPageAfterQuery = "SELECT * FROM `" + table + "` WHERE `created_at` > ? OR (`created_at` = ? AND `slug` > ?)"
+                + " ORDER BY `created_at` ASC, `slug` ASC LIMIT ?";
+        this.findAllSlugsQuery = "SELECT `slug` FROM `" + table + "`";
+        this.countQuery = "SELECT COUNT(*) FROM `" + table + "`";
+        this.countByOwnerQuery = "SELECT COUNT(*) FROM `" + table + "` WHERE `owner_id` = ?";
+        this.countByStatusQuery = "SELECT COUNT(*) FROM `" + table + "` WHERE `status` = ?";
+        this.insertQuery = "INSERT INTO `" + table + "` (`slug`, `id`, `title`, `description`, `category_ids`, `additional_tags`, `donation_urls`,"
+                + " `gallery_urls`, `game_versions`, `version_ids`, `body`, `status`, `requested_status`, `issues_url`, `source_url`, `wiki_url`,"
+                + " `discord_url`, `project_type`, `downloads`, `icon_url`, `color_hex`, `owner_id`, `moderator_message`, `created_at`, `updated_at`,"
+                + " `approved_at`, `queued_at`, `followers`, `license`)"
+                + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        this.updateQuery = "UPDATE `" + table + "` SET `id` = ?, `title` = ?, `description` = ?, `category_ids` = ?, `additional_tags` = ?,"
+                + " `donation_urls` = ?, `gallery_urls` = ?, `game_versions` = ?, `version_ids` = ?, `body` = ?, `status` = ?,"
+                + " `requested_status` = ?, `issues_url` = ?, `source_url` = ?, `wiki_url` = ?, `discord_url` = ?, `project_type` = ?,"
+                + " `downloads` = ?, `icon_url` = ?, `color_hex` = ?, `owner_id` = ?, `moderator_message` = ?, `updated_at` = ?,"
+                + " `approved_at` = ?, `queued_at` = ?, `followers` = ?, `license` = ? WHERE `slug` = ?";
+        this.deleteQuery = "DELETE FROM `" + table + "` WHERE `slug` = ?";
         ensureSchema();
     }
 
-    private synchronized void ensureSchema() {
+    @Override
+    public void runInTransaction(UnitOfWork work) throws Exception {
+        router.runInTransaction(work);
+    }
+
+    private void ensureSchema() {
         if (schemaEnsured) {
             return;
         }
-        if (!sql.reconnect()) {
-            Main.getLogger().err("Project storage could not reconnect to SQL backend for schema init.");
-            return;
-        }
-        String createTable = "CREATE TABLE IF NOT EXISTS `" + table + "` ("
-                + "`slug` VARCHAR(128) NOT NULL PRIMARY KEY,"
-                + "`id` VARCHAR(36) NOT NULL DEFAULT '',"
-                + "`title` VARCHAR(255) NOT NULL DEFAULT '',"
-                + "`description` TEXT NOT NULL,"
-                + "`category_ids` TEXT NOT NULL,"
-                + "`additional_tags` TEXT NOT NULL,"
-                + "`donation_urls` TEXT NOT NULL,"
-                + "`gallery_urls` TEXT NOT NULL,"
-                + "`game_versions` TEXT NOT NULL,"
-                + "`version_ids` TEXT NOT NULL,"
-                + "`body` TEXT NOT NULL,"
-                + "`status` VARCHAR(64) NOT NULL DEFAULT '',"
-                + "`requested_status` VARCHAR(64) NOT NULL DEFAULT '',"
-                + "`issues_url` VARCHAR(512) NOT NULL DEFAULT '',"
-                + "`source_url` VARCHAR(512) NOT NULL DEFAULT '',"
-                + "`wiki_url` VARCHAR(512) NOT NULL DEFAULT '',"
-                + "`discord_url` VARCHAR(512) NOT NULL DEFAULT '',"
-                + "`project_type` VARCHAR(64) NOT NULL DEFAULT '',"
-                + "`downloads` INT NOT NULL DEFAULT 0,"
-                + "`icon_url` VARCHAR(512) NOT NULL DEFAULT '',"
-                + "`color_hex` VARCHAR(16) NOT NULL DEFAULT '',"
-                + "`owner_id` VARCHAR(36) NOT NULL DEFAULT '',"
-                + "`moderator_message` TEXT NOT NULL,"
-                + "`created_at` BIGINT NOT NULL,"
-                + "`updated_at` BIGINT NOT NULL,"
-                + "`approved_at` BIGINT NOT NULL DEFAULT 0,"
-                + "`queued_at` BIGINT NOT NULL DEFAULT 0,"
-                + "`followers` INT NOT NULL DEFAULT 0,"
-                + "`license` VARCHAR(255) NOT NULL DEFAULT ''"
-                + ");";
-        String ownerIndex = "CREATE INDEX IF NOT EXISTS `idx_" + table + "_owner` ON `" + table + "` (`owner_id`);";
-        String statusIndex = "CREATE INDEX IF NOT EXISTS `idx_" + table + "_status` ON `" + table + "` (`status`);";
-        try (Connection connection = sql.getConnection()) {
-            if (connection == null) {
-                Main.getLogger().err("Project storage schema init failed: SQL connection is null.");
-                return;
-            }
-            try (PreparedStatement createStatement = connection.prepareStatement(createTable)) {
-                createStatement.execute();
-            }
-            try (PreparedStatement ownerStatement = connection.prepareStatement(ownerIndex)) {
-                ownerStatement.execute();
-            } catch (Exception e) {
-                Main.getLogger().err("Project storage owner index init failed: " + e.getMessage());
+        synchronized (this) {
+            if (schemaFailed) {
+                throw new IllegalStateException("Schema for " + table + " is unavailable after a failed migration");
             }
-            try (PreparedStatement statusStatement = connection.prepareStatement(statusIndex)) {
-                statusStatement.execute();
-            } catch (Exception e) {
-                Main.getLogger().err("Project storage status index init failed: " + e.getMessage());
+            if (!schemaEnsured) {
+                schemaEnsured = migrations().migrate();
+                schemaFailed = !schemaEnsured;
+                if (schemaFailed) {
+                    throw new IllegalStateException("Schema migration failed for " + table);
+                }
             }
-            addColumn(connection, "id", "VARCHAR(36) NOT NULL DEFAULT ''");
-            addColumn(connection, "title", "VARCHAR(255) NOT NULL DEFAULT ''");
-            addColumn(connection, "description", "TEXT NOT NULL");
-            addColumn(connection, "category_ids", "TEXT NOT NULL DEFAULT '[]'");
-            addColumn(connection, "additional_tags", "TEXT NOT NULL DEFAULT '[]'");
-            addColumn(connection, "donation_urls", "TEXT NOT NULL DEFAULT '[]'");
-            addColumn(connection, "gallery_urls", "TEXT NOT NULL DEFAULT '[]'");
-            addColumn(connection, "game_versions", "TEXT NOT NULL DEFAULT '[]'");
-            addColumn(connection, "version_ids", "TEXT NOT NULL DEFAULT '[]'");
-            addColumn(connection, "body", "TEXT NOT NULL DEFAULT ''");
-            addColumn(connection, "status", "VARCHAR(64) NOT NULL DEFAULT ''");
-            addColumn(connection, "requested_status", "VARCHAR(64) NOT NULL DEFAULT ''");
-            addColumn(connection, "issues_url", "VARCHAR(512) NOT NULL DEFAULT ''");
-            addColumn(connection, "source_url", "VARCHAR(512) NOT NULL DEFAULT ''");
-            addColumn(connection, "wiki_url", "VARCHAR(512) NOT NULL DEFAULT ''");
-            addColumn(connection, "discord_url", "VARCHAR(512) NOT NULL DEFAULT ''");
-            addColumn(connection, "project_type", "VARCHAR(64) NOT NULL DEFAULT ''");
-            addColumn(connection, "downloads", "INT NOT NULL DEFAULT 0");
-            addColumn(connection, "icon_url", "VARCHAR(512) NOT NULL DEFAULT ''");
-            addColumn(connection, "color_hex", "VARCHAR(16) NOT NULL DEFAULT ''");
-            addColumn(connection, "owner_id", "VARCHAR(36) NOT NULL DEFAULT ''");
-            addColumn(connection, "moderator_message", "TEXT NOT NULL DEFAULT ''");
-            addColumn(connection, "approved_at", "BIGINT NOT NULL DEFAULT 0");
-            addColumn(connection, "queued_at", "BIGINT NOT NULL DEFAULT 0");
-            addColumn(connection, "followers", "INT NOT NULL DEFAULT 0");
-            addColumn(connection, "license", "VARCHAR(255) NOT NULL DEFAULT ''");
-            schemaEnsured = true;
-        } catch (Exception e) {
-            Main.getLogger().err("Project storage schema init failed: " + e.getMessage());
         }
     }
 
+    private SqlMigrator migrations() {
+        return new SqlMigrator(router.getPrimary(), table)
+                .add(1, "create table", connection -> {
+                    SqlMigrator.execute(connection, "CREATE TABLE IF NOT EXISTS `" + table + "` ("
+                            + "`slug` VARCHAR(128) NOT NULL PRIMARY KEY,"
+                            + "`id` VARCHAR(36) NOT NULL DEFAULT '',"
+                            + "`title` VARCHAR(255) NOT NULL DEFAULT '',"
+                            + "`description` TEXT NOT NULL,"
+                            + "`category_ids` TEXT NOT NULL,"
+                            + "`additional_tags` TEXT NOT NULL,"
+                            + "`donation_urls` TEXT NOT NULL,"
+                            + "`gallery_urls` TEXT NOT NULL,"
+                            + "`game_versions` TEXT NOT NULL,"
+                            + "`version_ids` TEXT NOT NULL,"
+                            + "`body` TEXT NOT NULL,"
+                            + "`status` VARCHAR(64) NOT NULL DEFAULT '',"
+                            + "`requested_status` VARCHAR(64) NOT NULL DEFAULT '',"
+                            + "`issues_url` VARCHAR(512) NOT NULL DEFAULT '',"
+                            + "`source_url` VARCHAR(512) NOT NULL DEFAULT '',"
+                            + "`wiki_url` VARCHAR(512) NOT NULL DEFAULT '',"
+                            + "`discord_url` VARCHAR(512) NOT NULL DEFAULT '',"
+                            + "`project_type` VARCHAR(64) NOT NULL DEFAULT '',"
+                            + "`downloads` INT NOT NULL DEFAULT 0,"
+                            + "`icon_url` VARCHAR(512) NOT NULL DEFAULT '',"
+                            + "`color_hex` VARCHAR(16) NOT NULL DEFAULT '',"
+                            + "`owner_id` VARCHAR(36) NOT NULL DEFAULT '',"
+                            + "`moderator_message` TEXT NOT NULL,"
+                            + "`created_at` BIGINT NOT NULL,"
+                            + "`updated_at` BIGINT NOT NULL,"
+                            + "`approved_at` BIGINT NOT NULL DEFAULT 0,"
+                            + "`queued_at` BIGINT NOT NULL DEFAULT 0,"
+                            + "`followers` INT NOT NULL DEFAULT 0,"
+                            + "`license` VARCHAR(255) NOT NULL DEFAULT ''"
+                            + ")");
+                })
+                .add(2, "add project detail columns", connection -> {
+                    Set<String> columns = SqlMigrator.columns(connection, table);
+                    SqlMigrator.addColumn(connection, table, columns, "id", "VARCHAR(36) NOT NULL DEFAULT ''");
+                    SqlMigrator.addColumn(connection, table, columns, "title", "VARCHAR(255) NOT NULL DEFAULT ''");
+                    SqlMigrator.addTextColumn(connection, table, columns, "description", "");
+                    SqlMigrator.addTextColumn(connection, table, columns, "category_ids", "[]");
+                    SqlMigrator.addTextColumn(connection, table, columns, "additional_tags", "[]");
+                    SqlMigrator.addTextColumn(connection, table, columns, "donation_urls", "[]");
+                    SqlMigrator.addTextColumn(connection, table, columns, "gallery_urls", "[]");
+                    SqlMigrator.addTextColumn(connection, table, columns, "game_versions", "[]");
+                    SqlMigrator.addTextColumn(connection, table, columns, "version_ids", "[]");
+                    SqlMigrator.addTextColumn(connection, table, columns, "body", "");
+                    SqlMigrator.addColumn(connection, table, columns, "status", "VARCHAR(64) NOT NULL DEFAULT ''");
+                    SqlMigrator.addColumn(connection, table, columns, "requested_status", "VARCHAR(64) NOT NULL DEFAULT ''");
+                    SqlMigrator.addColumn(connection, table, columns, "issues_url", "VARCHAR(512) NOT NULL DEFAULT ''");
+                    SqlMigrator.addColumn(connection, table, columns, "source_url", "VARCHAR(512) NOT NULL DEFAULT ''");
+                    SqlMigrator.addColumn(connection, table, columns, "wiki_url", "VARCHAR(512) NOT NULL DEFAULT ''");
+                    SqlMigrator.addColumn(connection, table, columns, "discord_url", "VARCHAR(512) NOT NULL DEFAULT ''");
+                    SqlMigrator.addColumn(connection, table, columns, "project_type", "VARCHAR(64) NOT NULL DEFAULT ''");
+                    SqlMigrator.addColumn(connection, table, columns, "downloads", "INT NOT NULL DEFAULT 0");
+                    SqlMigrator.addColumn(connection, table, columns, "icon_url", "VARCHAR(512) NOT NULL DEFAULT ''");
+                    SqlMigrator.addColumn(connection, table, columns, "color_hex", "VARCHAR(16) NOT NULL DEFAULT ''");
+                    SqlMigrator.addColumn(connection, table, columns, "owner_id", "VARCHAR(36) NOT NULL DEFAULT ''");
+                    SqlMigrator.addTextColumn(connection, table, columns, "moderator_message", "");
+                    SqlMigrator.addColumn(connection, table, columns, "approved_at", "BIGINT NOT NULL DEFAULT 0");
+                    SqlMigrator.addColumn(connection, table, columns, "queued_at", "BIGINT NOT NULL DEFAULT 0");
+                    SqlMigrator.addColumn(connection, table, columns, "followers", "INT NOT NULL DEFAULT 0");
+                    SqlMigrator.addColumn(connection, table, columns, "license", "VARCHAR(255) NOT NULL DEFAULT ''");
+                })
+                .add(3, "add owner and status indexes", connection -> {
+                    SqlMigrator.createIndex(connection, table, "idx_" + table + "_owner", false, "owner_id");
+                    SqlMigrator.createIndex(connection, table, "idx_" + table + "_status", false, "status");
+                })
+                .add(4, "add page index", connection ->
+                        SqlMigrator.createIndex(connection, table, "idx_" + table + "_page", false, "created_at", "slug"));
+    }
+
     @Override
     public Optional<ProjectRecord> findBySlug(String slug) {
         ensureSchema();
-        String query = "SELECT * FROM `" + table + "` WHERE `slug` = ?";
-        return fetchOne(query, slug);
+        return fetchOne(findBySlugQuery, slug);
     }
 
     @Override
-    public List<ProjectRecord> findPage(int limit, int offset) {
+    public List<ProjectRecord> findBySlugs(List<String> slugs) {
         ensureSchema();
-        if (limit <= 0 || offset < 0) {
+        List<String> keys = slugs.stream().filter(Objects::nonNull).distinct().toList();
+        if (keys.isEmpty()) {
             return List.of();
         }
-        if (!sql.reconnect()) {
-            Main.getLogger().err("Project storage could not reconnect to SQL backend.");
+        Map<String, ProjectRecord> found = new HashMap<>();
+        try (Connection connection = router.getReadConnection()) {
+            for (int from = 0; from < keys.size(); from += MULTI_GET_CHUNK) {
+                List<String> chunk = keys.subList(from, Math.min(keys.size(), from + MULTI_GET_CHUNK));
+                int slots = Math.max(1, Integer.highestOneBit(chunk.size() - 1) << 1);
+                try (PreparedStatement statement = connection.prepareStatement(multiGetQuery(slots))) {
+                    for (int i = 0; i < slots; i++) {
+                        statement.setString(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            ProjectRecord record = fromResultSet(resultSet);
+                            found.put(record.slug(), record);
+                        }
+                    }
+                }
+            }
+        } catch (Exception e) {
+            Main.getLogger().err("Project storage multi-get query failed: " + e.getMessage());
+        }
+        return keys.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    @Override
+    public List<ProjectRecord> findPage(int limit, int offset) {
+        ensureSchema();
+        if (limit <= 0 || offset < 0) {
             return List.of();
         }
-        String query = "SELECT * FROM `" + table + "` ORDER BY `created_at` ASC, `slug` ASC LIMIT ? OFFSET ?";
         List<ProjectRecord> records = new ArrayList<>();
-        try (Connection connection = sql.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query)) {
+        try (Connection connection = router.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(findPageQuery)) {
             statement.setInt(1, limit);
             statement.setInt(2, offset);
             try (ResultSet resultSet = statement.executeQuery()) {
@@ -151,100 +234,142 @@ public class SqlProjectStorage implements ProjectStorage {
         return records;
     }
 
+    @Override
+    public List<ProjectRecord> findPageAfter(PageCursor cursor, int limit) {
+        ensureSchema();
+        if (limit <= 0) {
+            return List.of();
+        }
+        List<ProjectRecord> records = new ArrayList<>();
+        try (Connection connection = router.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(cursor == null ? findFirstPageQuery : findPageAfterQuery)) {
+            if (cursor == null) {
+                statement.setInt(1, limit);
+            } else {
+                statement.setLong(1, cursor.createdAt());
+                statement.setLong(2, cursor.createdAt());
+                statement.setString(3, cursor.key());
+                statement.setInt(4, limit);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    records.add(fromResultSet(resultSet));
+                }
+            }
+        } catch (Exception e) {
+            Main.getLogger().err("Project storage cursor page query failed: " + e.getMessage());
+        }
+        return records;
+    }
+
+    @Override
+    public List<String> findAllSlugs() {
+        ensureSchema();
+        List<String> keys = new ArrayList<>();
+        try (Connection connection = router.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(findAllSlugsQuery);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                keys.add(resultSet.getString("slug"));
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Project storage key scan failed: " + e.getMessage(), e);
+        }
+        return keys;
+    }
+
+    @Override
+    public long count() {
+        ensureSchema();
+        return count("all", countQuery, null);
+    }
+
+    @Override
+    public long countByOwner(String ownerId) {
+        ensureSchema();
+        return count("owner:" + ownerId, countByOwnerQuery, ownerId);
+    }
+
+    @Override
+    public long countByStatus(String status) {
+        ensureSchema();
+        return count("status:" + status, countByStatusQuery, status);
+    }
+
     @Override
     public boolean create(ProjectRecord record) {
         ensureSchema();
-        String query = "INSERT INTO `" + table + "` (`slug`, `id`, `title`, `description`, `category_ids`, `additional_tags`, `donation_urls`,"
-                + " `gallery_urls`, `game_versions`, `version_ids`, `body`, `status`, `requested_status`, `issues_url`, `source_url`, `wiki_url`,"
-                + " `discord_url`, `project_type`, `downloads`, `icon_url`, `color_hex`, `owner_id`, `moderator_message`, `created_at`, `updated_at`,"
-                + " `approved_at`, `queued_at`, `followers`, `license`)"
-                + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        return executeUpdate(query, statement -> {
-            statement.setString(1, record.slug());
-            statement.setString(2, record.id());
-            statement.setString(3, record.title());
-            statement.setString(4, record.description());
-            statement.setString(5, serializeList(record.categoryIds()));
-            statement.setString(6, serializeList(record.additionalTags()));
-            statement.setString(7, serializeList(record.donationUrls()));
-            statement.setString(8, serializeList(record.galleryUrls()));
-            statement.setString(9, serializeList(record.gameVersions()));
-            statement.setString(10, serializeList(record.versionIds()));
-            statement.setString(11, record.body());
-            statement.setString(12, record.status());
-            statement.setString(13, record.requestedStatus());
-            statement.setString(14, record.issuesUrl());
-            statement.setString(15, record.sourceUrl());
-            statement.setString(16, record.wikiUrl());
-            statement.setString(17, record.discordUrl());
-            statement.setString(18, record.projectType());
-            statement.setInt(19, record.downloads());
-            statement.setString(20, record.iconUrl());
-            statement.setString(21, record.colorHex());
-            statement.setString(22, record.ownerId());
-            statement.setString(23, record.moderatorMessage());
-            statement.setLong(24, record.createdAt());
-            statement.setLong(25, record.updatedAt());
-            statement.setLong(26, record.approvedAt());
-            statement.setLong(27, record.queuedAt());
-            statement.setInt(28, record.followers());
-            statement.setString(29, record.license());
-        });
+        return executeUpdate(insertQuery, statement -> bindInsert(statement, record));
     }
 
     @Override
     public boolean update(ProjectRecord record) {
         ensureSchema();
-        String query = "UPDATE `" + table + "` SET `id` = ?, `title` = ?, `description` = ?, `category_ids` = ?, `additional_tags` = ?,"
-                + " `donation_urls` = ?, `gallery_urls` = ?, `game_versions` = ?, `version_ids` = ?, `body` = ?, `status` = ?,"
-                + " `requested_status` = ?, `issues_url` = ?, `source_url` = ?, `wiki_url` = ?, `discord_url` = ?, `project_type` = ?,"
-                + " `downloads` = ?, `icon_url` = ?, `color_hex` = ?, `owner_id` = ?, `moderator_message` = ?, `updated_at` = ?,"
-                + " `approved_at` = ?, `queued_at` = ?, `followers` = ?, `license` = ? WHERE `slug` = ?";
-        return executeUpdate(query, statement -> {
-            statement.setString(1, record.id());
-            statement.setString(2, record.title());
-            statement.setString(3, record.description());
-            statement.setString(4, serializeList(record.categoryIds()));
-            statement.setString(5, serializeList(record.additionalTags()));
-            statement.setString(6, serializeList(record.donationUrls()));
-            statement.setString(7, serializeList(record.galleryUrls()));
-            statement.setString(8, serializeList(record.gameVersions()));
-            statement.setString(9, serializeList(record.versionIds()));
-            statement.setString(10, record.body());
-            statement.setString(11, record.status());
-            statement.setString(12, record.requestedStatus());
-            statement.setString(13, record.issuesUrl());
-            statement.setString(14, record.sourceUrl());
-            statement.setString(15, record.wikiUrl());
-            statement.setString(16, record.discordUrl());
-            statement.setString(17, record.projectType());
-            statement.setInt(18, record.downloads());
-            statement.setString(19, record.iconUrl());
-            statement.setString(20, record.colorHex());
-            statement.setString(21, record.ownerId());
-            statement.setString(22, record.moderatorMessage());
-            statement.setLong(23, record.updatedAt());
-            statement.setLong(24, record.approvedAt());
-            statement.setLong(25, record.queuedAt());
-            statement.setInt(26, record.followers());
-            statement.setString(27, record.license());
-            statement.setString(28, record.slug());
-        });
+        return executeUpdate(updateQuery, statement -> bindUpdate(statement, record));
     }
 
     @Override
     public boolean delete(String slug) {
         ensureSchema();
-        String query = "DELETE FROM `" + table + "` WHERE `slug` = ?";
-        return executeUpdate(query, statement -> statement.setString(1, slug));
+        return executeUpdate(deleteQuery, statement -> statement.setString(1, slug));
+    }
+
+    @Override
+    public boolean createAll(List<ProjectRecord> records) {
+        ensureSchema();
+        List<String> slugs = keysOf(records);
+        if (slugs == null || new LinkedHashSet<>(slugs).size() != slugs.size()) {
+            return false;
+        }
+        return executeBatch(insertQuery, records, this::bindInsert, slugs, false);
+    }
+
+    @Override
+    public boolean updateAll(List<ProjectRecord> records) {
+        ensureSchema();
+        List<String> slugs = keysOf(records);
+        if (slugs == null) {
+            return false;
+        }
+        return executeBatch(updateQuery, records, this::bindUpdate, slugs, true);
+    }
+
+    @Override
+    public boolean deleteAll(List<String> slugs) {
+        ensureSchema();
+        return executeBatch(deleteQuery, List.copyOf(new LinkedHashSet<>(slugs)), (statement, slug) -> statement.setString(1, slug), slugs, true);
+    }
+
+    private String multiGetQuery(int slots) {
+        return "SELECT * FROM `" + table + "` WHERE `slug` IN (" + String.join(", ", Collections.nCopies(slots, "?")) + ")";
+    }
+
+    private String countKeysQuery(int slots) {
+        return "SELECT COUNT(*) FROM `" + table + "` WHERE `slug` IN (" + String.join(", ", Collections.nCopies(slots, "?")) + ")";
+    }
+
+    private List<String> keysOf(List<ProjectRecord> records) {
+        List<String> keys = new ArrayList<>(records.size());
+        for (ProjectRecord record : records) {
+            if (record == null || record.slug() == null || record.slug().isBlank()) {
+                return null;
+            }
+            keys.add(record.slug());
+        }
+        return keys;
     }
 
     private Optional<ProjectRecord> fetchOne(String query, String value) {
-        if (!sql.reconnect()) {
-            Main.getLogger().err("Project storage could not reconnect to SQL backend.");
-            return Optional.empty();
+        boolean replica = router.readsFromReplica();
+        Optional<ProjectRecord> record = fetchOne(query, value, replica);
+        if (record.isEmpty() && replica && router.hasLaggingReplicas()) {
+            return fetchOne(query, value, false);
         }
-        try (Connection connection = sql.getConnection();
+        return record;
+    }
+
+    private Optional<ProjectRecord> fetchOne(String query, String value, boolean replica) {
+        try (Connection connection = replica ? router.getReadConnection() : router.getPrimaryConnection();
              PreparedStatement statement = connection.prepareStatement(query)) {
             statement.setString(1, value);
             try (ResultSet resultSet = statement.executeQuery()) {
@@ -258,21 +383,179 @@ public class SqlProjectStorage implements ProjectStorage {
         return Optional.empty();
     }
 
-    private boolean executeUpdate(String query, StatementConfigurer configurer) {
-        if (!sql.reconnect()) {
-            Main.getLogger().err("Project storage could not reconnect to SQL backend.");
-            return false;
+    private long count(String key, String query, String value) {
+        try {
+            return counts.get(key, () -> {
+                try (Connection connection = router.getReadConnection();
+                     PreparedStatement statement = connection.prepareStatement(query)) {
+                    if (value != null) {
+                        statement.setString(1, value);
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        return resultSet.next() ? resultSet.getLong(1) : 0L;
+                    }
+                }
+            });
+        } catch (Exception e) {
+            Main.getLogger().err("Project storage count query failed: " + e.getMessage());
+            return -1;
         }
-        try (Connection connection = sql.getConnection();
+    }
+
+    private boolean executeUpdate(String query, StatementConfigurer configurer) {
+        try (Connection connection = router.getConnection();
              PreparedStatement statement = connection.prepareStatement(query)) {
             configurer.configure(statement);
-            return statement.executeUpdate() > 0;
+            boolean updated = statement.executeUpdate() > 0;
+            if (updated) {
+                counts.invalidate();
+            }
+            return updated;
         } catch (Exception e) {
             Main.getLogger().err("Project storage update failed: " + e.getMessage());
             return false;
         }
     }
 
+    private <T> boolean executeBatch(String query, List<T> items, BatchConfigurer<T> configurer, List<String> keys, boolean existing) {
+        if (items == null || items.isEmpty()) {
+            return true;
+        }
+        try (Connection connection = router.getConnection()) {
+            boolean ownsTransaction = connection.getAutoCommit();
+            if (ownsTransaction) {
+                connection.setAutoCommit(false);
+            }
+            Savepoint savepoint = ownsTransaction ? null : connection.setSavepoint();
+            try {
+                Set<String> distinct = new LinkedHashSet<>(keys);
+                if (countKeys(connection, distinct) != (existing ? distinct.size() : 0)) {
+                    rollback(connection, savepoint);
+                    return false;
+                }
+                try (PreparedStatement statement = connection.prepareStatement(query)) {
+                    for (T item : items) {
+                        configurer.configure(statement, item);
+                        statement.addBatch();
+                    }
+                    for (int result : statement.executeBatch()) {
+                        if (result == 0 || result == Statement.EXECUTE_FAILED) {
+                            throw new IllegalStateException("batch entry did not match a row");
+                        }
+                    }
+                }
+                if (ownsTransaction) {
+                    connection.commit();
+                } else {
+                    connection.releaseSavepoint(savepoint);
+                }
+                counts.invalidate();
+                return true;
+            } catch (Exception e) {
+                rollback(connection, savepoint);
+                Main.getLogger().err("Project storage batch update failed and was rolled back: " + e.getMessage());
+                return false;
+            } finally {
+                if (ownsTransaction) {
+                    connection.setAutoCommit(true);
+                }
+            }
+        } catch (Exception e) {
+            Main.getLogger().err("Project storage batch update failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private long countKeys(Connection connection, Collection<String> keys) throws Exception {
+        List<String> values = List.copyOf(keys);
+        long found = 0;
+        for (int from = 0; from < values.size(); from += MULTI_GET_CHUNK) {
+            List<String> chunk = values.subList(from, Math.min(values.size(), from + MULTI_GET_CHUNK));
+            try (PreparedStatement statement = connection.prepareStatement(countKeysQuery(chunk.size()))) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    statement.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next()) {
+                        found += resultSet.getLong(1);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private void rollback(Connection connection, Savepoint savepoint) throws Exception {
+        if (savepoint == null) {
+            connection.rollback();
+        } else {
+            connection.rollback(savepoint);
+        }
+    }
+
+    private void bindInsert(PreparedStatement statement, ProjectRecord record) throws Exception {
+        statement.setString(1, record.slug());
+        statement.setString(2, record.id());
+        statement.setString(3, record.title());
+        statement.setString(4, record.description());
+        statement.setString(5, serializeList(record.categoryIds()));
+        statement.setString(6, serializeList(record.additionalTags()));
+        statement.setString(7, serializeList(record.donationUrls()));
+        statement.setString(8, serializeList(record.galleryUrls()));
+        statement.setString(9, serializeList(record.gameVersions()));
+        statement.setString(10, serializeList(record.versionIds()));
+        statement.setString(11, record.body());
+        statement.setString(12, record.status());
+        statement.setString(13, record.requestedStatus());
+        statement.setString(14, record.issuesUrl());
+        statement.setString(15, record.sourceUrl());
+        statement.setString(16, record.wikiUrl());
+        statement.setString(17, record.discordUrl());
+        statement.setString(18, record.projectType());
+        statement.setInt(19, record.downloads());
+        statement.setString(20, record.iconUrl());
+        statement.setString(21, record.colorHex());
+        statement.setString(22, record.ownerId());
+        statement.setString(23, record.moderatorMessage());
+        statement.setLong(24, record.createdAt());
+        statement.setLong(25, record.updatedAt());
+        statement.setLong(26, record.approvedAt());
+        statement.setLong(27, record.queuedAt());
+        statement.setInt(28, record.followers());
+        statement.setString(29, record.license());
+    }
+
+    private void bindUpdate(PreparedStatement statement, ProjectRecord record) throws Exception {
+        statement.setString(1, record.id());
+        statement.setString(2, record.title());
+        statement.setString(3, record.description());
+        statement.setString(4, serializeList(record.categoryIds()));
+        statement.setString(5, serializeList(record.additionalTags()));
+        statement.setString(6, serializeList(record.donationUrls()));
+        statement.setString(7, serializeList(record.galleryUrls()));
+        statement.setString(8, serializeList(record.gameVersions()));
+        statement.setString(9, serializeList(record.versionIds()));
+        statement.setString(10, record.body());
+        statement.setString(11, record.status());
+        statement.setString(12, record.requestedStatus());
+        statement.setString(13, record.issuesUrl());
+        statement.setString(14, record.sourceUrl());
+        statement.setString(15, record.wikiUrl());
+        statement.setString(16, record.discordUrl());
+        statement.setString(17, record.projectType());
+        statement.setInt(18, record.downloads());
+        statement.setString(19, record.iconUrl());
+        statement.setString(20, record.colorHex());
+        statement.setString(21, record.ownerId());
+        statement.setString(22, record.moderatorMessage());
+        statement.setLong(23, record.updatedAt());
+        statement.setLong(24, record.approvedAt());
+        statement.setLong(25, record.queuedAt());
+        statement.setInt(26, record.followers());
+        statement.setString(27, record.license());
+        statement.setString(28, record.slug());
+    }
+
     private ProjectRecord fromResultSet(ResultSet resultSet) throws Exception {
         return new ProjectRecord(
                 resultSet.getString("id"),
@@ -330,16 +613,11 @@ public class SqlProjectStorage implements ProjectStorage {
         return values;
     }
 
-    private void addColumn(Connection connection, String column, String definition) {
-        String sqlStatement = "ALTER TABLE `" + table + "` ADD COLUMN `" + column + "` " + definition;
-        try (PreparedStatement statement = connection.prepareStatement(sqlStatement)) {
-            statement.execute();
-        } catch (Exception e) {
-            Main.getLogger().deb("Project storage column init skipped (" + column + "): " + e.getMessage());
-        }
-    }
-
     private interface StatementConfigurer {
         void configure(PreparedStatement statement) throws Exception;
     }
+
+    private interface BatchConfigurer<T> {
+        void configure(PreparedStatement statement, T item) throws Exception;
+    }
 }
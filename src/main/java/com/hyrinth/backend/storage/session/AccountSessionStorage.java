@@ -1,11 +1,14 @@
 package com.hyrinth.backend.storage.session;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface AccountSessionStorage {
 
     Optional<AccountSessionRecord> findByToken(String token);
 
+    List<String> findAllTokens();
+
     boolean create(AccountSessionRecord session);
 
     boolean update(AccountSessionRecord session);
@@ -0,0 +1,82 @@
+package com.hyrinth.backend.storage.session;
+
+import com.hyrinth.backend.storage.TransactionalStorage;
+import com.hyrinth.backend.storage.UnitOfWork;
+import com.hyrinth.backend.storage.cache.KeyFilter;
+
+import java.util.List;
+import java.util.Optional;
+
+public class CachingAccountSessionStorage implements AccountSessionStorage, TransactionalStorage, AutoCloseable {
+
+    private final AccountSessionStorage delegate;
+    private final KeyFilter keys;
+
+    public CachingAccountSessionStorage(AccountSessionStorage delegate, KeyFilter.Options keyOptions) {
+        this.delegate = delegate;
+        this.keys = new KeyFilter("sessions", keyOptions);
+        keys.rebuild(delegate::findAllTokens);
+    }
+
+    @Override
+    public Optional<AccountSessionRecord> findByToken(String token) {
+        if (!keys.mightContain(token)) {
+            return Optional.empty();
+        }
+        long stamp = keys.stamp();
+        Optional<AccountSessionRecord> found = delegate.findByToken(token);
+        if (found.isEmpty()) {
+            keys.recordMiss(token, stamp);
+        }
+        return found;
+    }
+
+    @Override
+    public List<String> findAllTokens() {
+        return delegate.findAllTokens();
+    }
+
+    @Override
+    public boolean create(AccountSessionRecord session) {
+        try {
+            return delegate.create(session);
+        } finally {
+            keys.add(session == null ? null : session.token());
+        }
+    }
+
+    @Override
+    public boolean update(AccountSessionRecord session) {
+        return delegate.update(session);
+    }
+
+    @Override
+    public boolean deleteByAccountId(String accountId) {
+        return delegate.deleteByAccountId(accountId);
+    }
+
+    @Override
+    public boolean delete(String token) {
+        return delegate.delete(token);
+    }
+
+    @Override
+    public void runInTransaction(UnitOfWork work) throws Exception {
+        try {
+            if (delegate instanceof TransactionalStorage storage) {
+                storage.runInTransaction(work);
+            } else {
+                work.run();
+            }
+        } finally {
+            keys.clearMisses();
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -2,44 +2,84 @@ package com.hyrinth.backend.storage.session;
 
 import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
+import com.hyrinth.backend.Main;
+import com.hyrinth.backend.storage.TransactionalStorage;
+import com.hyrinth.backend.storage.UnitOfWork;
+import com.hyrinth.backend.storage.json.JsonBinarySnapshot;
+import com.hyrinth.backend.storage.json.JsonFileOptions;
+import com.hyrinth.backend.storage.json.JsonFileWriter;
+import com.hyrinth.backend.storage.json.JsonJournal;
+import com.hyrinth.backend.storage.json.JsonSnapshotReader;
 
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
-public class JsonFileAccountSessionStorage implements AccountSessionStorage {
+public class JsonFileAccountSessionStorage implements AccountSessionStorage, TransactionalStorage, AutoCloseable {
 
     private static final String SESSIONS_KEY = "sessions";
 
     private final Path filePath;
     private final Object lock = new Object();
+    private final Object snapshotLock = new Object();
+    private final Map<String, AccountSessionRecord> sessions = new LinkedHashMap<>();
+    private final Map<String, Set<String>> tokensByAccount = new HashMap<>();
+    private final Map<String, JSONObject> pending = new LinkedHashMap<>();
+    private final JsonJournal journal;
+    private final JsonFileWriter writer;
+    private final boolean binarySnapshots;
     private JSONObject data;
+    private boolean deferSaves;
+    private boolean dirty;
+    private long loadedModified = -1;
+    private long loadedSize = -1;
 
     public JsonFileAccountSessionStorage(Path filePath) {
+        this(filePath, JsonFileOptions.DEFAULT);
+    }
+
+    public JsonFileAccountSessionStorage(Path filePath, JsonFileOptions options) {
         this.filePath = filePath;
+        this.binarySnapshots = options.binarySnapshots();
+        this.writer = new JsonFileWriter(filePath, options.journal().enabled() ? 0L : options.commitWindow(), this::serialize);
+        try {
+            this.journal = options.journal().enabled() ? new JsonJournal(filePath, options.journal(), this::compact) : null;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to open session storage journal: " + filePath, e);
+        }
         loadOrCreate();
     }
 
     @Override
     public Optional<AccountSessionRecord> findByToken(String token) {
         synchronized (lock) {
-            reloadFromDisk();
-            for (Object entry : sessionsArray()) {
-                if (entry instanceof JSONObject session) {
-                    if (token.equals(session.getString("token"))) {
-                        return Optional.of(toRecord(session));
-                    }
-                }
-            }
-            return Optional.empty();
+            refreshIfChanged();
+            return Optional.ofNullable(sessions.get(token));
+        }
+    }
+
+    @Override
+    public List<String> findAllTokens() {
+        synchronized (lock) {
+            refreshIfChanged();
+            return List.copyOf(sessions.keySet());
         }
     }
 
     @Override
     public boolean create(AccountSessionRecord session) {
         synchronized (lock) {
-            sessionsArray().add(fromRecord(session));
+            refreshIfChanged();
+            write(session);
             return save();
         }
     }
@@ -47,17 +87,12 @@ public class JsonFileAccountSessionStorage implements AccountSessionStorage {
     @Override
     public boolean update(AccountSessionRecord session) {
         synchronized (lock) {
-            JSONArray sessions = sessionsArray();
-            for (int i = 0; i < sessions.size(); i++) {
-                Object entry = sessions.get(i);
-                if (entry instanceof JSONObject existing) {
-                    if (session.token().equals(existing.getString("token"))) {
-                        sessions.set(i, fromRecord(session));
-                        return save();
-                    }
-                }
+            refreshIfChanged();
+            if (!sessions.containsKey(session.token())) {
+                return false;
             }
-            return false;
+            write(session);
+            return save();
         }
     }
 
@@ -67,122 +102,316 @@ public class JsonFileAccountSessionStorage implements AccountSessionStorage {
             if (accountId == null || accountId.isBlank()) {
                 return false;
             }
-            JSONArray sessions = sessionsArray();
-            boolean removed = false;
-            for (int i = sessions.size() - 1; i >= 0; i--) {
-                Object entry = sessions.get(i);
-                if (entry instanceof JSONObject session) {
-                    if (accountId.equals(session.getString("accountId"))) {
-                        sessions.remove(i);
-                        removed = true;
-                    }
-                }
+            refreshIfChanged();
+            Set<String> tokens = tokensByAccount.get(accountId);
+            if (tokens == null || tokens.isEmpty()) {
+                return false;
             }
-            return removed && save();
+            new ArrayList<>(tokens).forEach(this::erase);
+            return save();
         }
     }
 
     @Override
     public boolean delete(String token) {
         synchronized (lock) {
-            JSONArray sessions = sessionsArray();
-            for (int i = 0; i < sessions.size(); i++) {
-                Object entry = sessions.get(i);
-                if (entry instanceof JSONObject session) {
-                    if (token.equals(session.getString("token"))) {
-                        sessions.remove(i);
-                        return save();
-                    }
-                }
+            refreshIfChanged();
+            if (erase(token) == null) {
+                return false;
             }
-            return false;
+            return save();
         }
     }
 
-    private void loadOrCreate() {
+    @Override
+    public void runInTransaction(UnitOfWork work) throws Exception {
         synchronized (lock) {
+            if (deferSaves) {
+                work.run();
+                return;
+            }
+            deferSaves = true;
+            dirty = false;
             try {
-                if (Files.notExists(filePath)) {
-                    Files.createDirectories(filePath.getParent());
-                    data = new JSONObject();
-                    data.put(SESSIONS_KEY, new JSONArray());
-                    save();
-                    return;
-                }
-                String raw = Files.readString(filePath, StandardCharsets.UTF_8);
-                data = JSONObject.parseObject(raw);
-                if (data == null) {
-                    data = new JSONObject();
+                work.run();
+            } catch (Exception e) {
+                deferSaves = false;
+                if (dirty) {
+                    discardChanges();
                 }
-                if (!data.containsKey(SESSIONS_KEY)) {
-                    data.put(SESSIONS_KEY, new JSONArray());
+                throw e;
+            } finally {
+                deferSaves = false;
+            }
+            if (dirty && !save()) {
+                discardChanges();
+                throw new IllegalStateException("Failed to write storage file: " + filePath);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (journal != null) {
+            synchronized (lock) {
+                if (!pending.isEmpty()) {
                     save();
                 }
-                boolean updated = false;
-                JSONArray sessions = data.getJSONArray(SESSIONS_KEY);
-                if (sessions != null) {
-                    for (Object entry : sessions) {
-                        if (entry instanceof JSONObject session) {
-                            if (!session.containsKey("type")) {
-                                session.put("type", AccountTokenType.SESSION.name());
-                                updated = true;
-                            }
-                            if (!session.containsKey("remainingUses")) {
-                                session.put("remainingUses", -1);
-                                updated = true;
-                            }
-                        }
+            }
+            journal.close();
+        }
+        writer.close();
+        synchronized (lock) {
+            writeBinarySnapshot();
+        }
+    }
+
+    private void compact() {
+        String snapshot;
+        synchronized (lock) {
+            if (data == null || !pending.isEmpty() && !save()) {
+                return;
+            }
+            try {
+                snapshot = serialize();
+                journal.rotate();
+            } catch (Exception e) {
+                Main.getLogger().err("Failed to compact session storage journal: " + e.getMessage());
+                return;
+            }
+        }
+        synchronized (snapshotLock) {
+            try {
+                JsonFileWriter.writeAtomically(filePath, snapshot);
+                journal.release();
+            } catch (Exception e) {
+                Main.getLogger().err("Failed to compact session storage journal: " + filePath);
+            }
+        }
+    }
+
+    private void discardChanges() {
+        pending.clear();
+        loadOrCreate();
+    }
+
+    private void loadOrCreate() {
+        synchronized (lock) {
+            synchronized (snapshotLock) {
+                try {
+                    if (Files.notExists(filePath)) {
+                        Files.createDirectories(filePath.getParent());
+                        data = new JSONObject();
+                        clear();
+                        replayJournal();
+                        writeSnapshot();
+                        return;
                     }
+                    JsonSnapshotReader.Result loaded = stream();
+                    data = loaded.data();
+                    boolean updated = loaded.migrated();
+                    if (replayJournal() || updated) {
+                        writeSnapshot();
+                    } else {
+                        stamp();
+                    }
+                    writeBinarySnapshot();
+                } catch (Exception e) {
+                    throw new IllegalStateException("Failed to load session storage file: " + filePath, e);
                 }
-                if (updated) {
-                    save();
-                }
-            } catch (Exception e) {
-                throw new IllegalStateException("Failed to load session storage file: " + filePath, e);
             }
         }
     }
 
+    static boolean migrate(JSONObject session) {
+        boolean updated = false;
+        if (!session.containsKey("type")) {
+            session.put("type", AccountTokenType.SESSION.name());
+            updated = true;
+        }
+        if (!session.containsKey("remainingUses")) {
+            session.put("remainingUses", -1);
+            updated = true;
+        }
+        return updated;
+    }
+
+    private void refreshIfChanged() {
+        if (deferSaves || journal != null || writer.hasPendingWrites()) {
+            return;
+        }
+        long modified = -1;
+        long size = -1;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+            modified = attributes.lastModifiedTime().toMillis();
+            size = attributes.size();
+        } catch (NoSuchFileException ignore) {
+        } catch (Exception e) {
+            Main.getLogger().err("Failed to check session storage file: " + e.getMessage());
+            return;
+        }
+        if (modified != loadedModified || size != loadedSize) {
+            reloadFromDisk();
+        }
+    }
+
     private void reloadFromDisk() {
         try {
             if (Files.notExists(filePath)) {
                 data = new JSONObject();
-                data.put(SESSIONS_KEY, new JSONArray());
+                clear();
+                loadedModified = -1;
+                loadedSize = -1;
                 return;
             }
-            String raw = Files.readString(filePath, StandardCharsets.UTF_8);
-            JSONObject loaded = JSONObject.parseObject(raw);
-            if (loaded == null) {
-                loaded = new JSONObject();
-            }
-            if (!loaded.containsKey(SESSIONS_KEY)) {
-                loaded.put(SESSIONS_KEY, new JSONArray());
-            }
-            data = loaded;
+            data = stream().data();
+            stamp();
         } catch (Exception e) {
             throw new IllegalStateException("Failed to reload session storage file: " + filePath, e);
         }
     }
 
-    private JSONArray sessionsArray() {
-        JSONArray sessions = data.getJSONArray(SESSIONS_KEY);
-        if (sessions == null) {
-            sessions = new JSONArray();
-            data.put(SESSIONS_KEY, sessions);
+    private void stamp() throws Exception {
+        BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+        loadedModified = attributes.lastModifiedTime().toMillis();
+        loadedSize = attributes.size();
+    }
+
+    private JsonSnapshotReader.Result stream() throws Exception {
+        clear();
+        return JsonSnapshotReader.stream(filePath, SESSIONS_KEY, binarySnapshots, JsonFileAccountSessionStorage::migrate, session -> {
+            if (session.getString("token") != null) {
+                put(toRecord(session));
+            }
+        });
+    }
+
+    private void clear() {
+        sessions.clear();
+        tokensByAccount.clear();
+    }
+
+    private void write(AccountSessionRecord session) {
+        put(session);
+        if (journal != null) {
+            pending.put(session.token(), fromRecord(session));
+        }
+    }
+
+    private AccountSessionRecord erase(String token) {
+        AccountSessionRecord removed = remove(token);
+        if (removed != null && journal != null) {
+            pending.put(token, null);
+        }
+        return removed;
+    }
+
+    private void put(AccountSessionRecord session) {
+        AccountSessionRecord previous = sessions.put(session.token(), session);
+        if (previous != null) {
+            unindex(previous);
+        }
+        tokensByAccount.computeIfAbsent(session.accountId(), key -> new LinkedHashSet<>()).add(session.token());
+    }
+
+    private AccountSessionRecord remove(String token) {
+        AccountSessionRecord removed = sessions.remove(token);
+        if (removed != null) {
+            unindex(removed);
+        }
+        return removed;
+    }
+
+    private void unindex(AccountSessionRecord session) {
+        Set<String> tokens = tokensByAccount.get(session.accountId());
+        if (tokens != null) {
+            tokens.remove(session.token());
+            if (tokens.isEmpty()) {
+                tokensByAccount.remove(session.accountId());
+            }
         }
-        return sessions;
     }
 
     private boolean save() {
+        if (deferSaves) {
+            dirty = true;
+            return true;
+        }
+        if (journal == null) {
+            return writeSnapshot();
+        }
         try {
-            Files.writeString(filePath, data.toJSONString(), StandardCharsets.UTF_8);
+            List<JsonJournal.Change> changes = new ArrayList<>(pending.size());
+            pending.forEach((key, value) -> changes.add(new JsonJournal.Change(key, value)));
+            journal.append(changes);
+            pending.clear();
             return true;
         } catch (Exception e) {
+            Main.getLogger().err("Failed to append to session storage journal: " + e.getMessage());
             return false;
         }
     }
 
-    private AccountSessionRecord toRecord(JSONObject json) {
+    private boolean writeSnapshot() {
+        try {
+            if (journal == null) {
+                if (!writer.flushAndWait(lock)) {
+                    return false;
+                }
+                stamp();
+                return true;
+            }
+            synchronized (snapshotLock) {
+                JsonFileWriter.writeAtomically(filePath, serialize());
+                journal.reset();
+            }
+            pending.clear();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private String serialize() {
+        synchronized (lock) {
+            return snapshot().toJSONString();
+        }
+    }
+
+    private JSONObject snapshot() {
+        JSONArray entries = new JSONArray(sessions.size());
+        sessions.values().forEach(session -> entries.add(fromRecord(session)));
+        JSONObject snapshot = new JSONObject(data);
+        snapshot.put(SESSIONS_KEY, entries);
+        return snapshot;
+    }
+
+    private void writeBinarySnapshot() {
+        if (binarySnapshots && data != null && (journal == null || journal.entries() == 0) && !JsonBinarySnapshot.isCurrent(filePath)) {
+            JsonBinarySnapshot.write(filePath, data, SESSIONS_KEY, sessions.values(), JsonFileAccountSessionStorage::fromRecord);
+        }
+    }
+
+    private boolean replayJournal() throws Exception {
+        if (journal == null) {
+            return false;
+        }
+        List<JsonJournal.Change> changes = journal.read();
+        for (JsonJournal.Change change : changes) {
+            if (change.value() == null) {
+                remove(change.key());
+            } else if (change.key() != null) {
+                put(toRecord(change.value()));
+            }
+        }
+        return !changes.isEmpty();
+    }
+
+    static AccountSessionRecord toRecord(JSONObject json) {
         return new AccountSessionRecord(
                 json.getString("token"),
                 json.getString("accountId"),
@@ -193,7 +422,7 @@ public class JsonFileAccountSessionStorage implements AccountSessionStorage {
         );
     }
 
-    private JSONObject fromRecord(AccountSessionRecord session) {
+    static JSONObject fromRecord(AccountSessionRecord session) {
         JSONObject json = new JSONObject();
         json.put("token", session.token());
         json.put("accountId", session.accountId());
@@ -204,7 +433,7 @@ public class JsonFileAccountSessionStorage implements AccountSessionStorage {
         return json;
     }
 
-    private AccountTokenType parseTokenType(String raw) {
+    static AccountTokenType parseTokenType(String raw) {
         if (raw == null || raw.isBlank()) {
             return AccountTokenType.SESSION;
         }
@@ -215,7 +444,7 @@ public class JsonFileAccountSessionStorage implements AccountSessionStorage {
         }
     }
 
-    private int getRemainingUses(JSONObject json) {
+    static int getRemainingUses(JSONObject json) {
         try {
             return json.getIntValue("remainingUses");
         } catch (Exception e) {
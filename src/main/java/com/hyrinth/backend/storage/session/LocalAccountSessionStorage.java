@@ -1,10 +1,15 @@
 package com.hyrinth.backend.storage.session;
 
+import com.hyrinth.backend.storage.SnapshotStorage;
+import com.hyrinth.backend.storage.json.JsonBinarySnapshot;
+
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
-public class LocalAccountSessionStorage implements AccountSessionStorage {
+public class LocalAccountSessionStorage implements AccountSessionStorage, SnapshotStorage {
 
     private final Map<String, AccountSessionRecord> sessions = new ConcurrentHashMap<>();
 
@@ -13,6 +18,11 @@ public class LocalAccountSessionStorage implements AccountSessionStorage {
         return Optional.ofNullable(sessions.get(token));
     }
 
+    @Override
+    public List<String> findAllTokens() {
+        return List.copyOf(sessions.keySet());
+    }
+
     @Override
     public boolean create(AccountSessionRecord session) {
         sessions.put(session.token(), session);
@@ -39,4 +49,14 @@ public class LocalAccountSessionStorage implements AccountSessionStorage {
     public boolean delete(String token) {
         return sessions.remove(token) != null;
     }
+
+    @Override
+    public boolean saveSnapshot(Path file) {
+        return JsonBinarySnapshot.save(file, "sessions", sessions.values(), JsonFileAccountSessionStorage::fromRecord);
+    }
+
+    @Override
+    public boolean loadSnapshot(Path file) {
+        return JsonBinarySnapshot.load(file, "sessions", JsonFileAccountSessionStorage::toRecord, this::create);
+    }
 }
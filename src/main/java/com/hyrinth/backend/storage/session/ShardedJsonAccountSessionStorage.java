@@ -0,0 +1,82 @@
+package com.hyrinth.backend.storage.session;
+
+import com.hyrinth.backend.storage.json.ShardedJsonStore;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ShardedJsonAccountSessionStorage implements AccountSessionStorage {
+
+    private final Map<String, Set<String>> tokensByAccount = new ConcurrentHashMap<>();
+    private final ShardedJsonStore<AccountSessionRecord> store;
+
+    public ShardedJsonAccountSessionStorage(Path directory, int shards) {
+        this.store = new ShardedJsonStore<>(directory, shards, "sessions", new ShardedJsonStore.Codec<>(
+                AccountSessionRecord::token,
+                JsonFileAccountSessionStorage::toRecord,
+                JsonFileAccountSessionStorage::fromRecord,
+                JsonFileAccountSessionStorage::migrate
+        ), this::changed);
+    }
+
+    @Override
+    public Optional<AccountSessionRecord> findByToken(String token) {
+        return store.get(token);
+    }
+
+    @Override
+    public List<String> findAllTokens() {
+        return store.keys();
+    }
+
+    @Override
+    public boolean create(AccountSessionRecord session) {
+        return store.put(session);
+    }
+
+    @Override
+    public boolean update(AccountSessionRecord session) {
+        return store.replace(session);
+    }
+
+    @Override
+    public boolean deleteByAccountId(String accountId) {
+        if (accountId == null || accountId.isBlank()) {
+            return false;
+        }
+        Set<String> tokens = tokensByAccount.get(accountId);
+        if (tokens == null) {
+            return false;
+        }
+        boolean removed = false;
+        for (String token : List.copyOf(tokens)) {
+            removed |= store.remove(token);
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean delete(String token) {
+        return store.remove(token);
+    }
+
+    private void changed(AccountSessionRecord previous, AccountSessionRecord current) {
+        if (previous != null && previous.accountId() != null) {
+            tokensByAccount.computeIfPresent(previous.accountId(), (accountId, tokens) -> {
+                tokens.remove(previous.token());
+                return tokens.isEmpty() ? null : tokens;
+            });
+        }
+        if (current != null && current.accountId() != null) {
+            tokensByAccount.compute(current.accountId(), (accountId, tokens) -> {
+                Set<String> updated = tokens == null ? ConcurrentHashMap.newKeySet() : tokens;
+                updated.add(current.token());
+                return updated;
+            });
+        }
+    }
+}
@@ -1,87 +1,101 @@
 package com.hyrinth.backend.storage.session;
 
 import com.hyrinth.backend.Main;
-import org.zyneonstudios.apex.utilities.sql.SQL;
+import com.hyrinth.backend.storage.TransactionalStorage;
+import com.hyrinth.backend.storage.UnitOfWork;
+import com.hyrinth.backend.storage.sql.SqlConnectionPool;
+import com.hyrinth.backend.storage.sql.SqlConnectionRouter;
+import com.hyrinth.backend.storage.sql.SqlMigrator;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
-public class SqlAccountSessionStorage implements AccountSessionStorage {
+public class SqlAccountSessionStorage implements AccountSessionStorage, TransactionalStorage {
 
-    private final SQL sql;
+    private final SqlConnectionRouter router;
     private final String table;
-    private boolean schemaEnsured = false;
+    private final String findByTokenQuery;
+    private final String findAllTokensQuery;
+    private final String insertQuery;
+    private final String updateQuery;
+    private final String deleteByAccountIdQuery;
+    private final String deleteQuery;
+    private volatile boolean schemaEnsured = false;
+    private boolean schemaFailed = false;
 
-    public SqlAccountSessionStorage(SQL sql) {
-        this(sql, "account_sessions");
+    public SqlAccountSessionStorage(SqlConnectionPool pool) {
+        this(new SqlConnectionRouter(pool));
     }
 
-    public SqlAccountSessionStorage(SQL sql, String table) {
-        this.sql = sql;
+    public SqlAccountSessionStorage(SqlConnectionRouter router) {
+        this(router, "account_sessions");
+    }
+
+    public SqlAccountSessionStorage(SqlConnectionRouter router, String table) {
+        this.router = router;
         this.table = table;
+        this.findByTokenQuery = "SELECT * FROM `" + table + "` WHERE `token` = ?";
+        this.findAllTokensQuery = "SELECT `token` FROM `" + table + "`";
+        this.insertQuery = "INSERT INTO `" + table + "` (`token`, `account_id`, `created_at`, `expires_at`, `type`, `remaining_uses`) VALUES (?, ?, ?, ?, ?, ?)";
+        this.updateQuery = "UPDATE `" + table + "` SET `account_id` = ?, `created_at` = ?, `expires_at` = ?, `type` = ?, `remaining_uses` = ? WHERE `token` = ?";
+        this.deleteByAccountIdQuery = "DELETE FROM `" + table + "` WHERE `account_id` = ?";
+        this.deleteQuery = "DELETE FROM `" + table + "` WHERE `token` = ?";
         ensureSchema();
     }
 
-    private synchronized void ensureSchema() {
+    @Override
+    public void runInTransaction(UnitOfWork work) throws Exception {
+        router.runInTransaction(work);
+    }
+
+    private void ensureSchema() {
         if (schemaEnsured) {
             return;
         }
-        if (!sql.reconnect()) {
-            Main.getLogger().err("Session storage could not reconnect to SQL backend for schema init.");
-            return;
-        }
-        String createTable = "CREATE TABLE IF NOT EXISTS `" + table + "` ("
-                + "`token` VARCHAR(128) NOT NULL PRIMARY KEY,"
-                + "`account_id` VARCHAR(36) NOT NULL,"
-                + "`created_at` BIGINT NOT NULL,"
-                + "`expires_at` BIGINT NOT NULL,"
-                + "`type` VARCHAR(16) NOT NULL DEFAULT 'SESSION',"
-                + "`remaining_uses` INT NOT NULL DEFAULT -1"
-                + ");";
-        String accountIndex = "CREATE INDEX IF NOT EXISTS `idx_" + table + "_account` ON `" + table + "` (`account_id`);";
-        try (Connection connection = sql.getConnection()) {
-            if (connection == null) {
-                Main.getLogger().err("Session storage schema init failed: SQL connection is null.");
-                return;
-            }
-            try (PreparedStatement createStatement = connection.prepareStatement(createTable)) {
-                createStatement.execute();
+        synchronized (this) {
+            if (schemaFailed) {
+                throw new IllegalStateException("Schema for " + table + " is unavailable after a failed migration");
             }
-            try (PreparedStatement accountStatement = connection.prepareStatement(accountIndex)) {
-                accountStatement.execute();
-            } catch (Exception e) {
-                Main.getLogger().err("Session storage account index init failed: " + e.getMessage());
-            }
-            String typeColumn = "ALTER TABLE `" + table + "` ADD COLUMN `type` VARCHAR(16) NOT NULL DEFAULT 'SESSION'";
-            try (PreparedStatement typeStatement = connection.prepareStatement(typeColumn)) {
-                typeStatement.execute();
-            } catch (Exception e) {
-                Main.getLogger().deb("Session storage type column init skipped: " + e.getMessage());
-            }
-            String remainingColumn = "ALTER TABLE `" + table + "` ADD COLUMN `remaining_uses` INT NOT NULL DEFAULT -1";
-            try (PreparedStatement remainingStatement = connection.prepareStatement(remainingColumn)) {
-                remainingStatement.execute();
-            } catch (Exception e) {
-                Main.getLogger().deb("Session storage remaining uses column init skipped: " + e.getMessage());
+            if (!schemaEnsured) {
+                schemaEnsured = migrations().migrate();
+                schemaFailed = !schemaEnsured;
+                if (schemaFailed) {
+                    throw new IllegalStateException("Schema migration failed for " + table);
+                }
             }
-            schemaEnsured = true;
-        } catch (Exception e) {
-            Main.getLogger().err("Session storage schema init failed: " + e.getMessage());
         }
     }
 
+    private SqlMigrator migrations() {
+        return new SqlMigrator(router.getPrimary(), table)
+                .add(1, "create table", connection -> {
+                    SqlMigrator.execute(connection, "CREATE TABLE IF NOT EXISTS `" + table + "` ("
+                            + "`token` VARCHAR(128) NOT NULL PRIMARY KEY,"
+                            + "`account_id` VARCHAR(36) NOT NULL,"
+                            + "`created_at` BIGINT NOT NULL,"
+                            + "`expires_at` BIGINT NOT NULL,"
+                            + "`type` VARCHAR(16) NOT NULL DEFAULT 'SESSION',"
+                            + "`remaining_uses` INT NOT NULL DEFAULT -1"
+                            + ")");
+                    SqlMigrator.createIndex(connection, table, "idx_" + table + "_account", false, "account_id");
+                })
+                .add(2, "add token type and remaining uses columns", connection -> {
+                    Set<String> columns = SqlMigrator.columns(connection, table);
+                    SqlMigrator.addColumn(connection, table, columns, "type", "VARCHAR(16) NOT NULL DEFAULT 'SESSION'");
+                    SqlMigrator.addColumn(connection, table, columns, "remaining_uses", "INT NOT NULL DEFAULT -1");
+                });
+    }
+
     @Override
     public Optional<AccountSessionRecord> findByToken(String token) {
         ensureSchema();
-        if (!sql.reconnect()) {
-            Main.getLogger().err("Session storage could not reconnect to SQL backend.");
-            return Optional.empty();
-        }
-        String query = "SELECT * FROM `" + table + "` WHERE `token` = ?";
-        try (Connection connection = sql.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query)) {
+        try (Connection connection = router.getConsistentReadConnection();
+             PreparedStatement statement = connection.prepareStatement(findByTokenQuery)) {
             statement.setString(1, token);
             try (ResultSet resultSet = statement.executeQuery()) {
                 if (resultSet.next()) {
@@ -102,15 +116,26 @@ public class SqlAccountSessionStorage implements AccountSessionStorage {
     }
 
     @Override
-    public boolean create(AccountSessionRecord session) {
+    public List<String> findAllTokens() {
         ensureSchema();
-        if (!sql.reconnect()) {
-            Main.getLogger().err("Session storage could not reconnect to SQL backend.");
-            return false;
+        List<String> tokens = new ArrayList<>();
+        try (Connection connection = router.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(findAllTokensQuery);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                tokens.add(resultSet.getString("token"));
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Session storage token scan failed: " + e.getMessage(), e);
         }
-        String query = "INSERT INTO `" + table + "` (`token`, `account_id`, `created_at`, `expires_at`, `type`, `remaining_uses`) VALUES (?, ?, ?, ?, ?, ?)";
-        try (Connection connection = sql.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query)) {
+        return tokens;
+    }
+
+    @Override
+    public boolean create(AccountSessionRecord session) {
+        ensureSchema();
+        try (Connection connection = router.getConnection();
+             PreparedStatement statement = connection.prepareStatement(insertQuery)) {
             statement.setString(1, session.token());
             statement.setString(2, session.accountId());
             statement.setLong(3, session.createdAt());
@@ -127,13 +152,8 @@ public class SqlAccountSessionStorage implements AccountSessionStorage {
     @Override
     public boolean update(AccountSessionRecord session) {
         ensureSchema();
-        if (!sql.reconnect()) {
-            Main.getLogger().err("Session storage could not reconnect to SQL backend.");
-            return false;
-        }
-        String query = "UPDATE `" + table + "` SET `account_id` = ?, `created_at` = ?, `expires_at` = ?, `type` = ?, `remaining_uses` = ? WHERE `token` = ?";
-        try (Connection connection = sql.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query)) {
+        try (Connection connection = router.getConnection();
+             PreparedStatement statement = connection.prepareStatement(updateQuery)) {
             statement.setString(1, session.accountId());
             statement.setLong(2, session.createdAt());
             statement.setLong(3, session.expiresAt());
@@ -150,13 +170,8 @@ public class SqlAccountSessionStorage implements AccountSessionStorage {
     @Override
     public boolean deleteByAccountId(String accountId) {
         ensureSchema();
-        if (!sql.reconnect()) {
-            Main.getLogger().err("Session storage could not reconnect to SQL backend.");
-            return false;
-        }
-        String query = "DELETE FROM `" + table + "` WHERE `account_id` = ?";
-        try (Connection connection = sql.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query)) {
+        try (Connection connection = router.getConnection();
+             PreparedStatement statement = connection.prepareStatement(deleteByAccountIdQuery)) {
             statement.setString(1, accountId);
             return statement.executeUpdate() > 0;
         } catch (Exception e) {
@@ -168,13 +183,8 @@ public class SqlAccountSessionStorage implements AccountSessionStorage {
     @Override
     public boolean delete(String token) {
         ensureSchema();
-        if (!sql.reconnect()) {
-            Main.getLogger().err("Session storage could not reconnect to SQL backend.");
-            return false;
-        }
-        String query = "DELETE FROM `" + table + "` WHERE `token` = ?";
-        try (Connection connection = sql.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query)) {
+        try (Connection connection = router.getConnection();
+             PreparedStatement statement = connection.prepareStatement(deleteQuery)) {
             statement.setString(1, token);
             return statement.executeUpdate() > 0;
         } catch (Exception e) {
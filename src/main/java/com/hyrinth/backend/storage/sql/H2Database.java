@@ -15,11 +15,17 @@ public class H2Database implements SQL {
     private final String path;
 
     public H2Database(String path) {
+        this(path, false, 0);
+    }
+
+    public H2Database(String path, boolean autoServer, int cacheSize) {
         this.path = path.replace("\\", "/");
         if (this.path.startsWith("mem:")) {
             url = "jdbc:h2:" + this.path + ";DB_CLOSE_DELAY=-1";
         } else {
-            url = "jdbc:h2:file:" + this.path + ";AUTO_SERVER=TRUE";
+            url = "jdbc:h2:file:" + this.path
+                    + (cacheSize > 0 ? ";CACHE_SIZE=" + cacheSize : "")
+                    + (autoServer ? ";AUTO_SERVER=TRUE" : "");
             File file = new File(this.path);
             File folder = file.getParentFile();
             if (folder != null && !folder.exists()) {
@@ -43,6 +49,7 @@ public class H2Database implements SQL {
 
     @Override
     public boolean reconnect() {
+        disconnect();
         try {
             connection = DriverManager.getConnection(url);
             return connection != null;
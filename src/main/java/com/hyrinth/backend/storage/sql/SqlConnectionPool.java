@@ -0,0 +1,487 @@
+package com.hyrinth.backend.storage.sql;
+
+import com.hyrinth.backend.HyrinthBackendSettings;
+import com.hyrinth.backend.Main;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SqlConnectionPool implements AutoCloseable {
+
+    private static final long VALIDATION_INTERVAL_MILLIS = 5000L;
+    private static final long HOUSEKEEPING_INTERVAL_MILLIS = 30000L;
+
+    private final String name;
+    private final String url;
+    private final Properties properties = new Properties();
+    private final Options options;
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> leased = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger total = new AtomicInteger();
+    private final Semaphore permits;
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed = false;
+
+    public SqlConnectionPool(String name, String url, String user, String password, Options options) {
+        this(name, url, credentials(user, password), options);
+    }
+
+    public SqlConnectionPool(String name, String url, Properties connectionProperties, Options options) {
+        this.name = name;
+        this.url = url;
+        this.options = options;
+        properties.putAll(connectionProperties);
+        permits = new Semaphore(options.maxSize(), true);
+        housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hyrinth-sql-pool-" + name.toLowerCase());
+            thread.setDaemon(true);
+            return thread;
+        });
+        fill();
+        housekeeper.scheduleWithFixedDelay(this::housekeep, HOUSEKEEPING_INTERVAL_MILLIS, HOUSEKEEPING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        Main.getLogger().deb("[" + name + "] Created connection pool (min idle " + options.minIdle() + ", max " + options.maxSize() + ") for " + url);
+    }
+
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("[" + name + "] Connection pool is closed.");
+        }
+        try {
+            if (!permits.tryAcquire(options.connectionTimeout(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("[" + name + "] Timed out after " + options.connectionTimeout()
+                        + "ms waiting for a pooled connection (" + leased.size() + " in use).");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("[" + name + "] Interrupted while waiting for a pooled connection.", e);
+        }
+        try {
+            PooledConnection pooled = acquire();
+            pooled.leasedAt = System.currentTimeMillis();
+            pooled.leaseTrace = options.leakDetectionThreshold() > 0 ? new Exception("Connection leased here") : null;
+            pooled.leakReported = false;
+            leased.add(pooled);
+            return createProxy(pooled);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int getActiveConnections() {
+        return leased.size();
+    }
+
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    public int getTotalConnections() {
+        return total.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+        Main.getLogger().deb("[" + name + "] Closed connection pool.");
+    }
+
+    private static Properties credentials(String user, String password) {
+        Properties credentials = new Properties();
+        if (user != null && !user.isBlank()) {
+            credentials.setProperty("user", user);
+        }
+        if (password != null && !password.isEmpty()) {
+            credentials.setProperty("password", password);
+        }
+        return credentials;
+    }
+
+    private PooledConnection acquire() throws SQLException {
+        while (true) {
+            PooledConnection pooled = idle.pollFirst();
+            if (pooled != null) {
+                if (validate(pooled)) {
+                    return pooled;
+                }
+                discard(pooled);
+                continue;
+            }
+            int current = total.get();
+            if (current < options.maxSize()) {
+                if (total.compareAndSet(current, current + 1)) {
+                    try {
+                        return open();
+                    } catch (SQLException e) {
+                        total.decrementAndGet();
+                        throw e;
+                    }
+                }
+                continue;
+            }
+            try {
+                pooled = idle.pollFirst(50, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("[" + name + "] Interrupted while waiting for a pooled connection.", e);
+            }
+            if (pooled != null) {
+                if (validate(pooled)) {
+                    return pooled;
+                }
+                discard(pooled);
+            }
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, properties);
+        return new PooledConnection(connection, options.statementCacheSize());
+    }
+
+    private boolean validate(PooledConnection pooled) {
+        if (System.currentTimeMillis() - pooled.lastUsedAt < VALIDATION_INTERVAL_MILLIS) {
+            return true;
+        }
+        try {
+            if (pooled.connection.isClosed()) {
+                return false;
+            }
+            String validationQuery = options.validationQuery();
+            if (validationQuery == null || validationQuery.isBlank()) {
+                return pooled.connection.isValid(5);
+            }
+            try (Statement statement = pooled.connection.createStatement()) {
+                statement.setQueryTimeout(5);
+                statement.execute(validationQuery);
+            }
+            return true;
+        } catch (Exception e) {
+            Main.getLogger().deb("[" + name + "] Discarding broken pooled connection: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        if (!leased.remove(pooled)) {
+            return;
+        }
+        boolean healthy = reset(pooled);
+        pooled.statements.values().removeIf(cached -> {
+            if (!cached.inUse) {
+                return false;
+            }
+            try {
+                cached.statement.close();
+            } catch (SQLException ignore) {}
+            return true;
+        });
+        pooled.lastUsedAt = System.currentTimeMillis();
+        pooled.leaseTrace = null;
+        if (closed || !healthy) {
+            discard(pooled);
+        } else {
+            idle.offerFirst(pooled);
+        }
+        permits.release();
+    }
+
+    private boolean reset(PooledConnection pooled) {
+        try {
+            if (pooled.connection.isClosed()) {
+                return false;
+            }
+            if (!pooled.connection.getAutoCommit()) {
+                pooled.connection.rollback();
+                pooled.connection.setAutoCommit(true);
+            }
+            pooled.connection.clearWarnings();
+            return true;
+        } catch (Exception e) {
+            Main.getLogger().deb("[" + name + "] Could not reset pooled connection: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        total.decrementAndGet();
+        try {
+            pooled.connection.close();
+        } catch (Exception e) {
+            Main.getLogger().deb("[" + name + "] Could not close pooled connection: " + e.getMessage());
+        }
+    }
+
+    private void fill() {
+        while (!closed && idle.size() < options.minIdle()) {
+            int current = total.get();
+            if (current >= options.maxSize()) {
+                return;
+            }
+            if (!total.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            try {
+                idle.offerLast(open());
+            } catch (SQLException e) {
+                total.decrementAndGet();
+                Main.getLogger().err("[" + name + "] Can't open pooled connection: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+            if (options.idleTimeout() > 0) {
+                List<PooledConnection> candidates = new ArrayList<>(idle);
+                for (int i = candidates.size() - 1; i >= 0; i--) {
+                    PooledConnection pooled = candidates.get(i);
+                    if (idle.size() <= options.minIdle()) {
+                        break;
+                    }
+                    if (now - pooled.lastUsedAt > options.idleTimeout() && idle.removeLastOccurrence(pooled)) {
+                        discard(pooled);
+                    }
+                }
+            }
+            fill();
+            if (options.leakDetectionThreshold() > 0) {
+                for (PooledConnection pooled : leased) {
+                    if (!pooled.leakReported && now - pooled.leasedAt > options.leakDetectionThreshold()) {
+                        pooled.leakReported = true;
+                        Main.getLogger().err("[" + name + "] Possible connection leak: connection in use for "
+                                + (now - pooled.leasedAt) + "ms." + formatTrace(pooled.leaseTrace));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            Main.getLogger().err("[" + name + "] Connection pool housekeeping failed: " + e.getMessage());
+        }
+    }
+
+    private String formatTrace(Exception trace) {
+        if (trace == null) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder(" Leased at:");
+        for (StackTraceElement element : trace.getStackTrace()) {
+            builder.append("\n    at ").append(element);
+        }
+        return builder.toString();
+    }
+
+    private Connection createProxy(PooledConnection pooled) {
+        AtomicBoolean returned = new AtomicBoolean(false);
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (!returned.get() && "prepareStatement".equals(method.getName())
+                    && args != null && args.length == 1 && options.statementCacheSize() > 0) {
+                return prepareCached(pooled, (String) args[0], (Connection) proxy);
+            }
+            switch (method.getName()) {
+                case "close" -> {
+                    if (returned.compareAndSet(false, true)) {
+                        release(pooled);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned.get() || pooled.connection.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled[" + name + "]" + pooled.connection;
+                }
+            }
+            if (returned.get()) {
+                throw new SQLException("[" + name + "] Connection has already been returned to the pool.");
+            }
+            try {
+                return method.invoke(pooled.connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+    }
+
+    private PreparedStatement prepareCached(PooledConnection pooled, String sql, Connection connectionProxy) throws SQLException {
+        CachedStatement cached = pooled.statements.get(sql);
+        if (cached != null && cached.inUse) {
+            return pooled.connection.prepareStatement(sql);
+        }
+        if (cached == null || cached.statement.isClosed()) {
+            cached = new CachedStatement(pooled.connection.prepareStatement(sql));
+            pooled.statements.put(sql, cached);
+        }
+        cached.inUse = true;
+        return createStatementProxy(cached, connectionProxy);
+    }
+
+    private PreparedStatement createStatementProxy(CachedStatement cached, Connection connectionProxy) {
+        AtomicBoolean returned = new AtomicBoolean(false);
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (returned.compareAndSet(false, true)) {
+                        cached.inUse = false;
+                        if (cached.evicted || !clear(cached)) {
+                            cached.statement.close();
+                        }
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned.get() || cached.statement.isClosed();
+                }
+                case "getConnection" -> {
+                    return connectionProxy;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Cached[" + name + "]" + cached.statement;
+                }
+            }
+            if (returned.get()) {
+                throw new SQLException("[" + name + "] Statement has already been returned to the cache.");
+            }
+            try {
+                return method.invoke(cached.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, handler);
+    }
+
+    private boolean clear(CachedStatement cached) {
+        try {
+            cached.statement.clearParameters();
+            cached.statement.clearBatch();
+            cached.statement.clearWarnings();
+            return true;
+        } catch (Exception e) {
+            Main.getLogger().deb("[" + name + "] Could not reset cached statement: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static final class PooledConnection {
+
+        private final Connection connection;
+        private final Map<String, CachedStatement> statements;
+        private volatile long lastUsedAt = System.currentTimeMillis();
+        private volatile long leasedAt;
+        private volatile Exception leaseTrace;
+        private volatile boolean leakReported;
+
+        private PooledConnection(Connection connection, int statementCacheSize) {
+            this.connection = connection;
+            this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                    if (size() <= statementCacheSize) {
+                        return false;
+                    }
+                    CachedStatement cached = eldest.getValue();
+                    cached.evicted = true;
+                    if (!cached.inUse) {
+                        try {
+                            cached.statement.close();
+                        } catch (SQLException ignore) {}
+                    }
+                    return true;
+                }
+            };
+        }
+    }
+
+    private static final class CachedStatement {
+
+        private final PreparedStatement statement;
+        private boolean inUse;
+        private boolean evicted;
+
+        private CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+    }
+
+    public record Options(
+            int minIdle,
+            int maxSize,
+            long connectionTimeout,
+            long idleTimeout,
+            long leakDetectionThreshold,
+            String validationQuery,
+            int statementCacheSize
+    ) {
+        public Options {
+            if (maxSize <= 0) {
+                throw new IllegalArgumentException("maxSize must be > 0");
+            }
+            minIdle = Math.max(0, Math.min(minIdle, maxSize));
+        }
+
+        public static Options of(HyrinthBackendSettings settings) {
+            return new Options(
+                    settings.getSqlPoolMinIdle(),
+                    settings.getSqlPoolMaxSize(),
+                    settings.getSqlPoolConnectionTimeout(),
+                    settings.getSqlPoolIdleTimeout(),
+                    settings.getSqlPoolLeakDetectionThreshold(),
+                    settings.getSqlPoolValidationQuery(),
+                    settings.getSqlPoolStatementCacheSize()
+            );
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.hyrinth.backend.storage.sql;
+
+import com.hyrinth.backend.Main;
+import com.hyrinth.backend.storage.UnitOfWork;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class SqlConnectionRouter {
+
+    private static final long REPLICA_RETRY_DELAY = 30000L;
+    private static final ThreadLocal<Boolean> STICKY = ThreadLocal.withInitial(() -> false);
+
+    private final SqlConnectionPool primary;
+    private final List<SqlConnectionPool> replicas;
+    private final AtomicLongArray replicaDownUntil;
+    private final boolean laggingReplicas;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ThreadLocal<Connection> transaction = new ThreadLocal<>();
+    private final List<Runnable> transactionListeners = new CopyOnWriteArrayList<>();
+
+    public SqlConnectionRouter(SqlConnectionPool primary) {
+        this(primary, List.of());
+    }
+
+    public SqlConnectionRouter(SqlConnectionPool primary, List<SqlConnectionPool> replicas) {
+        this(primary, replicas, true);
+    }
+
+    public SqlConnectionRouter(SqlConnectionPool primary, List<SqlConnectionPool> replicas, boolean laggingReplicas) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.replicaDownUntil = new AtomicLongArray(this.replicas.size());
+        this.laggingReplicas = laggingReplicas;
+    }
+
+    public static void resetStickiness() {
+        STICKY.remove();
+    }
+
+    public Connection getConnection() throws SQLException {
+        if (laggingReplicas && !replicas.isEmpty()) {
+            STICKY.set(true);
+        }
+        return getPrimaryConnection();
+    }
+
+    public Connection getPrimaryConnection() throws SQLException {
+        Connection bound = transaction.get();
+        return bound != null ? bound : primary.getConnection();
+    }
+
+    public Connection getConsistentReadConnection() throws SQLException {
+        return laggingReplicas ? getPrimaryConnection() : getReadConnection();
+    }
+
+    public Connection getReadConnection() throws SQLException {
+        if (!readsFromReplica()) {
+            return getPrimaryConnection();
+        }
+        long now = System.currentTimeMillis();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            int index = (start + i) % replicas.size();
+            if (replicaDownUntil.get(index) > now) {
+                continue;
+            }
+            SqlConnectionPool replica = replicas.get(index);
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                replicaDownUntil.set(index, now + REPLICA_RETRY_DELAY);
+                Main.getLogger().err("[" + replica.getName() + "] Replica unavailable, routing reads elsewhere: " + e.getMessage());
+            }
+        }
+        return primary.getConnection();
+    }
+
+    public boolean readsFromReplica() {
+        return !replicas.isEmpty() && !(laggingReplicas && STICKY.get()) && transaction.get() == null;
+    }
+
+    public boolean hasLaggingReplicas() {
+        return laggingReplicas && !replicas.isEmpty();
+    }
+
+    public boolean inTransaction() {
+        return transaction.get() != null;
+    }
+
+    public void addTransactionListener(Runnable listener) {
+        transactionListeners.add(listener);
+    }
+
+    public void runInTransaction(UnitOfWork work) throws Exception {
+        if (transaction.get() != null) {
+            work.run();
+            return;
+        }
+        if (laggingReplicas && !replicas.isEmpty()) {
+            STICKY.set(true);
+        }
+        try (Connection connection = primary.getConnection()) {
+            connection.setAutoCommit(false);
+            transaction.set(unclosable(connection));
+            try {
+                work.run();
+                connection.commit();
+            } catch (Exception e) {
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackError) {
+                    Main.getLogger().err("[" + primary.getName() + "] Transaction rollback failed: " + rollbackError.getMessage());
+                }
+                throw e;
+            } finally {
+                transaction.remove();
+                connection.setAutoCommit(true);
+            }
+        } finally {
+            transactionListeners.forEach(Runnable::run);
+        }
+    }
+
+    public SqlConnectionPool getPrimary() {
+        return primary;
+    }
+
+    public List<SqlConnectionPool> getReplicas() {
+        return replicas;
+    }
+
+    public void close() {
+        primary.close();
+        replicas.forEach(SqlConnectionPool::close);
+    }
+
+    private Connection unclosable(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+        );
+    }
+}
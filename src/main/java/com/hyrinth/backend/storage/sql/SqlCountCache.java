@@ -0,0 +1,64 @@
+package com.hyrinth.backend.storage.sql;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SqlCountCache {
+
+    private static final long DEFAULT_TTL = 30000L;
+    private static final int MAX_ENTRIES = 1024;
+
+    private final long ttl;
+    private final Object lock = new Object();
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private final AtomicLong generation = new AtomicLong();
+
+    public SqlCountCache() {
+        this(DEFAULT_TTL);
+    }
+
+    public SqlCountCache(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public long get(String key, Loader loader) throws Exception {
+        long now = System.currentTimeMillis();
+        long current = generation.get();
+        synchronized (lock) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.generation() == current && entry.expiresAt() > now) {
+                return entry.value();
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        long value = loader.load();
+        synchronized (lock) {
+            if (generation.get() == current) {
+                entries.put(key, new Entry(value, current, now + ttl));
+            }
+        }
+        return value;
+    }
+
+    public void invalidate() {
+        synchronized (lock) {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    public interface Loader {
+        long load() throws Exception;
+    }
+
+    private record Entry(long value, long generation, long expiresAt) {
+    }
+}
@@ -0,0 +1,191 @@
+package com.hyrinth.backend.storage.sql;
+
+import com.hyrinth.backend.Main;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class SqlMigrator {
+
+    private static final String VERSION_TABLE = "schema_version";
+
+    private final SqlConnectionPool pool;
+    private final String scope;
+    private final List<Migration> migrations = new ArrayList<>();
+
+    public SqlMigrator(SqlConnectionPool pool, String scope) {
+        this.pool = pool;
+        this.scope = scope;
+    }
+
+    public SqlMigrator add(int version, String description, Step step) {
+        if (migrations.stream().anyMatch(migration -> migration.version() == version)) {
+            throw new IllegalArgumentException("Duplicate migration version " + version + " for " + scope);
+        }
+        migrations.add(new Migration(version, description, step));
+        migrations.sort(Comparator.comparingInt(Migration::version));
+        return this;
+    }
+
+    public boolean migrate() {
+        try (Connection connection = pool.getConnection()) {
+            int current = currentVersion(connection);
+            for (Migration migration : migrations) {
+                if (migration.version() <= current) {
+                    continue;
+                }
+                Main.getLogger().log("[" + scope + "] Applying schema migration v" + migration.version() + ": " + migration.description());
+                apply(connection, migration, current);
+                current = migration.version();
+            }
+            return true;
+        } catch (Exception e) {
+            Main.getLogger().err("[" + scope + "] Schema migration failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public static Set<String> columns(Connection connection, String table) throws Exception {
+        Set<String> columns = new HashSet<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT * FROM `" + table + "` WHERE 1 = 0")) {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                columns.add(metaData.getColumnName(i).toLowerCase());
+            }
+        }
+        return columns;
+    }
+
+    public static boolean hasIndex(Connection connection, String table, String index) throws Exception {
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String name : new String[]{table, table.toUpperCase(), table.toLowerCase()}) {
+            try (ResultSet resultSet = metaData.getIndexInfo(connection.getCatalog(), null, name, false, true)) {
+                while (resultSet.next()) {
+                    if (index.equalsIgnoreCase(resultSet.getString("INDEX_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    public static void execute(Connection connection, String sql) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    public static boolean addColumn(Connection connection, String table, Set<String> columns, String column, String definition) throws Exception {
+        if (columns.contains(column.toLowerCase())) {
+            return false;
+        }
+        execute(connection, "ALTER TABLE `" + table + "` ADD COLUMN `" + column + "` " + definition);
+        columns.add(column.toLowerCase());
+        return true;
+    }
+
+    public static boolean addTextColumn(Connection connection, String table, Set<String> columns, String column, String fill) throws Exception {
+        String literal = "'" + fill.replace("'", "''") + "'";
+        if (!isMySql(connection)) {
+            return addColumn(connection, table, columns, column, "TEXT NOT NULL DEFAULT " + literal);
+        }
+        boolean added = addColumn(connection, table, columns, column, "TEXT NOT NULL");
+        if (!fill.isEmpty()) {
+            execute(connection, "UPDATE `" + table + "` SET `" + column + "` = " + literal + " WHERE `" + column + "` = ''");
+        }
+        return added;
+    }
+
+    public static boolean isMySql(Connection connection) throws Exception {
+        String product = connection.getMetaData().getDatabaseProductName().toLowerCase();
+        return product.contains("mysql") || product.contains("mariadb");
+    }
+
+    public static void createIndex(Connection connection, String table, String index, boolean unique, String... columns) throws Exception {
+        if (!hasIndex(connection, table, index)) {
+            execute(connection, "CREATE " + (unique ? "UNIQUE " : "") + "INDEX `" + index + "` ON `" + table + "` (`"
+                    + String.join("`, `", columns) + "`)");
+        }
+    }
+
+    private int currentVersion(Connection connection) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT `version` FROM `" + VERSION_TABLE + "` WHERE `scope` = ?")) {
+            statement.setString(1, scope);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt(1) : 0;
+            }
+        } catch (Exception e) {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+            execute(connection, "CREATE TABLE IF NOT EXISTS `" + VERSION_TABLE + "` ("
+                    + "`scope` VARCHAR(128) NOT NULL PRIMARY KEY,"
+                    + "`version` INT NOT NULL,"
+                    + "`updated_at` BIGINT NOT NULL"
+                    + ")");
+            return 0;
+        }
+    }
+
+    private void apply(Connection connection, Migration migration, int previous) throws Exception {
+        boolean ownsTransaction = connection.getAutoCommit();
+        if (ownsTransaction) {
+            connection.setAutoCommit(false);
+        }
+        try {
+            migration.step().apply(connection);
+            recordVersion(connection, migration.version(), previous);
+            if (ownsTransaction) {
+                connection.commit();
+            }
+        } catch (Exception e) {
+            if (ownsTransaction) {
+                connection.rollback();
+            }
+            throw new IllegalStateException("v" + migration.version() + " (" + migration.description() + "): " + e.getMessage(), e);
+        } finally {
+            if (ownsTransaction) {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void recordVersion(Connection connection, int version, int previous) throws Exception {
+        long now = System.currentTimeMillis();
+        try (PreparedStatement update = connection.prepareStatement("UPDATE `" + VERSION_TABLE + "` SET `version` = ?, `updated_at` = ? WHERE `scope` = ?")) {
+            update.setInt(1, version);
+            update.setLong(2, now);
+            update.setString(3, scope);
+            if (update.executeUpdate() > 0) {
+                return;
+            }
+        }
+        if (previous > 0) {
+            throw new IllegalStateException("schema version row for " + scope + " disappeared");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO `" + VERSION_TABLE + "` (`scope`, `version`, `updated_at`) VALUES (?, ?, ?)")) {
+            insert.setString(1, scope);
+            insert.setInt(2, version);
+            insert.setLong(3, now);
+            insert.executeUpdate();
+        }
+    }
+
+    public interface Step {
+        void apply(Connection connection) throws Exception;
+    }
+
+    private record Migration(int version, String description, Step step) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.hyrinth.backend.storage.sql;
+
+import com.hyrinth.backend.HyrinthBackendSettings;
+import com.hyrinth.backend.Main;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+public class SqliteDatabase {
+
+    private static final int SQLITE_OPEN_READONLY = 0x00000001;
+
+    private final String url;
+    private final String path;
+
+    public SqliteDatabase(String path) {
+        this.path = path.replace("\\", "/");
+        this.url = "jdbc:sqlite:" + this.path;
+        File folder = new File(this.path).getParentFile();
+        if (folder != null && !folder.exists()) {
+            Main.getLogger().deb("[SQLite] Created db folder: " + folder.mkdirs());
+        }
+    }
+
+    public SqlConnectionRouter openRouter(HyrinthBackendSettings settings) {
+        SqlConnectionPool.Options defaults = SqlConnectionPool.Options.of(settings);
+        SqlConnectionPool writer = new SqlConnectionPool("SQLite", url, writerProperties(settings), new SqlConnectionPool.Options(
+                1,
+                1,
+                defaults.connectionTimeout(),
+                0,
+                defaults.leakDetectionThreshold(),
+                defaults.validationQuery(),
+                defaults.statementCacheSize()
+        ));
+        List<SqlConnectionPool> readers = new ArrayList<>();
+        if (settings.getSqliteReaders() > 0) {
+            readers.add(new SqlConnectionPool("SQLite-read", url, readerProperties(settings), new SqlConnectionPool.Options(
+                    Math.min(defaults.minIdle(), settings.getSqliteReaders()),
+                    settings.getSqliteReaders(),
+                    defaults.connectionTimeout(),
+                    defaults.idleTimeout(),
+                    defaults.leakDetectionThreshold(),
+                    defaults.validationQuery(),
+                    defaults.statementCacheSize()
+            )));
+        }
+        return new SqlConnectionRouter(writer, readers, false);
+    }
+
+    private Properties writerProperties(HyrinthBackendSettings settings) {
+        Properties properties = sharedProperties(settings);
+        properties.setProperty("journal_mode", "WAL");
+        properties.setProperty("synchronous", settings.getSqliteSynchronous());
+        return properties;
+    }
+
+    private Properties readerProperties(HyrinthBackendSettings settings) {
+        Properties properties = sharedProperties(settings);
+        properties.setProperty("open_mode", String.valueOf(SQLITE_OPEN_READONLY));
+        return properties;
+    }
+
+    private Properties sharedProperties(HyrinthBackendSettings settings) {
+        Properties properties = new Properties();
+        properties.setProperty("busy_timeout", String.valueOf(settings.getSqlPoolConnectionTimeout()));
+        properties.setProperty("cache_size", String.valueOf(-Math.abs(settings.getSqliteCacheSize())));
+        properties.setProperty("mmap_size", String.valueOf(settings.getSqliteMmapSize()));
+        properties.setProperty("temp_store", "MEMORY");
+        return properties;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getPath() {
+        return path;
+    }
+}
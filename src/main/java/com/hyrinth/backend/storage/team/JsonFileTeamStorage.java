@@ -2,37 +2,78 @@ package com.hyrinth.backend.storage.team;
 
 import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
+import com.hyrinth.backend.Main;
+import com.hyrinth.backend.storage.PageCursor;
+import com.hyrinth.backend.storage.TransactionalStorage;
+import com.hyrinth.backend.storage.UnitOfWork;
+import com.hyrinth.backend.storage.json.JsonBinarySnapshot;
+import com.hyrinth.backend.storage.json.JsonFileOptions;
+import com.hyrinth.backend.storage.json.JsonFileWriter;
+import com.hyrinth.backend.storage.json.JsonJournal;
+import com.hyrinth.backend.storage.json.JsonSnapshotReader;
 
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 
-public class JsonFileTeamStorage implements TeamStorage {
+public class JsonFileTeamStorage implements TeamStorage, TransactionalStorage, AutoCloseable {
 
     private static final String TEAMS_KEY = "teams";
 
     private final Path filePath;
     private final Object lock = new Object();
+    private final Object snapshotLock = new Object();
+    private final Map<String, TeamRecord> teams = new LinkedHashMap<>();
+    private final NavigableMap<PageCursor, TeamRecord> pageIndex = new TreeMap<>();
+    private final Map<String, Long> tallies = new HashMap<>();
+    private final Map<String, JSONObject> pending = new LinkedHashMap<>();
+    private final JsonJournal journal;
+    private final JsonFileWriter writer;
+    private final boolean binarySnapshots;
     private JSONObject data;
+    private boolean deferSaves;
+    private boolean dirty;
 
     public JsonFileTeamStorage(Path filePath) {
+        this(filePath, JsonFileOptions.DEFAULT);
+    }
+
+    public JsonFileTeamStorage(Path filePath, JsonFileOptions options) {
         this.filePath = filePath;
+        this.binarySnapshots = options.binarySnapshots();
+        this.writer = new JsonFileWriter(filePath, options.journal().enabled() ? 0L : options.commitWindow(), this::serialize);
+        try {
+            this.journal = options.journal().enabled() ? new JsonJournal(filePath, options.journal(), this::compact) : null;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to open team storage journal: " + filePath, e);
+        }
         loadOrCreate();
     }
 
     @Override
     public Optional<TeamRecord> findById(String id) {
         synchronized (lock) {
-            return teamsArray().stream()
-                    .filter(JSONObject.class::isInstance)
-                    .map(JSONObject.class::cast)
-                    .map(this::toRecord)
-                    .filter(record -> record.id().equals(id))
-                    .findFirst();
+            return Optional.ofNullable(teams.get(id));
+        }
+    }
+
+    @Override
+    public List<TeamRecord> findByIds(List<String> ids) {
+        synchronized (lock) {
+            Set<String> targets = new LinkedHashSet<>(ids);
+            targets.remove(null);
+            return targets.stream().map(teams::get).filter(Objects::nonNull).toList();
         }
     }
 
@@ -42,19 +83,43 @@ public class JsonFileTeamStorage implements TeamStorage {
             if (limit <= 0 || offset < 0) {
                 return List.of();
             }
-            List<TeamRecord> records = new ArrayList<>();
-            for (Object entry : teamsArray()) {
-                if (entry instanceof JSONObject team) {
-                    records.add(toRecord(team));
-                }
-            }
-            records.sort(Comparator.comparingLong(TeamRecord::createdAt)
-                    .thenComparing(TeamRecord::id));
-            if (offset >= records.size()) {
+            return pageIndex.values().stream()
+                    .skip(offset)
+                    .limit(limit)
+                    .toList();
+        }
+    }
+
+    @Override
+    public List<TeamRecord> findPageAfter(PageCursor cursor, int limit) {
+        synchronized (lock) {
+            if (limit <= 0) {
                 return List.of();
             }
-            int toIndex = Math.min(records.size(), offset + limit);
-            return records.subList(offset, toIndex);
+            return (cursor == null ? pageIndex : pageIndex.tailMap(cursor, false)).values().stream()
+                    .limit(limit)
+                    .toList();
+        }
+    }
+
+    @Override
+    public List<String> findAllIds() {
+        synchronized (lock) {
+            return List.copyOf(teams.keySet());
+        }
+    }
+
+    @Override
+    public long count() {
+        synchronized (lock) {
+            return teams.size();
+        }
+    }
+
+    @Override
+    public long countByOwner(String ownerId) {
+        synchronized (lock) {
+            return tallies.getOrDefault("owner:" + ownerId, 0L);
         }
     }
 
@@ -64,10 +129,10 @@ public class JsonFileTeamStorage implements TeamStorage {
             if (record == null || record.id() == null || record.id().isBlank()) {
                 return false;
             }
-            if (findById(record.id()).isPresent()) {
+            if (teams.containsKey(record.id())) {
                 return false;
             }
-            teamsArray().add(fromRecord(record));
+            put(track(record.id(), record));
             return save();
         }
     }
@@ -78,108 +143,304 @@ public class JsonFileTeamStorage implements TeamStorage {
             if (record == null || record.id() == null || record.id().isBlank()) {
                 return false;
             }
-            JSONArray teams = teamsArray();
-            for (int i = 0; i < teams.size(); i++) {
-                Object entry = teams.get(i);
-                if (entry instanceof JSONObject team) {
-                    if (record.id().equals(team.getString("id"))) {
-                        teams.set(i, fromRecord(record));
-                        return save();
-                    }
-                }
+            if (!teams.containsKey(record.id())) {
+                return false;
             }
-            return false;
+            put(track(record.id(), record));
+            return save();
         }
     }
 
     @Override
     public boolean delete(String id) {
         synchronized (lock) {
-            JSONArray teams = teamsArray();
-            for (int i = 0; i < teams.size(); i++) {
-                Object entry = teams.get(i);
-                if (entry instanceof JSONObject team) {
-                    if (id.equals(team.getString("id"))) {
-                        teams.remove(i);
-                        return save();
-                    }
+            if (remove(id) == null) {
+                return false;
+            }
+            track(id, null);
+            return save();
+        }
+    }
+
+    @Override
+    public boolean createAll(List<TeamRecord> records) {
+        synchronized (lock) {
+            Set<String> keys = new HashSet<>();
+            for (TeamRecord record : records) {
+                if (record == null || record.id() == null || record.id().isBlank()
+                        || !keys.add(record.id()) || teams.containsKey(record.id())) {
+                    return false;
                 }
             }
-            return false;
+            records.forEach(record -> put(track(record.id(), record)));
+            return save();
         }
     }
 
-    private void loadOrCreate() {
+    @Override
+    public boolean updateAll(List<TeamRecord> records) {
         synchronized (lock) {
-            try {
-                if (Files.notExists(filePath)) {
-                    Files.createDirectories(filePath.getParent());
-                    data = new JSONObject();
-                    data.put(TEAMS_KEY, new JSONArray());
-                    save();
-                    return;
+            for (TeamRecord record : records) {
+                if (record == null || !teams.containsKey(record.id())) {
+                    return false;
                 }
-                String raw = Files.readString(filePath, StandardCharsets.UTF_8);
-                data = JSONObject.parseObject(raw);
-                if (data == null) {
-                    data = new JSONObject();
+            }
+            records.forEach(record -> put(track(record.id(), record)));
+            return save();
+        }
+    }
+
+    @Override
+    public boolean deleteAll(List<String> ids) {
+        synchronized (lock) {
+            Set<String> targets = new HashSet<>(ids);
+            if (!teams.keySet().containsAll(targets)) {
+                return false;
+            }
+            targets.forEach(target -> {
+                remove(target);
+                track(target, null);
+            });
+            return save();
+        }
+    }
+
+    @Override
+    public void runInTransaction(UnitOfWork work) throws Exception {
+        synchronized (lock) {
+            if (deferSaves) {
+                work.run();
+                return;
+            }
+            deferSaves = true;
+            dirty = false;
+            try {
+                work.run();
+            } catch (Exception e) {
+                deferSaves = false;
+                if (dirty) {
+                    discardChanges();
                 }
-                if (!data.containsKey(TEAMS_KEY)) {
-                    data.put(TEAMS_KEY, new JSONArray());
+                throw e;
+            } finally {
+                deferSaves = false;
+            }
+            if (dirty && !save()) {
+                discardChanges();
+                throw new IllegalStateException("Failed to write storage file: " + filePath);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (journal != null) {
+            synchronized (lock) {
+                if (!pending.isEmpty()) {
                     save();
                 }
-                boolean updated = false;
-                JSONArray teams = data.getJSONArray(TEAMS_KEY);
-                if (teams != null) {
-                    for (Object entry : teams) {
-                        if (entry instanceof JSONObject team) {
-                            if (!team.containsKey("projects")) {
-                                team.put("projects", new JSONArray());
-                                updated = true;
-                            }
-                            if (!team.containsKey("memberIds")) {
-                                team.put("memberIds", new JSONArray());
-                                updated = true;
-                            }
-                            if (!team.containsKey("picture")) {
-                                team.put("picture", "");
-                                updated = true;
-                            }
-                            if (!team.containsKey("isHidden")) {
-                                team.put("isHidden", false);
-                                updated = true;
-                            }
+            }
+            journal.close();
+        }
+        writer.close();
+        synchronized (lock) {
+            writeBinarySnapshot();
+        }
+    }
+
+    private void compact() {
+        String snapshot;
+        synchronized (lock) {
+            if (data == null || !pending.isEmpty() && !save()) {
+                return;
+            }
+            try {
+                snapshot = serialize();
+                journal.rotate();
+            } catch (Exception e) {
+                Main.getLogger().err("Failed to compact team storage journal: " + e.getMessage());
+                return;
+            }
+        }
+        synchronized (snapshotLock) {
+            try {
+                JsonFileWriter.writeAtomically(filePath, snapshot);
+                journal.release();
+            } catch (Exception e) {
+                Main.getLogger().err("Failed to compact team storage journal: " + filePath);
+            }
+        }
+    }
+
+    private void discardChanges() {
+        pending.clear();
+        loadOrCreate();
+    }
+
+    private void loadOrCreate() {
+        synchronized (lock) {
+            synchronized (snapshotLock) {
+                try {
+                    if (Files.notExists(filePath)) {
+                        Files.createDirectories(filePath.getParent());
+                        data = new JSONObject();
+                        clear();
+                        replayJournal();
+                        writeSnapshot();
+                        return;
+                    }
+                    clear();
+                    JsonSnapshotReader.Result loaded = JsonSnapshotReader.stream(filePath, TEAMS_KEY, binarySnapshots, JsonFileTeamStorage::migrate, team -> {
+                        TeamRecord record = toRecord(team);
+                        if (record.id() != null && !teams.containsKey(record.id())) {
+                            put(record);
                         }
+                    });
+                    data = loaded.data();
+                    boolean updated = loaded.migrated();
+                    if (replayJournal() || updated) {
+                        writeSnapshot();
                     }
+                    writeBinarySnapshot();
+                } catch (Exception e) {
+                    throw new IllegalStateException("Failed to load team storage file: " + filePath, e);
                 }
-                if (updated) {
-                    save();
-                }
-            } catch (Exception e) {
-                throw new IllegalStateException("Failed to load team storage file: " + filePath, e);
             }
         }
     }
 
-    private JSONArray teamsArray() {
-        JSONArray teams = data.getJSONArray(TEAMS_KEY);
-        if (teams == null) {
-            teams = new JSONArray();
-            data.put(TEAMS_KEY, teams);
+    static boolean migrate(JSONObject team) {
+        boolean updated = false;
+        if (!team.containsKey("projects")) {
+            team.put("projects", new JSONArray());
+            updated = true;
+        }
+        if (!team.containsKey("memberIds")) {
+            team.put("memberIds", new JSONArray());
+            updated = true;
+        }
+        if (!team.containsKey("picture")) {
+            team.put("picture", "");
+            updated = true;
         }
-        return teams;
+        if (!team.containsKey("isHidden")) {
+            team.put("isHidden", false);
+            updated = true;
+        }
+        return updated;
+    }
+
+    private void put(TeamRecord record) {
+        TeamRecord previous = teams.put(record.id(), record);
+        if (previous != null) {
+            unindex(previous);
+        }
+        pageIndex.put(PageCursor.of(record.createdAt(), record.id()), record);
+        tallies.merge("owner:" + record.ownerId(), 1L, Long::sum);
+    }
+
+    private TeamRecord remove(String id) {
+        TeamRecord removed = teams.remove(id);
+        if (removed != null) {
+            unindex(removed);
+        }
+        return removed;
+    }
+
+    private void unindex(TeamRecord record) {
+        pageIndex.remove(PageCursor.of(record.createdAt(), record.id()));
+        tallies.computeIfPresent("owner:" + record.ownerId(), (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private void clear() {
+        teams.clear();
+        pageIndex.clear();
+        tallies.clear();
     }
 
     private boolean save() {
+        if (deferSaves) {
+            dirty = true;
+            return true;
+        }
+        if (journal == null) {
+            return writeSnapshot();
+        }
+        try {
+            List<JsonJournal.Change> changes = new ArrayList<>(pending.size());
+            pending.forEach((key, value) -> changes.add(new JsonJournal.Change(key, value)));
+            journal.append(changes);
+            pending.clear();
+            return true;
+        } catch (Exception e) {
+            Main.getLogger().err("Failed to append to team storage journal: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean writeSnapshot() {
         try {
-            Files.writeString(filePath, data.toJSONString(), StandardCharsets.UTF_8);
+            if (journal == null) {
+                return writer.flushAndWait(lock);
+            }
+            synchronized (snapshotLock) {
+                JsonFileWriter.writeAtomically(filePath, serialize());
+                journal.reset();
+            }
+            pending.clear();
             return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         } catch (Exception e) {
             return false;
         }
     }
 
-    private TeamRecord toRecord(JSONObject json) {
+    private String serialize() {
+        synchronized (lock) {
+            return snapshot().toJSONString();
+        }
+    }
+
+    private JSONObject snapshot() {
+        JSONArray entries = new JSONArray(teams.size());
+        teams.values().forEach(record -> entries.add(fromRecord(record)));
+        JSONObject snapshot = new JSONObject(data);
+        snapshot.put(TEAMS_KEY, entries);
+        return snapshot;
+    }
+
+    private void writeBinarySnapshot() {
+        if (binarySnapshots && data != null && (journal == null || journal.entries() == 0) && !JsonBinarySnapshot.isCurrent(filePath)) {
+            JsonBinarySnapshot.write(filePath, data, TEAMS_KEY, teams.values(), JsonFileTeamStorage::fromRecord);
+        }
+    }
+
+    private boolean replayJournal() throws Exception {
+        if (journal == null) {
+            return false;
+        }
+        List<JsonJournal.Change> changes = journal.read();
+        for (JsonJournal.Change change : changes) {
+            if (change.value() == null) {
+                remove(change.key());
+            } else if (change.key() != null) {
+                migrate(change.value());
+                put(toRecord(change.value()));
+            }
+        }
+        return !changes.isEmpty();
+    }
+
+    private TeamRecord track(String key, TeamRecord record) {
+        if (journal != null) {
+            pending.put(key, record == null ? null : fromRecord(record));
+        }
+        return record;
+    }
+
+    static TeamRecord toRecord(JSONObject json) {
         return new TeamRecord(
                 json.getString("id"),
                 json.getString("name"),
@@ -193,7 +454,7 @@ public class JsonFileTeamStorage implements TeamStorage {
         );
     }
 
-    private JSONObject fromRecord(TeamRecord record) {
+    static JSONObject fromRecord(TeamRecord record) {
         JSONObject json = new JSONObject();
         json.put("id", record.id());
         json.put("name", record.name());
@@ -207,7 +468,7 @@ public class JsonFileTeamStorage implements TeamStorage {
         return json;
     }
 
-    private List<String> toStringList(JSONArray array) {
+    static List<String> toStringList(JSONArray array) {
         List<String> list = new ArrayList<>();
         if (array == null) {
             return list;
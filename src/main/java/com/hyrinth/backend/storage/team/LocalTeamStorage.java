@@ -1,42 +1,89 @@
 package com.hyrinth.backend.storage.team;
 
-import java.util.Comparator;
+import com.hyrinth.backend.storage.PageCursor;
+import com.hyrinth.backend.storage.SnapshotStorage;
+import com.hyrinth.backend.storage.json.JsonBinarySnapshot;
+
+import java.nio.file.Path;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 
-public class LocalTeamStorage implements TeamStorage {
+public class LocalTeamStorage implements TeamStorage, SnapshotStorage {
 
     private final Map<String, TeamRecord> teams = new ConcurrentHashMap<>();
+    private final NavigableMap<PageCursor, TeamRecord> pageIndex = new ConcurrentSkipListMap<>();
+    private final Map<String, AtomicLong> ownerCounts = new ConcurrentHashMap<>();
 
     @Override
     public Optional<TeamRecord> findById(String id) {
         return Optional.ofNullable(teams.get(id));
     }
 
+    @Override
+    public List<TeamRecord> findByIds(List<String> ids) {
+        return ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .map(teams::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     @Override
     public List<TeamRecord> findPage(int limit, int offset) {
         if (limit <= 0 || offset < 0) {
             return List.of();
         }
-        return teams.values().stream()
-                .sorted(Comparator.comparingLong(TeamRecord::createdAt)
-                        .thenComparing(TeamRecord::id))
+        return pageIndex.values().stream()
                 .skip(offset)
                 .limit(limit)
                 .toList();
     }
 
+    @Override
+    public List<TeamRecord> findPageAfter(PageCursor cursor, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        return (cursor == null ? pageIndex : pageIndex.tailMap(cursor, false)).values().stream()
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public List<String> findAllIds() {
+        return List.copyOf(teams.keySet());
+    }
+
+    @Override
+    public long count() {
+        return teams.size();
+    }
+
+    @Override
+    public long countByOwner(String ownerId) {
+        AtomicLong count = ownerCounts.get(Objects.requireNonNullElse(ownerId, ""));
+        return count == null ? 0 : count.get();
+    }
+
     @Override
     public boolean create(TeamRecord record) {
         if (record == null || record.id() == null || record.id().isBlank()) {
             return false;
         }
-        if (teams.containsKey(record.id())) {
+        if (teams.putIfAbsent(record.id(), record) != null) {
             return false;
         }
-        teams.put(record.id(), record);
+        index(null, record);
+        tally(record, 1);
         return true;
     }
 
@@ -45,15 +92,93 @@ public class LocalTeamStorage implements TeamStorage {
         if (record == null || record.id() == null || record.id().isBlank()) {
             return false;
         }
-        if (!teams.containsKey(record.id())) {
+        TeamRecord previous = teams.replace(record.id(), record);
+        if (previous == null) {
             return false;
         }
-        teams.put(record.id(), record);
+        index(previous, record);
+        tally(previous, -1);
+        tally(record, 1);
         return true;
     }
 
     @Override
     public boolean delete(String id) {
-        return teams.remove(id) != null;
+        TeamRecord removed = teams.remove(id);
+        index(removed, null);
+        tally(removed, -1);
+        return removed != null;
+    }
+
+    @Override
+    public boolean createAll(List<TeamRecord> records) {
+        Set<String> keys = new HashSet<>();
+        for (TeamRecord record : records) {
+            if (record == null || record.id() == null || record.id().isBlank()
+                    || teams.containsKey(record.id()) || !keys.add(record.id())) {
+                return false;
+            }
+        }
+        records.forEach(this::store);
+        return true;
+    }
+
+    @Override
+    public boolean updateAll(List<TeamRecord> records) {
+        for (TeamRecord record : records) {
+            if (record == null || record.id() == null || !teams.containsKey(record.id())) {
+                return false;
+            }
+        }
+        records.forEach(this::store);
+        return true;
+    }
+
+    @Override
+    public boolean deleteAll(List<String> ids) {
+        if (!teams.keySet().containsAll(ids)) {
+            return false;
+        }
+        ids.forEach(this::delete);
+        return true;
+    }
+
+
+    @Override
+    public boolean saveSnapshot(Path file) {
+        return JsonBinarySnapshot.save(file, "teams", teams.values(), JsonFileTeamStorage::fromRecord);
+    }
+
+    @Override
+    public boolean loadSnapshot(Path file) {
+        return JsonBinarySnapshot.load(file, "teams", JsonFileTeamStorage::toRecord, this::create);
+    }
+
+    private void store(TeamRecord record) {
+        TeamRecord previous = teams.put(record.id(), record);
+        index(previous, record);
+        tally(previous, -1);
+        tally(record, 1);
+    }
+
+    private void tally(TeamRecord record, long delta) {
+        if (record == null) {
+            return;
+        }
+        ownerCounts.computeIfAbsent(Objects.requireNonNullElse(record.ownerId(), ""), key -> new AtomicLong()).addAndGet(delta);
+    }
+
+    private void index(TeamRecord previous, TeamRecord current) {
+        if (previous != null) {
+            pageIndex.computeIfPresent(PageCursor.of(previous.createdAt(), previous.id()), (cursor, record) -> resolve(cursor));
+        }
+        if (current != null) {
+            pageIndex.compute(PageCursor.of(current.createdAt(), current.id()), (cursor, record) -> resolve(cursor));
+        }
+    }
+
+    private TeamRecord resolve(PageCursor cursor) {
+        TeamRecord record = teams.get(cursor.key());
+        return record != null && record.createdAt() == cursor.createdAt() ? record : null;
     }
 }
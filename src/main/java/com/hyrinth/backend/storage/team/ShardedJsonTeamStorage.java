@@ -0,0 +1,123 @@
+package com.hyrinth.backend.storage.team;
+
+import com.hyrinth.backend.storage.PageCursor;
+import com.hyrinth.backend.storage.json.ShardedJsonStore;
+
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+public class ShardedJsonTeamStorage implements TeamStorage {
+
+    private final NavigableMap<PageCursor, TeamRecord> pageIndex = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> tallies = new ConcurrentHashMap<>();
+    private final ShardedJsonStore<TeamRecord> store;
+
+    public ShardedJsonTeamStorage(Path directory, int shards) {
+        this.store = new ShardedJsonStore<>(directory, shards, "teams", new ShardedJsonStore.Codec<>(
+                TeamRecord::id,
+                JsonFileTeamStorage::toRecord,
+                JsonFileTeamStorage::fromRecord,
+                JsonFileTeamStorage::migrate
+        ), this::changed);
+    }
+
+    @Override
+    public Optional<TeamRecord> findById(String id) {
+        return store.get(id);
+    }
+
+    @Override
+    public List<TeamRecord> findByIds(List<String> ids) {
+        Set<String> targets = new LinkedHashSet<>(ids);
+        targets.remove(null);
+        return targets.stream().map(store::get).flatMap(Optional::stream).toList();
+    }
+
+    @Override
+    public List<TeamRecord> findPage(int limit, int offset) {
+        if (limit <= 0 || offset < 0) {
+            return List.of();
+        }
+        return pageIndex.values().stream()
+                .skip(offset)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public List<TeamRecord> findPageAfter(PageCursor cursor, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        return (cursor == null ? pageIndex : pageIndex.tailMap(cursor, false)).values().stream()
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public List<String> findAllIds() {
+        return store.keys();
+    }
+
+    @Override
+    public long count() {
+        return store.size();
+    }
+
+    @Override
+    public long countByOwner(String ownerId) {
+        return tallies.getOrDefault("owner:" + ownerId, 0L);
+    }
+
+    @Override
+    public boolean create(TeamRecord record) {
+        return store.insert(record);
+    }
+
+    @Override
+    public boolean update(TeamRecord record) {
+        return store.replace(record);
+    }
+
+    @Override
+    public boolean delete(String id) {
+        return store.remove(id);
+    }
+
+    @Override
+    public boolean createAll(List<TeamRecord> records) {
+        return store.insertAll(records);
+    }
+
+    @Override
+    public boolean updateAll(List<TeamRecord> records) {
+        return store.replaceAll(records);
+    }
+
+    @Override
+    public boolean deleteAll(List<String> ids) {
+        return store.removeAll(new LinkedHashSet<>(ids));
+    }
+
+    private void changed(TeamRecord previous, TeamRecord current) {
+        if (previous != null) {
+            pageIndex.remove(PageCursor.of(previous.createdAt(), previous.id()));
+            tally("owner:" + previous.ownerId(), -1);
+        }
+        if (current != null) {
+            pageIndex.put(PageCursor.of(current.createdAt(), current.id()), current);
+            tally("owner:" + current.ownerId(), 1);
+        }
+    }
+
+    private void tally(String key, long delta) {
+        tallies.merge(key, delta, (count, change) -> count + change == 0 ? null : count + change);
+    }
+}
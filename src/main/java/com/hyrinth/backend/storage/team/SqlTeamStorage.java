@@ -1,91 +1,165 @@
 package com.hyrinth.backend.storage.team;
 
 import com.hyrinth.backend.Main;
-import org.zyneonstudios.apex.utilities.sql.SQL;
+import com.hyrinth.backend.storage.PageCursor;
+import com.hyrinth.backend.storage.TransactionalStorage;
+import com.hyrinth.backend.storage.UnitOfWork;
+import com.hyrinth.backend.storage.sql.SqlConnectionPool;
+import com.hyrinth.backend.storage.sql.SqlConnectionRouter;
+import com.hyrinth.backend.storage.sql.SqlCountCache;
+import com.hyrinth.backend.storage.sql.SqlMigrator;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.Savepoint;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
-public class SqlTeamStorage implements TeamStorage {
+public class SqlTeamStorage implements TeamStorage, TransactionalStorage {
 
-    private final SQL sql;
+    private static final int MULTI_GET_CHUNK = 256;
+
+    private final SqlConnectionRouter router;
+    private final SqlCountCache counts = new SqlCountCache();
     private final String table;
-    private boolean schemaEnsured = false;
+    private final String findByIdQuery;
+    private final String findPageQuery;
+    private final String findFirstPageQuery;
+    private final String findPageAfterQuery;
+    private final String findAllIdsQuery;
+    private final String countQuery;
+    private final String countByOwnerQuery;
+    private final String insertQuery;
+    private final String updateQuery;
+    private final String deleteQuery;
+    private volatile boolean schemaEnsured = false;
+    private boolean schemaFailed = false;
+
+    public SqlTeamStorage(SqlConnectionPool pool) {
+        this(new SqlConnectionRouter(pool));
+    }
 
-    public SqlTeamStorage(SQL sql) {
-        this(sql, "teams");
+    public SqlTeamStorage(SqlConnectionRouter router) {
+        this(router, "teams");
     }
 
-    public SqlTeamStorage(SQL sql, String table) {
-        this.sql = sql;
+    public SqlTeamStorage(SqlConnectionRouter router, String table) {
+        this.router = router;
+        router.addTransactionListener(counts::invalidate);
         this.table = table;
+        this.findByIdQuery = "SELECT * FROM `" + table + "` WHERE `id` = ?";
+        this.findPageQuery = "SELECT * FROM `" + table + "` ORDER BY `created_at` ASC, `id` ASC LIMIT ? OFFSET ?";
+        this.findFirstPageQuery = "SELECT * FROM `" + table + "` ORDER BY `created_at` ASC, `id` ASC LIMIT ?";
+        this.findPageAfterQuery = "SELECT * FROM `" + table + "` WHERE `created_at` > ? OR (`created_at` = ? AND `id` > ?)"
+                + " ORDER BY `created_at` ASC, `id` ASC LIMIT ?";
+        this.findAllIdsQuery = "SELECT `id` FROM `" + table + "`";
+        this.countQuery = "SELECT COUNT(*) FROM `" + table + "`";
+        this.countByOwnerQuery = "SELECT COUNT(*) FROM `" + table + "` WHERE `owner_id` = ?";
+        this.insertQuery = "INSERT INTO `" + table + "` (`id`, `name`, `picture`, `owner_id`, `is_hidden`, `projects`, `member_ids`, `created_at`, `updated_at`)"
+                + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        this.updateQuery = "UPDATE `" + table + "` SET `name` = ?, `picture` = ?, `owner_id` = ?, `is_hidden` = ?, `projects` = ?, `member_ids` = ?, `updated_at` = ? WHERE `id` = ?";
+        this.deleteQuery = "DELETE FROM `" + table + "` WHERE `id` = ?";
         ensureSchema();
     }
 
-    private synchronized void ensureSchema() {
+    @Override
+    public void runInTransaction(UnitOfWork work) throws Exception {
+        router.runInTransaction(work);
+    }
+
+    private void ensureSchema() {
         if (schemaEnsured) {
             return;
         }
-        if (!sql.reconnect()) {
-            Main.getLogger().err("Team storage could not reconnect to SQL backend for schema init.");
-            return;
-        }
-        String createTable = "CREATE TABLE IF NOT EXISTS `" + table + "` ("
-                + "`id` VARCHAR(36) NOT NULL PRIMARY KEY,"
-                + "`name` VARCHAR(255) NOT NULL,"
-                + "`picture` VARCHAR(512) NOT NULL,"
-                + "`owner_id` VARCHAR(36) NOT NULL,"
-                + "`is_hidden` BOOLEAN NOT NULL DEFAULT FALSE,"
-                + "`projects` TEXT NOT NULL,"
-                + "`member_ids` TEXT NOT NULL,"
-                + "`created_at` BIGINT NOT NULL,"
-                + "`updated_at` BIGINT NOT NULL"
-                + ");";
-        String ownerIndex = "CREATE INDEX IF NOT EXISTS `idx_" + table + "_owner` ON `" + table + "` (`owner_id`);";
-        try (Connection connection = sql.getConnection()) {
-            if (connection == null) {
-                Main.getLogger().err("Team storage schema init failed: SQL connection is null.");
-                return;
-            }
-            try (PreparedStatement createStatement = connection.prepareStatement(createTable)) {
-                createStatement.execute();
+        synchronized (this) {
+            if (schemaFailed) {
+                throw new IllegalStateException("Schema for " + table + " is unavailable after a failed migration");
             }
-            try (PreparedStatement ownerStatement = connection.prepareStatement(ownerIndex)) {
-                ownerStatement.execute();
-            } catch (Exception e) {
-                Main.getLogger().err("Team storage owner index init failed: " + e.getMessage());
+            if (!schemaEnsured) {
+                schemaEnsured = migrations().migrate();
+                schemaFailed = !schemaEnsured;
+                if (schemaFailed) {
+                    throw new IllegalStateException("Schema migration failed for " + table);
+                }
             }
-            schemaEnsured = true;
-        } catch (Exception e) {
-            Main.getLogger().err("Team storage schema init failed: " + e.getMessage());
         }
     }
 
+    private SqlMigrator migrations() {
+        return new SqlMigrator(router.getPrimary(), table)
+                .add(1, "create table", connection -> {
+                    SqlMigrator.execute(connection, "CREATE TABLE IF NOT EXISTS `" + table + "` ("
+                            + "`id` VARCHAR(36) NOT NULL PRIMARY KEY,"
+                            + "`name` VARCHAR(255) NOT NULL,"
+                            + "`picture` VARCHAR(512) NOT NULL,"
+                            + "`owner_id` VARCHAR(36) NOT NULL,"
+                            + "`is_hidden` BOOLEAN NOT NULL DEFAULT FALSE,"
+                            + "`projects` TEXT NOT NULL,"
+                            + "`member_ids` TEXT NOT NULL,"
+                            + "`created_at` BIGINT NOT NULL,"
+                            + "`updated_at` BIGINT NOT NULL"
+                            + ")");
+                    SqlMigrator.createIndex(connection, table, "idx_" + table + "_owner", false, "owner_id");
+                })
+                .add(2, "add page index", connection ->
+                        SqlMigrator.createIndex(connection, table, "idx_" + table + "_page", false, "created_at", "id"));
+    }
+
     @Override
     public Optional<TeamRecord> findById(String id) {
         ensureSchema();
-        String query = "SELECT * FROM `" + table + "` WHERE `id` = ?";
-        return fetchOne(query, id);
+        return fetchOne(findByIdQuery, id);
     }
 
     @Override
-    public List<TeamRecord> findPage(int limit, int offset) {
+    public List<TeamRecord> findByIds(List<String> ids) {
         ensureSchema();
-        if (limit <= 0 || offset < 0) {
+        List<String> keys = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (keys.isEmpty()) {
             return List.of();
         }
-        if (!sql.reconnect()) {
-            Main.getLogger().err("Team storage could not reconnect to SQL backend.");
+        Map<String, TeamRecord> found = new HashMap<>();
+        try (Connection connection = router.getReadConnection()) {
+            for (int from = 0; from < keys.size(); from += MULTI_GET_CHUNK) {
+                List<String> chunk = keys.subList(from, Math.min(keys.size(), from + MULTI_GET_CHUNK));
+                int slots = Math.max(1, Integer.highestOneBit(chunk.size() - 1) << 1);
+                try (PreparedStatement statement = connection.prepareStatement(multiGetQuery(slots))) {
+                    for (int i = 0; i < slots; i++) {
+                        statement.setString(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            TeamRecord record = fromResultSet(resultSet);
+                            found.put(record.id(), record);
+                        }
+                    }
+                }
+            }
+        } catch (Exception e) {
+            Main.getLogger().err("Team storage multi-get query failed: " + e.getMessage());
+        }
+        return keys.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    @Override
+    public List<TeamRecord> findPage(int limit, int offset) {
+        ensureSchema();
+        if (limit <= 0 || offset < 0) {
             return List.of();
         }
-        String query = "SELECT * FROM `" + table + "` ORDER BY `created_at` ASC, `id` ASC LIMIT ? OFFSET ?";
         List<TeamRecord> records = new ArrayList<>();
-        try (Connection connection = sql.getConnection();
-             PreparedStatement statement = connection.prepareStatement(query)) {
+        try (Connection connection = router.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(findPageQuery)) {
             statement.setInt(1, limit);
             statement.setInt(2, offset);
             try (ResultSet resultSet = statement.executeQuery()) {
@@ -99,53 +173,136 @@ public class SqlTeamStorage implements TeamStorage {
         return records;
     }
 
+    @Override
+    public List<TeamRecord> findPageAfter(PageCursor cursor, int limit) {
+        ensureSchema();
+        if (limit <= 0) {
+            return List.of();
+        }
+        List<TeamRecord> records = new ArrayList<>();
+        try (Connection connection = router.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(cursor == null ? findFirstPageQuery : findPageAfterQuery)) {
+            if (cursor == null) {
+                statement.setInt(1, limit);
+            } else {
+                statement.setLong(1, cursor.createdAt());
+                statement.setLong(2, cursor.createdAt());
+                statement.setString(3, cursor.key());
+                statement.setInt(4, limit);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    records.add(fromResultSet(resultSet));
+                }
+            }
+        } catch (Exception e) {
+            Main.getLogger().err("Team storage cursor page query failed: " + e.getMessage());
+        }
+        return records;
+    }
+
+    @Override
+    public List<String> findAllIds() {
+        ensureSchema();
+        List<String> keys = new ArrayList<>();
+        try (Connection connection = router.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(findAllIdsQuery);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                keys.add(resultSet.getString("id"));
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Team storage key scan failed: " + e.getMessage(), e);
+        }
+        return keys;
+    }
+
+    @Override
+    public long count() {
+        ensureSchema();
+        return count("all", countQuery, null);
+    }
+
+    @Override
+    public long countByOwner(String ownerId) {
+        ensureSchema();
+        return count("owner:" + ownerId, countByOwnerQuery, ownerId);
+    }
+
     @Override
     public boolean create(TeamRecord record) {
         ensureSchema();
-        String query = "INSERT INTO `" + table + "` (`id`, `name`, `picture`, `owner_id`, `is_hidden`, `projects`, `member_ids`, `created_at`, `updated_at`)"
-                + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        return executeUpdate(query, statement -> {
-            statement.setString(1, record.id());
-            statement.setString(2, record.name());
-            statement.setString(3, record.picture());
-            statement.setString(4, record.ownerId());
-            statement.setBoolean(5, record.isHidden());
-            statement.setString(6, serializeProjects(record.projects()));
-            statement.setString(7, serializeMemberIds(record.memberIds()));
-            statement.setLong(8, record.createdAt());
-            statement.setLong(9, record.updatedAt());
-        });
+        return executeUpdate(insertQuery, statement -> bindInsert(statement, record));
     }
 
     @Override
     public boolean update(TeamRecord record) {
         ensureSchema();
-        String query = "UPDATE `" + table + "` SET `name` = ?, `picture` = ?, `owner_id` = ?, `is_hidden` = ?, `projects` = ?, `member_ids` = ?, `updated_at` = ? WHERE `id` = ?";
-        return executeUpdate(query, statement -> {
-            statement.setString(1, record.name());
-            statement.setString(2, record.picture());
-            statement.setString(3, record.ownerId());
-            statement.setBoolean(4, record.isHidden());
-            statement.setString(5, serializeProjects(record.projects()));
-            statement.setString(6, serializeMemberIds(record.memberIds()));
-            statement.setLong(7, record.updatedAt());
-            statement.setString(8, record.id());
-        });
+        return executeUpdate(updateQuery, statement -> bindUpdate(statement, record));
     }
 
     @Override
     public boolean delete(String id) {
         ensureSchema();
-        String query = "DELETE FROM `" + table + "` WHERE `id` = ?";
-        return executeUpdate(query, statement -> statement.setString(1, id));
+        return executeUpdate(deleteQuery, statement -> statement.setString(1, id));
+    }
+
+    @Override
+    public boolean createAll(List<TeamRecord> records) {
+        ensureSchema();
+        List<String> ids = keysOf(records);
+        if (ids == null || new LinkedHashSet<>(ids).size() != ids.size()) {
+            return false;
+        }
+        return executeBatch(insertQuery, records, this::bindInsert, ids, false);
+    }
+
+    @Override
+    public boolean updateAll(List<TeamRecord> records) {
+        ensureSchema();
+        List<String> ids = keysOf(records);
+        if (ids == null) {
+            return false;
+        }
+        return executeBatch(updateQuery, records, this::bindUpdate, ids, true);
+    }
+
+    @Override
+    public boolean deleteAll(List<String> ids) {
+        ensureSchema();
+        return executeBatch(deleteQuery, List.copyOf(new LinkedHashSet<>(ids)), (statement, id) -> statement.setString(1, id), ids, true);
+    }
+
+    private String multiGetQuery(int slots) {
+        return "SELECT * FROM `" + table + "` WHERE `id` IN (" + String.join(", ", Collections.nCopies(slots, "?")) + ")";
+    }
+
+    private String countKeysQuery(int slots) {
+        return "SELECT COUNT(*) FROM `" + table + "` WHERE `id` IN (" + String.join(", ", Collections.nCopies(slots, "?")) + ")";
+    }
+
+    private List<String> keysOf(List<TeamRecord> records) {
+        List<String> keys = new ArrayList<>(records.size());
+        for (TeamRecord record : records) {
+            if (record == null || record.id() == null || record.id().isBlank()) {
+                return null;
+            }
+            keys.add(record.id());
+        }
+        return keys;
     }
 
     private Optional<TeamRecord> fetchOne(String query, String value) {
-        if (!sql.reconnect()) {
-            Main.getLogger().err("Team storage could not reconnect to SQL backend.");
-            return Optional.empty();
+        boolean replica = router.readsFromReplica();
+        Optional<TeamRecord> record = fetchOne(query, value, replica);
+        if (record.isEmpty() && replica && router.hasLaggingReplicas()) {
+            return fetchOne(query, value, false);
         }
-        try (Connection connection = sql.getConnection();
+        return record;
+    }
+
+    private Optional<TeamRecord> fetchOne(String query, String value, boolean replica) {
+        try (Connection connection = replica ? router.getReadConnection() : router.getPrimaryConnection();
              PreparedStatement statement = connection.prepareStatement(query)) {
             statement.setString(1, value);
             try (ResultSet resultSet = statement.executeQuery()) {
@@ -159,21 +316,139 @@ public class SqlTeamStorage implements TeamStorage {
         return Optional.empty();
     }
 
-    private boolean executeUpdate(String query, StatementConfigurer configurer) {
-        if (!sql.reconnect()) {
-            Main.getLogger().err("Team storage could not reconnect to SQL backend.");
-            return false;
+    private long count(String key, String query, String value) {
+        try {
+            return counts.get(key, () -> {
+                try (Connection connection = router.getReadConnection();
+                     PreparedStatement statement = connection.prepareStatement(query)) {
+                    if (value != null) {
+                        statement.setString(1, value);
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        return resultSet.next() ? resultSet.getLong(1) : 0L;
+                    }
+                }
+            });
+        } catch (Exception e) {
+            Main.getLogger().err("Team storage count query failed: " + e.getMessage());
+            return -1;
         }
-        try (Connection connection = sql.getConnection();
+    }
+
+    private boolean executeUpdate(String query, StatementConfigurer configurer) {
+        try (Connection connection = router.getConnection();
              PreparedStatement statement = connection.prepareStatement(query)) {
             configurer.configure(statement);
-            return statement.executeUpdate() > 0;
+            boolean updated = statement.executeUpdate() > 0;
+            if (updated) {
+                counts.invalidate();
+            }
+            return updated;
         } catch (Exception e) {
             Main.getLogger().err("Team storage update failed: " + e.getMessage());
             return false;
         }
     }
 
+    private <T> boolean executeBatch(String query, List<T> items, BatchConfigurer<T> configurer, List<String> keys, boolean existing) {
+        if (items == null || items.isEmpty()) {
+            return true;
+        }
+        try (Connection connection = router.getConnection()) {
+            boolean ownsTransaction = connection.getAutoCommit();
+            if (ownsTransaction) {
+                connection.setAutoCommit(false);
+            }
+            Savepoint savepoint = ownsTransaction ? null : connection.setSavepoint();
+            try {
+                Set<String> distinct = new LinkedHashSet<>(keys);
+                if (countKeys(connection, distinct) != (existing ? distinct.size() : 0)) {
+                    rollback(connection, savepoint);
+                    return false;
+                }
+                try (PreparedStatement statement = connection.prepareStatement(query)) {
+                    for (T item : items) {
+                        configurer.configure(statement, item);
+                        statement.addBatch();
+                    }
+                    for (int result : statement.executeBatch()) {
+                        if (result == 0 || result == Statement.EXECUTE_FAILED) {
+                            throw new IllegalStateException("batch entry did not match a row");
+                        }
+                    }
+                }
+                if (ownsTransaction) {
+                    connection.commit();
+                } else {
+                    connection.releaseSavepoint(savepoint);
+                }
+                counts.invalidate();
+                return true;
+            } catch (Exception e) {
+                rollback(connection, savepoint);
+                Main.getLogger().err("Team storage batch update failed and was rolled back: " + e.getMessage());
+                return false;
+            } finally {
+                if (ownsTransaction) {
+                    connection.setAutoCommit(true);
+                }
+            }
+        } catch (Exception e) {
+            Main.getLogger().err("Team storage batch update failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private long countKeys(Connection connection, Collection<String> keys) throws Exception {
+        List<String> values = List.copyOf(keys);
+        long found = 0;
+        for (int from = 0; from < values.size(); from += MULTI_GET_CHUNK) {
+            List<String> chunk = values.subList(from, Math.min(values.size(), from + MULTI_GET_CHUNK));
+            try (PreparedStatement statement = connection.prepareStatement(countKeysQuery(chunk.size()))) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    statement.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next()) {
+                        found += resultSet.getLong(1);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private void rollback(Connection connection, Savepoint savepoint) throws Exception {
+        if (savepoint == null) {
+            connection.rollback();
+        } else {
+            connection.rollback(savepoint);
+        }
+    }
+
+    private void bindInsert(PreparedStatement statement, TeamRecord record) throws Exception {
+        statement.setString(1, record.id());
+        statement.setString(2, record.name());
+        statement.setString(3, record.picture());
+        statement.setString(4, record.ownerId());
+        statement.setBoolean(5, record.isHidden());
+        statement.setString(6, serializeProjects(record.projects()));
+        statement.setString(7, serializeMemberIds(record.memberIds()));
+        statement.setLong(8, record.createdAt());
+        statement.setLong(9, record.updatedAt());
+    }
+
+    private void bindUpdate(PreparedStatement statement, TeamRecord record) throws Exception {
+        statement.setString(1, record.name());
+        statement.setString(2, record.picture());
+        statement.setString(3, record.ownerId());
+        statement.setBoolean(4, record.isHidden());
+        statement.setString(5, serializeProjects(record.projects()));
+        statement.setString(6, serializeMemberIds(record.memberIds()));
+        statement.setLong(7, record.updatedAt());
+        statement.setString(8, record.id());
+    }
+
     private TeamRecord fromResultSet(ResultSet resultSet) throws Exception {
         return new TeamRecord(
                 resultSet.getString("id"),
@@ -237,4 +512,8 @@ public class SqlTeamStorage implements TeamStorage {
     private interface StatementConfigurer {
         void configure(PreparedStatement statement) throws Exception;
     }
+
+    private interface BatchConfigurer<T> {
+        void configure(PreparedStatement statement, T item) throws Exception;
+    }
 }
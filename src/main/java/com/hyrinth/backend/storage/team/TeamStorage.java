@@ -1,5 +1,7 @@
 package com.hyrinth.backend.storage.team;
 
+import com.hyrinth.backend.storage.PageCursor;
+
 import java.util.List;
 import java.util.Optional;
 
@@ -7,11 +9,27 @@ public interface TeamStorage {
 
     Optional<TeamRecord> findById(String id);
 
+    List<TeamRecord> findByIds(List<String> ids);
+
     List<TeamRecord> findPage(int limit, int offset);
 
+    List<TeamRecord> findPageAfter(PageCursor cursor, int limit);
+
+    List<String> findAllIds();
+
+    long count();
+
+    long countByOwner(String ownerId);
+
     boolean create(TeamRecord record);
 
     boolean update(TeamRecord record);
 
     boolean delete(String id);
+
+    boolean createAll(List<TeamRecord> records);
+
+    boolean updateAll(List<TeamRecord> records);
+
+    boolean deleteAll(List<String> ids);
 }
@@ -0,0 +1,25 @@
+package com.hyrinth.backend.webserver;
+
+import com.hyrinth.backend.storage.sql.SqlConnectionRouter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+@Component
+public class StorageRequestFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        SqlConnectionRouter.resetStickiness();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlConnectionRouter.resetStickiness();
+        }
+    }
+}
@@ -3,12 +3,14 @@ package com.hyrinth.backend.webserver.controller;
 import com.alibaba.fastjson2.JSONObject;
 import com.hyrinth.backend.Main;
 import com.hyrinth.backend.entities.HyrinthUser;
+import com.hyrinth.backend.storage.StorageProvider;
 import com.hyrinth.backend.storage.account.AccountRecord;
 import com.hyrinth.backend.storage.account.AccountStorage;
 import com.hyrinth.backend.storage.project.ProjectRecord;
 import com.hyrinth.backend.storage.team.TeamRecord;
 import com.hyrinth.backend.storage.team.TeamStorage;
 import com.hyrinth.backend.webserver.resolver.ProjectResolver;
+import com.hyrinth.backend.webserver.resolver.ResponseCache;
 import com.hyrinth.backend.webserver.resolver.UserResolver;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
@@ -32,9 +34,9 @@ public class ProjectController {
     public static ResponseEntity<Object> handleGetProjectRequest(HttpServletRequest request) {
         String path = request.getRequestURI();
         String slug = path.split("/")[2];
-        JSONObject project = ProjectResolver.getProject(slug);
+        ResponseCache.Encoded<ProjectRecord> project = ProjectResolver.getEncodedProject(slug);
         if (project != null) {
-            return ResponseEntity.ok(project);
+            return ResponseCache.respond(request, project);
         }
         return ErrorController.handleError404(request);
     }
@@ -43,9 +45,18 @@ public class ProjectController {
     public static ResponseEntity<Object> handleListProjectsRequest(HttpServletRequest request) {
         String limitParam = request.getParameter("limit");
         String offsetParam = request.getParameter("offset");
+        String cursor = request.getParameter("cursor");
+        if (cursor != null && cursor.isBlank()) cursor = null;
+        if (cursor != null && offsetParam != null) {
+            return ErrorController.handleError400(request);
+        }
         if (limitParam == null) limitParam = "25";
         if (offsetParam == null) offsetParam = "0";
-        return ResponseEntity.ok(ProjectResolver.getProjects(Integer.parseInt(limitParam), Integer.parseInt(offsetParam)));
+        JSONObject page = ProjectResolver.getProjects(Integer.parseInt(limitParam), Integer.parseInt(offsetParam), cursor);
+        if (page == null) {
+            return ErrorController.handleError400(request);
+        }
+        return ResponseEntity.ok(page);
     }
 
     @RequestMapping(value={"/project","/projects","/project/","/projects/"},method = RequestMethod.POST)
@@ -162,12 +173,18 @@ public class ProjectController {
                         }
                         response.put("response", ProjectResolver.getProject(slug));
                     } else if (action == PostAction.DELETE && (isOwner || user.hasPermission("project.delete"))) {
-                        if (!Main.getHyrinthBackend().getStorageProvider().getProjectStorage().delete(slug)) {
+                        StorageProvider storageProvider = Main.getHyrinthBackend().getStorageProvider();
+                        boolean deleted = storageProvider.runInTransaction(() -> {
+                            if (!storageProvider.getProjectStorage().delete(existing.slug())) {
+                                throw new IllegalStateException("failed to delete project " + existing.slug());
+                            }
+                            removeProjectReferences(existing);
+                        });
+                        if (!deleted) {
                             response.put("status", 400);
                             response.put("message", "failed to delete project");
                             return ResponseEntity.ok(response);
                         }
-                        removeProjectReferences(existing);
                     }
                 } else {
                     response.put("status", 404);
@@ -240,12 +257,18 @@ public class ProjectController {
                             followers,
                             license == null ? "" : license
                     );
-                    if (!Main.getHyrinthBackend().getStorageProvider().getProjectStorage().create(record)) {
+                    StorageProvider storageProvider = Main.getHyrinthBackend().getStorageProvider();
+                    boolean created = storageProvider.runInTransaction(() -> {
+                        if (!storageProvider.getProjectStorage().create(record)) {
+                            throw new IllegalStateException("failed to create project " + record.slug());
+                        }
+                        addProjectToOwner(user.getId(), record.slug());
+                    });
+                    if (!created) {
                         response.put("status", 400);
                         response.put("message", "failed to create project");
                         return ResponseEntity.ok(response);
                     }
-                    addProjectToOwner(user.getId(), slug);
                     response.put("response", ProjectResolver.getProject(slug));
                 }
             }
@@ -300,7 +323,9 @@ public class ProjectController {
                     account.createdAt(),
                     now
             );
-            accountStorage.update(updated);
+            if (!accountStorage.update(updated)) {
+                throw new IllegalStateException("failed to add project " + slug + " to account " + ownerId);
+            }
         });
     }
 
@@ -314,6 +339,7 @@ public class ProjectController {
     private static void removeProjectFromAllAccounts(String slug, String id) {
         AccountStorage accountStorage = Main.getHyrinthBackend().getStorageProvider().getAccountStorage();
         List<AccountRecord> accounts = accountStorage.findAll(200);
+        List<AccountRecord> changed = new ArrayList<>();
         long now = Instant.now().toEpochMilli();
         for (AccountRecord account : accounts) {
             if (!account.projects().contains(slug) && !account.projects().contains(id)) {
@@ -335,7 +361,10 @@ public class ProjectController {
                     account.createdAt(),
                     now
             );
-            accountStorage.update(updated);
+            changed.add(updated);
+        }
+        if (!accountStorage.updateAll(changed)) {
+            throw new IllegalStateException("failed to remove project " + slug + " from accounts");
         }
     }
 
@@ -344,6 +373,7 @@ public class ProjectController {
         int offset = 0;
         int limit = 200;
         long now = Instant.now().toEpochMilli();
+        List<TeamRecord> changed = new ArrayList<>();
         while (true) {
             List<TeamRecord> teams = teamStorage.findPage(limit, offset);
             if (teams.isEmpty()) {
@@ -366,12 +396,15 @@ public class ProjectController {
                         team.createdAt(),
                         now
                 );
-                teamStorage.update(updated);
+                changed.add(updated);
             }
             if (teams.size() < limit) {
                 break;
             }
             offset += teams.size();
         }
+        if (!teamStorage.updateAll(changed)) {
+            throw new IllegalStateException("failed to remove project " + slug + " from teams");
+        }
     }
 }
@@ -3,9 +3,11 @@ package com.hyrinth.backend.webserver.controller;
 import com.alibaba.fastjson2.JSONObject;
 import com.hyrinth.backend.Main;
 import com.hyrinth.backend.entities.HyrinthUser;
+import com.hyrinth.backend.storage.StorageProvider;
 import com.hyrinth.backend.storage.account.AccountRecord;
 import com.hyrinth.backend.storage.account.AccountStorage;
 import com.hyrinth.backend.storage.team.TeamRecord;
+import com.hyrinth.backend.webserver.resolver.ResponseCache;
 import com.hyrinth.backend.webserver.resolver.TeamResolver;
 import com.hyrinth.backend.webserver.resolver.UserResolver;
 import jakarta.servlet.http.HttpServletRequest;
@@ -30,15 +32,15 @@ public class TeamController {
     public static ResponseEntity<Object> handleGetTeamRequest(HttpServletRequest request) {
         String path = request.getRequestURI();
         String id = path.split("/")[2];
-        JSONObject team = TeamResolver.getTeam(id);
+        ResponseCache.Encoded<TeamRecord> team = TeamResolver.getEncodedTeam(id);
         String apiKey = request.getHeader("X-API-Key");
         if (team != null) {
-            boolean hidden = team.getBooleanValue("isHidden");
+            boolean hidden = team.record().isHidden();
             if (apiKey != null) {
                 JSONObject user = UserResolver.getAuthenticatedUser(apiKey);
                 if (user != null) {
-                    if(user.getString("id").equals(team.getString("ownerId"))) {
-                        return ResponseEntity.ok(team);
+                    if(user.getString("id").equals(team.record().ownerId())) {
+                        return ResponseCache.respond(request, team);
                     } else if(hidden) {
                         HyrinthUser hyrinthUser = UserResolver.findById(user.getString("id"));
                         if(hyrinthUser.hasPermission("team.bypass.hidden")) {
@@ -52,7 +54,7 @@ public class TeamController {
             if (hidden) {
                 return ErrorController.handleError401(request);
             }
-            return ResponseEntity.ok(team);
+            return ResponseCache.respond(request, team);
         }
         return ErrorController.handleError404(request);
     }
@@ -65,9 +67,18 @@ public class TeamController {
             if(user != null && user.hasPermission("team.list")) {
                 String limitParam = request.getParameter("limit");
                 String offsetParam = request.getParameter("offset");
+                String cursor = request.getParameter("cursor");
+                if(cursor != null && cursor.isBlank()) cursor = null;
+                if(cursor != null && offsetParam != null) {
+                    return ErrorController.handleError400(request);
+                }
                 if(limitParam == null) limitParam = "25";
                 if(offsetParam == null) offsetParam = "0";
-                return ResponseEntity.ok(TeamResolver.getTeams(Integer.parseInt(limitParam),Integer.parseInt(offsetParam)));
+                JSONObject page = TeamResolver.getTeams(Integer.parseInt(limitParam), Integer.parseInt(offsetParam), cursor);
+                if (page == null) {
+                    return ErrorController.handleError400(request);
+                }
+                return ResponseEntity.ok(page);
             }
         }
         return ErrorController.handleError401(request);
@@ -118,12 +129,18 @@ public class TeamController {
                         }
                         response.put("response", TeamResolver.getTeam(id));
                     } else if (action == PostAction.DELETE && (isOwner || user.hasPermission("team.delete"))) {
-                        if (!Main.getHyrinthBackend().getStorageProvider().getTeamStorage().delete(id)) {
+                        StorageProvider storageProvider = Main.getHyrinthBackend().getStorageProvider();
+                        boolean deleted = storageProvider.runInTransaction(() -> {
+                            if (!storageProvider.getTeamStorage().delete(existing.id())) {
+                                throw new IllegalStateException("failed to delete team " + existing.id());
+                            }
+                            removeTeamFromAllAccounts(existing.id());
+                        });
+                        if (!deleted) {
                             response.put("status", 400);
                             response.put("message", "failed to delete team");
                             return ResponseEntity.ok(response);
                         }
-                        removeTeamFromAllAccounts(id);
                     }
                 } else {
                     response.put("status", 404);
@@ -141,12 +158,18 @@ public class TeamController {
                     long now = Instant.now().toEpochMilli();
 
                     TeamRecord record = new TeamRecord(id, name, picture == null ? "" : picture, user.getId(), isHidden, projects, memberIds, now, now);
-                    if (!Main.getHyrinthBackend().getStorageProvider().getTeamStorage().create(record)) {
+                    StorageProvider storageProvider = Main.getHyrinthBackend().getStorageProvider();
+                    boolean created = storageProvider.runInTransaction(() -> {
+                        if (!storageProvider.getTeamStorage().create(record)) {
+                            throw new IllegalStateException("failed to create team " + record.id());
+                        }
+                        addTeamToOwner(user.getId(), record.id(), now);
+                    });
+                    if (!created) {
                         response.put("status", 400);
                         response.put("message", "failed to create team");
                         return ResponseEntity.ok(response);
                     }
-                    addTeamToOwner(user.getId(), id, now);
                     response.put("response", TeamResolver.getTeam(id));
                 }
             }
@@ -200,13 +223,16 @@ public class TeamController {
                     account.createdAt(),
                     now
             );
-            accountStorage.update(updated);
+            if (!accountStorage.update(updated)) {
+                throw new IllegalStateException("failed to add team " + teamId + " to account " + ownerId);
+            }
         });
     }
 
     static void removeTeamFromAllAccounts(String teamId) {
         AccountStorage accountStorage = Main.getHyrinthBackend().getStorageProvider().getAccountStorage();
         List<AccountRecord> accounts = accountStorage.findAll(200);
+        List<AccountRecord> changed = new ArrayList<>();
         long now = Instant.now().toEpochMilli();
         for (AccountRecord account : accounts) {
             if (!account.teams().contains(teamId)) {
@@ -228,7 +254,10 @@ public class TeamController {
                     account.createdAt(),
                     now
             );
-            accountStorage.update(updated);
+            changed.add(updated);
+        }
+        if (!accountStorage.updateAll(changed)) {
+            throw new IllegalStateException("failed to remove team " + teamId + " from accounts");
         }
     }
 }
@@ -4,6 +4,7 @@ import com.alibaba.fastjson2.JSONObject;
 import com.hyrinth.backend.Main;
 import com.hyrinth.backend.entities.HyrinthUser;
 import com.hyrinth.backend.storage.account.AccountRecord;
+import com.hyrinth.backend.webserver.resolver.ResponseCache;
 import com.hyrinth.backend.webserver.resolver.UserResolver;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
@@ -21,14 +22,14 @@ public class UserController {
     public static ResponseEntity<Object> handleGetUserRequest(HttpServletRequest request) {
         String path = request.getRequestURI();
         String id = path.split("/")[2];
-        JSONObject user = UserResolver.getUser(id);
+        ResponseCache.Encoded<AccountRecord> user = UserResolver.getEncodedUser(id);
         String apiKey = request.getHeader("X-API-Key");
         if (user != null) {
-            boolean hidden = user.getBooleanValue("isHidden");
+            boolean hidden = user.record().isHidden();
             if (apiKey != null) {
                 JSONObject user2 = UserResolver.getAuthenticatedUser(apiKey);
                 if (user2 != null) {
-                    if(user2.getString("id").equals(user.getString("id"))) {
+                    if(user2.getString("id").equals(user.record().id())) {
                         return ResponseEntity.ok(user2);
                     } else if(hidden) {
                         HyrinthUser hyrinthUser = UserResolver.findById(user2.getString("id"));
@@ -43,7 +44,7 @@ public class UserController {
             if (hidden) {
                 return ErrorController.handleError401(request);
             }
-            return ResponseEntity.ok(user);
+            return ResponseCache.respond(request, user);
         }
         return ErrorController.handleError404(request);
     }
@@ -56,9 +57,18 @@ public class UserController {
             if(user != null && user.hasPermission("user.list")) {
                 String limitParam = request.getParameter("limit");
                 String offsetParam = request.getParameter("offset");
+                String cursor = request.getParameter("cursor");
+                if(cursor != null && cursor.isBlank()) cursor = null;
+                if(cursor != null && offsetParam != null) {
+                    return ErrorController.handleError400(request);
+                }
                 if(limitParam == null) limitParam = "25";
                 if(offsetParam == null) offsetParam = "0";
-                return ResponseEntity.ok(UserResolver.getUsers(Integer.parseInt(limitParam),Integer.parseInt(offsetParam)));
+                JSONObject page = UserResolver.getUsers(Integer.parseInt(limitParam), Integer.parseInt(offsetParam), cursor);
+                if (page == null) {
+                    return ErrorController.handleError400(request);
+                }
+                return ResponseEntity.ok(page);
             }
         }
         return ErrorController.handleError401(request);
@@ -3,53 +3,61 @@ package com.hyrinth.backend.webserver.resolver;
 import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
 import com.hyrinth.backend.Main;
+import com.hyrinth.backend.storage.PageCursor;
+import com.hyrinth.backend.storage.cache.SingleFlight;
 import com.hyrinth.backend.entities.HyrinthProject;
 import com.hyrinth.backend.storage.project.ProjectRecord;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
 
 public class ProjectResolver {
 
+    private static final ResponseCache<ProjectRecord> RESPONSES = new ResponseCache<>(ProjectResolver::toJson);
+    private static final SingleFlight<Page> PAGES = new SingleFlight<>();
+
     public static JSONObject getProject(String slug) {
         if(slug == null) return null;
-        Optional<ProjectRecord> project = Main.getHyrinthBackend().getStorageProvider().getProjectStorage().findBySlug(slug);
-        if (project.isPresent()) {
-            JSONObject json = new JSONObject();
-            json.put("id", project.get().id());
-            json.put("slug", project.get().slug());
-            json.put("title", project.get().title());
-            json.put("description", project.get().description());
-            json.put("categoryIds", project.get().categoryIds());
-            json.put("additionalTags", project.get().additionalTags());
-            json.put("donationUrls", project.get().donationUrls());
-            json.put("galleryUrls", project.get().galleryUrls());
-            json.put("gameVersions", project.get().gameVersions());
-            json.put("versionIds", project.get().versionIds());
-            json.put("body", project.get().body());
-            json.put("status", project.get().status());
-            json.put("requestedStatus", project.get().requestedStatus());
-            json.put("issuesUrl", project.get().issuesUrl());
-            json.put("sourceUrl", project.get().sourceUrl());
-            json.put("wikiUrl", project.get().wikiUrl());
-            json.put("discordUrl", project.get().discordUrl());
-            json.put("projectType", project.get().projectType());
-            json.put("downloads", project.get().downloads());
-            json.put("iconUrl", project.get().iconUrl());
-            json.put("colorHex", project.get().colorHex());
-            json.put("ownerId", project.get().ownerId());
-            json.put("moderatorMessage", project.get().moderatorMessage());
-            json.put("createdAt", project.get().createdAt());
-            json.put("updatedAt", project.get().updatedAt());
-            json.put("approvedAt", project.get().approvedAt());
-            json.put("queuedAt", project.get().queuedAt());
-            json.put("followers", project.get().followers());
-            json.put("license", project.get().license());
-            return json;
-        } else {
-            return null;
-        }
+        return Main.getHyrinthBackend().getStorageProvider().getProjectStorage().findBySlug(slug).map(ProjectResolver::toJson).orElse(null);
+    }
+
+    public static ResponseCache.Encoded<ProjectRecord> getEncodedProject(String slug) {
+        if(slug == null) return null;
+        return RESPONSES.get(slug, Main.getHyrinthBackend().getStorageProvider().getProjectStorage().findBySlug(slug).orElse(null));
+    }
+
+    public static JSONObject toJson(ProjectRecord project) {
+        JSONObject json = new JSONObject();
+        json.put("id", project.id());
+        json.put("slug", project.slug());
+        json.put("title", project.title());
+        json.put("description", project.description());
+        json.put("categoryIds", project.categoryIds());
+        json.put("additionalTags", project.additionalTags());
+        json.put("donationUrls", project.donationUrls());
+        json.put("galleryUrls", project.galleryUrls());
+        json.put("gameVersions", project.gameVersions());
+        json.put("versionIds", project.versionIds());
+        json.put("body", project.body());
+        json.put("status", project.status());
+        json.put("requestedStatus", project.requestedStatus());
+        json.put("issuesUrl", project.issuesUrl());
+        json.put("sourceUrl", project.sourceUrl());
+        json.put("wikiUrl", project.wikiUrl());
+        json.put("discordUrl", project.discordUrl());
+        json.put("projectType", project.projectType());
+        json.put("downloads", project.downloads());
+        json.put("iconUrl", project.iconUrl());
+        json.put("colorHex", project.colorHex());
+        json.put("ownerId", project.ownerId());
+        json.put("moderatorMessage", project.moderatorMessage());
+        json.put("createdAt", project.createdAt());
+        json.put("updatedAt", project.updatedAt());
+        json.put("approvedAt", project.approvedAt());
+        json.put("queuedAt", project.queuedAt());
+        json.put("followers", project.followers());
+        json.put("license", project.license());
+        return json;
     }
 
     public static JSONObject getAuthenticatedProject(String slug, String token) {
@@ -60,26 +68,59 @@ public class ProjectResolver {
         return Main.getHyrinthBackend().getStorageProvider().getProjectStorage().findBySlug(slug).map(HyrinthProject::new).orElse(null);
     }
 
-    public static JSONObject getProjects(int limit, int offset) {
+    public static JSONArray getProjects(List<String> slugs) {
+        JSONArray array = new JSONArray();
+        Main.getHyrinthBackend().getStorageProvider().getProjectStorage().findBySlugs(slugs).forEach(record -> array.add(toJson(record)));
+        return array;
+    }
+
+    public static JSONObject getProjects(int limit, int offset, String cursor) {
         if(limit>100) {
             limit = 100;
         }
+        PageCursor after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            Optional<PageCursor> decoded = PageCursor.decode(cursor);
+            if (decoded.isEmpty()) {
+                return null;
+            }
+            after = decoded.get();
+        }
+        int pageLimit = limit;
+        PageCursor pageAfter = after;
+        Page page = PAGES.load(limit + ":" + offset + ":" + cursor, () -> load(pageLimit, offset, pageAfter));
+        return page(pageLimit, offset, cursor, page);
+    }
+
+    private static Page load(int limit, int offset, PageCursor after) {
+        List<ProjectRecord> records = after == null
+                ? Main.getHyrinthBackend().getStorageProvider().getProjectStorage().findPage(limit, offset)
+                : Main.getHyrinthBackend().getStorageProvider().getProjectStorage().findPageAfter(after, limit);
+        return new Page(List.copyOf(records), Main.getHyrinthBackend().getStorageProvider().getProjectStorage().count());
+    }
 
+    private static JSONObject page(int limit, int offset, String cursor, Page page) {
         JSONObject response = new JSONObject();
         response.put("limit", limit);
         response.put("offset", offset);
+        if (cursor != null) {
+            response.put("cursor", cursor);
+        }
 
         JSONArray projects = new JSONArray();
-        List<ProjectRecord> projectRecords = Main.getHyrinthBackend().getStorageProvider().getProjectStorage().findPage(limit, offset);
-        AtomicInteger i = new AtomicInteger();
-        projectRecords.forEach(project -> {
-            projects.add(getProject(project.slug()));
-            i.getAndIncrement();
-        });
+        List<ProjectRecord> projectRecords = page.records();
+        projectRecords.forEach(project -> projects.add(toJson(project)));
 
         response.put("matches", projectRecords.size());
-        response.put("total_hits",-1);
+        if (limit > 0 && projectRecords.size() == limit) {
+            ProjectRecord last = projectRecords.get(projectRecords.size() - 1);
+            response.put("next_cursor", PageCursor.of(last.createdAt(), last.slug()).encode());
+        }
+        response.put("total_hits", page.total());
         response.put("hits", projects);
         return response;
     }
+
+    private record Page(List<ProjectRecord> records, long total) {
+    }
 }
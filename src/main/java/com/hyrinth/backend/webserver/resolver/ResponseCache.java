@@ -0,0 +1,91 @@
+package com.hyrinth.backend.webserver.resolver;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import com.alibaba.fastjson2.JSONWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+public class ResponseCache<R> {
+
+    private static final int MAX_ENTRIES = 4096;
+
+    private final Object lock = new Object();
+    private final Map<String, Encoded<R>> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Encoded<R>> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private final Function<R, JSONObject> encoder;
+
+    public ResponseCache(Function<R, JSONObject> encoder) {
+        this.encoder = encoder;
+    }
+
+    public Encoded<R> get(String key, R record) {
+        Encoded<R> cached;
+        synchronized (lock) {
+            if (record == null) {
+                entries.remove(key);
+                return null;
+            }
+            cached = entries.get(key);
+        }
+        if (cached != null && cached.record().equals(record)) {
+            return cached;
+        }
+        byte[] body = JSON.toJSONBytes(encoder.apply(record), JSONWriter.Feature.WriteNulls);
+        Encoded<R> encoded = new Encoded<>(record, body, etag(body));
+        synchronized (lock) {
+            entries.put(key, encoded);
+        }
+        return encoded;
+    }
+
+    public static ResponseEntity<Object> respond(HttpServletRequest request, Encoded<?> encoded) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null && matches(ifNoneMatch, encoded.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(encoded.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(encoded.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(encoded.body());
+    }
+
+    private static boolean matches(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(Arrays.copyOf(digest, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            return "\"" + Integer.toHexString(Arrays.hashCode(body)) + "-" + body.length + "\"";
+        }
+    }
+
+    public record Encoded<R>(R record, byte[] body, String etag) {
+    }
+}
@@ -3,33 +3,41 @@ package com.hyrinth.backend.webserver.resolver;
 import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
 import com.hyrinth.backend.Main;
+import com.hyrinth.backend.storage.PageCursor;
+import com.hyrinth.backend.storage.cache.SingleFlight;
 import com.hyrinth.backend.entities.HyrinthTeam;
 import com.hyrinth.backend.storage.team.TeamRecord;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
 
 public class TeamResolver {
 
+    private static final ResponseCache<TeamRecord> RESPONSES = new ResponseCache<>(TeamResolver::toJson);
+    private static final SingleFlight<Page> PAGES = new SingleFlight<>();
+
     public static JSONObject getTeam(String id) {
         if(id == null) return null;
-        Optional<TeamRecord> team = Main.getHyrinthBackend().getStorageProvider().getTeamStorage().findById(id);
-        if (team.isPresent()) {
-            JSONObject json = new JSONObject();
-            json.put("id", team.get().id());
-            json.put("name", team.get().name());
-            json.put("picture", team.get().picture());
-            json.put("ownerId", team.get().ownerId());
-            json.put("isHidden", team.get().isHidden());
-            json.put("projects", team.get().projects());
-            json.put("memberIds", team.get().memberIds());
-            json.put("createdAt", team.get().createdAt());
-            json.put("updatedAt", team.get().updatedAt());
-            return json;
-        } else {
-            return null;
-        }
+        return Main.getHyrinthBackend().getStorageProvider().getTeamStorage().findById(id).map(TeamResolver::toJson).orElse(null);
+    }
+
+    public static ResponseCache.Encoded<TeamRecord> getEncodedTeam(String id) {
+        if(id == null) return null;
+        return RESPONSES.get(id, Main.getHyrinthBackend().getStorageProvider().getTeamStorage().findById(id).orElse(null));
+    }
+
+    public static JSONObject toJson(TeamRecord team) {
+        JSONObject json = new JSONObject();
+        json.put("id", team.id());
+        json.put("name", team.name());
+        json.put("picture", team.picture());
+        json.put("ownerId", team.ownerId());
+        json.put("isHidden", team.isHidden());
+        json.put("projects", team.projects());
+        json.put("memberIds", team.memberIds());
+        json.put("createdAt", team.createdAt());
+        json.put("updatedAt", team.updatedAt());
+        return json;
     }
 
     public static JSONObject getAuthenticatedTeam(String id, String token) {
@@ -40,26 +48,59 @@ public class TeamResolver {
         return Main.getHyrinthBackend().getStorageProvider().getTeamStorage().findById(id).map(HyrinthTeam::new).orElse(null);
     }
 
-    public static JSONObject getTeams(int limit, int offset) {
+    public static JSONArray getTeams(List<String> ids) {
+        JSONArray array = new JSONArray();
+        Main.getHyrinthBackend().getStorageProvider().getTeamStorage().findByIds(ids).forEach(record -> array.add(toJson(record)));
+        return array;
+    }
+
+    public static JSONObject getTeams(int limit, int offset, String cursor) {
         if(limit>100) {
             limit = 100;
         }
+        PageCursor after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            Optional<PageCursor> decoded = PageCursor.decode(cursor);
+            if (decoded.isEmpty()) {
+                return null;
+            }
+            after = decoded.get();
+        }
+        int pageLimit = limit;
+        PageCursor pageAfter = after;
+        Page page = PAGES.load(limit + ":" + offset + ":" + cursor, () -> load(pageLimit, offset, pageAfter));
+        return page(pageLimit, offset, cursor, page);
+    }
+
+    private static Page load(int limit, int offset, PageCursor after) {
+        List<TeamRecord> records = after == null
+                ? Main.getHyrinthBackend().getStorageProvider().getTeamStorage().findPage(limit, offset)
+                : Main.getHyrinthBackend().getStorageProvider().getTeamStorage().findPageAfter(after, limit);
+        return new Page(List.copyOf(records), Main.getHyrinthBackend().getStorageProvider().getTeamStorage().count());
+    }
 
+    private static JSONObject page(int limit, int offset, String cursor, Page page) {
         JSONObject response = new JSONObject();
         response.put("limit", limit);
         response.put("offset", offset);
+        if (cursor != null) {
+            response.put("cursor", cursor);
+        }
 
         JSONArray teams = new JSONArray();
-        List<TeamRecord> teamRecords = Main.getHyrinthBackend().getStorageProvider().getTeamStorage().findPage(limit, offset);
-        AtomicInteger i = new AtomicInteger();
-        teamRecords.forEach(team -> {
-            teams.add(getTeam(team.id()));
-            i.getAndIncrement();
-        });
+        List<TeamRecord> teamRecords = page.records();
+        teamRecords.forEach(team -> teams.add(toJson(team)));
 
         response.put("matches", teamRecords.size());
-        response.put("total_hits",-1);
+        if (limit > 0 && teamRecords.size() == limit) {
+            TeamRecord last = teamRecords.get(teamRecords.size() - 1);
+            response.put("next_cursor", PageCursor.of(last.createdAt(), last.id()).encode());
+        }
+        response.put("total_hits", page.total());
         response.put("hits", teams);
         return response;
     }
+
+    private record Page(List<TeamRecord> records, long total) {
+    }
 }
\ No newline at end of file
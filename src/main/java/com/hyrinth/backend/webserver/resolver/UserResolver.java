@@ -3,41 +3,49 @@ package com.hyrinth.backend.webserver.resolver;
 import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
 import com.hyrinth.backend.Main;
+import com.hyrinth.backend.storage.PageCursor;
+import com.hyrinth.backend.storage.cache.SingleFlight;
 import com.hyrinth.backend.storage.account.AccountRecord;
 import com.hyrinth.backend.entities.HyrinthUser;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
 
 public class UserResolver {
 
+    private static final ResponseCache<AccountRecord> RESPONSES = new ResponseCache<>(UserResolver::toJson);
+    private static final SingleFlight<Page> PAGES = new SingleFlight<>();
+
     public static JSONObject getUser(String id) {
         if(id == null) return null;
-        Optional<AccountRecord> user = Main.getHyrinthBackend().getStorageProvider().getAccountStorage().findById(id);
-        if (user.isPresent()) {
-            JSONObject json = new JSONObject();
-            json.put("id", user.get().id());
-            json.put("email", user.get().email());
-            json.put("username", user.get().username());
-            json.put("profilePicture", user.get().profilePicture());
-            json.put("isHidden", user.get().isHidden());
-            json.put("projects", user.get().projects());
-            json.put("teams", user.get().teams());
-            json.put("createdAt", user.get().createdAt());
-            json.put("updatedAt", user.get().updatedAt());
-            return json;
-        } else {
-            return null;
-        }
+        return Main.getHyrinthBackend().getStorageProvider().getAccountStorage().findById(id).map(UserResolver::toJson).orElse(null);
+    }
+
+    public static ResponseCache.Encoded<AccountRecord> getEncodedUser(String id) {
+        if(id == null) return null;
+        return RESPONSES.get(id, Main.getHyrinthBackend().getStorageProvider().getAccountStorage().findById(id).orElse(null));
+    }
+
+    public static JSONObject toJson(AccountRecord user) {
+        JSONObject json = new JSONObject();
+        json.put("id", user.id());
+        json.put("email", user.email());
+        json.put("username", user.username());
+        json.put("profilePicture", user.profilePicture());
+        json.put("isHidden", user.isHidden());
+        json.put("projects", user.projects());
+        json.put("teams", user.teams());
+        json.put("createdAt", user.createdAt());
+        json.put("updatedAt", user.updatedAt());
+        return json;
     }
 
     public static JSONObject getAuthenticatedUser(String token) {
-        JSONObject json = getUser(Main.getHyrinthBackend().getAccountSessionService().findAccountId(token).orElse(null));
-        if(json != null) {
-            String id = json.getString("id");
+        String id = Main.getHyrinthBackend().getAccountSessionService().findAccountId(token).orElse(null);
+        if(id != null) {
             Optional<AccountRecord> user = Main.getHyrinthBackend().getStorageProvider().getAccountStorage().findById(id);
             if (user.isPresent()) {
+                JSONObject json = toJson(user.get());
                 json.put("passwordHash", user.get().passwordHash());
                 json.put("permissions", user.get().permissions());
                 json.put("isAdmin", user.get().isAdmin());
@@ -63,26 +71,59 @@ public class UserResolver {
         return Main.getHyrinthBackend().getStorageProvider().getAccountStorage().findById(id).map(HyrinthUser::new).orElse(null);
     }
 
-    public static JSONObject getUsers(int limit, int offset) {
+    public static JSONArray getUsers(List<String> ids) {
+        JSONArray array = new JSONArray();
+        Main.getHyrinthBackend().getStorageProvider().getAccountStorage().findByIds(ids).forEach(record -> array.add(toJson(record)));
+        return array;
+    }
+
+    public static JSONObject getUsers(int limit, int offset, String cursor) {
         if(limit>100) {
             limit = 100;
         }
+        PageCursor after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            Optional<PageCursor> decoded = PageCursor.decode(cursor);
+            if (decoded.isEmpty()) {
+                return null;
+            }
+            after = decoded.get();
+        }
+        int pageLimit = limit;
+        PageCursor pageAfter = after;
+        Page page = PAGES.load(limit + ":" + offset + ":" + cursor, () -> load(pageLimit, offset, pageAfter));
+        return page(pageLimit, offset, cursor, page);
+    }
+
+    private static Page load(int limit, int offset, PageCursor after) {
+        List<AccountRecord> records = after == null
+                ? Main.getHyrinthBackend().getStorageProvider().getAccountStorage().findPage(limit, offset)
+                : Main.getHyrinthBackend().getStorageProvider().getAccountStorage().findPageAfter(after, limit);
+        return new Page(List.copyOf(records), Main.getHyrinthBackend().getStorageProvider().getAccountStorage().count());
+    }
 
+    private static JSONObject page(int limit, int offset, String cursor, Page page) {
         JSONObject response = new JSONObject();
         response.put("limit", limit);
         response.put("offset", offset);
+        if (cursor != null) {
+            response.put("cursor", cursor);
+        }
 
         JSONArray users = new JSONArray();
-        List<AccountRecord> accounts = Main.getHyrinthBackend().getStorageProvider().getAccountStorage().findPage(limit, offset);
-        AtomicInteger i = new AtomicInteger();
-        accounts.forEach(user -> {
-            users.add(getUser(user.id()));
-            i.getAndIncrement();
-        });
+        List<AccountRecord> accounts = page.records();
+        accounts.forEach(user -> users.add(toJson(user)));
 
         response.put("matches", accounts.size());
-        response.put("total_hits",-1);
+        if (limit > 0 && accounts.size() == limit) {
+            AccountRecord last = accounts.get(accounts.size() - 1);
+            response.put("next_cursor", PageCursor.of(last.createdAt(), last.id()).encode());
+        }
+        response.put("total_hits", page.total());
         response.put("hits", users);
         return response;
     }
+
+    private record Page(List<AccountRecord> records, long total) {
+    }
 }